@@ -0,0 +1,145 @@
+package com.cerebro.finalproject.config;
+
+import com.cerebro.finalproject.service.QuizStatsService;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Makes sure the attempt table has its unique key on (quiz_id, student_id), once at startup before
+ * any request is served. Submits rely on that key alone to reject a second attempt.
+ *
+ * ddl-auto=update cannot add the key while duplicate attempts exist; it only logs the failed
+ * ALTER. This removes the duplicates first, keeping each student's earliest attempt (with its
+ * answers), then adds the key and recomputes the stats of the quizzes involved. If the key still
+ * cannot be created, startup fails rather than running without it.
+ */
+@Component
+public class AttemptUniqueKeyMigration {
+
+    private static final Logger log = LoggerFactory.getLogger(AttemptUniqueKeyMigration.class);
+
+    static final String KEY_NAME = "uk_attempt_quiz_student";
+    private static final Set<String> KEY_COLUMNS = Set.of("quiz_id", "student_id");
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private QuizStatsService quizStatsService;
+
+    // Injected so Hibernate has tried to create the key before this checks for it
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+
+    public AttemptUniqueKeyMigration(PlatformTransactionManager transactionManager,
+                                     @Value("${app.migration.attempt-unique-key:true}") boolean enabled) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (enabled) {
+            migrate();
+        }
+    }
+
+    /**
+     * Removes duplicate attempts and adds the unique key if it is missing; returns the number of
+     * attempts removed. Instances booting together may run it at the same time.
+     */
+    public int migrate() {
+        if (hasUniqueKey()) {
+            return 0;
+        }
+
+        List<Map<String, Object>> duplicates = jdbcTemplate.queryForList(
+                "SELECT quiz_id, student_id FROM attempt GROUP BY quiz_id, student_id HAVING COUNT(*) > 1");
+        int removed = 0;
+        Set<Long> quizIds = new TreeSet<>();
+        for (Map<String, Object> duplicate : duplicates) {
+            Long quizId = ((Number) duplicate.get("quiz_id")).longValue();
+            Long studentId = ((Number) duplicate.get("student_id")).longValue();
+            removed += transactionTemplate.execute(status -> keepEarliestAttempt(quizId, studentId));
+            quizIds.add(quizId);
+        }
+
+        try {
+            jdbcTemplate.execute("ALTER TABLE attempt ADD CONSTRAINT " + KEY_NAME + " UNIQUE (quiz_id, student_id)");
+        } catch (DataAccessException e) {
+            // Another instance may have added it first; anything else is checked below
+            log.debug("Could not add {}", KEY_NAME, e);
+        }
+        if (!hasUniqueKey()) {
+            throw new IllegalStateException("attempt has no unique key on (quiz_id, student_id) and it could not be "
+                    + "added; remove duplicate attempts and restart");
+        }
+
+        for (Long quizId : quizIds) {
+            quizStatsService.rebuild(quizId);
+        }
+        if (removed > 0) {
+            log.warn("Removed {} duplicate attempts of {} students before adding {}", removed, duplicates.size(), KEY_NAME);
+        }
+        return removed;
+    }
+
+    // Deletes all but the student's first attempt, and points their submissions at the one kept
+    private int keepEarliestAttempt(Long quizId, Long studentId) {
+        List<Long> attemptIds = jdbcTemplate.queryForList("SELECT id FROM attempt WHERE quiz_id = ? AND student_id = ? " +
+                "ORDER BY submitted_at, id FOR UPDATE", Long.class, quizId, studentId);
+        if (attemptIds.size() < 2) {
+            return 0;
+        }
+
+        Long kept = attemptIds.get(0);
+        int removed = 0;
+        for (Long attemptId : attemptIds.subList(1, attemptIds.size())) {
+            jdbcTemplate.update("UPDATE submission SET attempt_id = ? WHERE attempt_id = ?", kept, attemptId);
+            jdbcTemplate.update("DELETE FROM answer WHERE attempt_id = ?", attemptId);
+            removed += jdbcTemplate.update("DELETE FROM attempt WHERE id = ?", attemptId);
+        }
+        return removed;
+    }
+
+    // A unique index on exactly (quiz_id, student_id), whatever the database named it
+    private boolean hasUniqueKey() {
+        Boolean present = jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+            DatabaseMetaData metaData = connection.getMetaData();
+            Map<String, Set<String>> uniqueIndexes = new HashMap<>();
+            try (ResultSet indexes = metaData.getIndexInfo(connection.getCatalog(), null, "attempt", true, false)) {
+                while (indexes.next()) {
+                    String index = indexes.getString("INDEX_NAME");
+                    String column = indexes.getString("COLUMN_NAME");
+                    if (index != null && column != null) {
+                        uniqueIndexes.computeIfAbsent(index, name -> new TreeSet<>()).add(column.toLowerCase(Locale.ROOT));
+                    }
+                }
+            }
+            return uniqueIndexes.containsValue(new TreeSet<>(KEY_COLUMNS));
+        });
+        return Boolean.TRUE.equals(present);
+    }
+}
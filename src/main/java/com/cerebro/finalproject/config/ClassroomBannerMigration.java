@@ -0,0 +1,109 @@
+package com.cerebro.finalproject.config;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.util.List;
+
+/**
+ * Moves banner images from the legacy classroom.banner_image column into classroom_banner, once
+ * at startup before any request is served.
+ *
+ * Each banner is copied by an INSERT ... SELECT, so the image bytes never pass through the
+ * application, and the legacy column is cleared in the same transaction, one classroom at a time.
+ * Schemas created after the move have no legacy column and are left alone. The emptied
+ * banner_image and banner_content_type columns can be dropped by hand once every instance runs
+ * this version.
+ */
+@Component
+public class ClassroomBannerMigration {
+
+    private static final Logger log = LoggerFactory.getLogger(ClassroomBannerMigration.class);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // Injected so the schema (including classroom_banner) exists before migrating
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+
+    public ClassroomBannerMigration(PlatformTransactionManager transactionManager,
+                                    @Value("${app.migration.classroom-banners:true}") boolean enabled) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (enabled) {
+            migrate();
+        }
+    }
+
+    /**
+     * Moves every banner still held by the classroom table and returns the number moved by this
+     * call. Instances booting together may run it at the same time; each banner is moved by one.
+     */
+    public int migrate() {
+        if (!hasLegacyColumn()) {
+            return 0;
+        }
+
+        List<Long> classroomIds = jdbcTemplate.queryForList(
+                "SELECT id FROM classroom WHERE banner_image IS NOT NULL ORDER BY id", Long.class);
+        int moved = 0;
+        for (Long classroomId : classroomIds) {
+            try {
+                moved += transactionTemplate.execute(status -> moveBanner(classroomId));
+            } catch (DuplicateKeyException e) {
+                // Another instance inserted this banner after our NOT EXISTS check; its copy is the same
+                transactionTemplate.executeWithoutResult(status -> clearLegacyBanner(classroomId));
+            }
+        }
+
+        if (moved > 0) {
+            log.info("Moved {} classroom banners into classroom_banner", moved);
+        }
+        return moved;
+    }
+
+    private int moveBanner(Long classroomId) {
+        // A banner uploaded through the new table wins over the legacy copy
+        int inserted = jdbcTemplate.update("INSERT INTO classroom_banner (classroom_id, image, content_type) " +
+                "SELECT c.id, c.banner_image, c.banner_content_type FROM classroom c " +
+                "WHERE c.id = ? AND c.banner_image IS NOT NULL " +
+                "AND NOT EXISTS (SELECT 1 FROM classroom_banner b WHERE b.classroom_id = c.id)", classroomId);
+        clearLegacyBanner(classroomId);
+        return inserted;
+    }
+
+    private void clearLegacyBanner(Long classroomId) {
+        jdbcTemplate.update("UPDATE classroom SET banner_image = NULL, banner_content_type = NULL WHERE id = ?",
+                classroomId);
+    }
+
+    private boolean hasLegacyColumn() {
+        Boolean present = jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+            DatabaseMetaData metaData = connection.getMetaData();
+            try (ResultSet columns = metaData.getColumns(connection.getCatalog(), null, "classroom", "banner_image")) {
+                return columns.next();
+            }
+        });
+        return Boolean.TRUE.equals(present);
+    }
+}
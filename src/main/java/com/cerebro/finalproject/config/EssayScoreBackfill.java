@@ -0,0 +1,187 @@
+package com.cerebro.finalproject.config;
+
+import com.cerebro.finalproject.model.Answer;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Moves essay scores stored as a "ESSAY_SCORE:x|||" prefix of answer.given_text into the
+ * essay_score column, while the application keeps serving requests.
+ *
+ * The first start of this version records the largest answer id in data_migration; only graded
+ * answers (correct = TRUE) up to that id can hold a legacy score, so the prefix is never read from
+ * what a student typed into a newer or ungraded answer. The table is walked by primary key range
+ * up to that id, one short transaction per range that also records the progress, and a row is only
+ * rewritten if its text is still the one that was read; a teacher grading the same answer meanwhile
+ * wins. Once the walk finished that is recorded too, and later starts do nothing.
+ */
+@Component
+public class EssayScoreBackfill {
+
+    private static final Logger log = LoggerFactory.getLogger(EssayScoreBackfill.class);
+
+    private static final String NAME = "essay-score-backfill";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // Injected so the schema (including answer) exists before the state is recorded
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final int chunkSize;
+    private final long pauseMillis;
+
+    // Largest answer id that can hold a legacy score; -1 until the state is loaded
+    private volatile long upperId = -1;
+    private volatile boolean finished;
+
+    public EssayScoreBackfill(PlatformTransactionManager transactionManager,
+                              @Value("${app.migration.essay-score-backfill:true}") boolean enabled,
+                              @Value("${app.migration.chunk-size:5000}") int chunkSize,
+                              @Value("${app.migration.pause-ms:50}") long pauseMillis) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.chunkSize = chunkSize;
+        this.pauseMillis = pauseMillis;
+    }
+
+    /**
+     * Reads the migration's state, recording the current largest answer id as its upper bound the
+     * first time. Also recorded when the backfill itself is disabled, so the bound never moves.
+     */
+    @PostConstruct
+    public void loadState() {
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS data_migration (name VARCHAR(64) PRIMARY KEY, " +
+                "upper_id BIGINT NOT NULL, done_through BIGINT NOT NULL, finished BOOLEAN NOT NULL)");
+        if (readState().isEmpty()) {
+            Long maxId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM answer", Long.class);
+            try {
+                jdbcTemplate.update("INSERT INTO data_migration (name, upper_id, done_through, finished) " +
+                        "VALUES (?, ?, 0, FALSE)", NAME, maxId);
+            } catch (DuplicateKeyException e) {
+                // Another instance recorded it first; its bound is the one that counts
+            }
+        }
+        Map<String, Object> state = readState().get(0);
+        upperId = ((Number) state.get("upper_id")).longValue();
+        finished = Boolean.TRUE.equals(state.get("finished"));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled || finished) {
+            return;
+        }
+        Thread thread = new Thread(() -> {
+            try {
+                backfill();
+            } catch (RuntimeException e) {
+                // Safe to resume: the next startup continues after the last recorded range
+                log.error("Essay score backfill stopped", e);
+            }
+        }, "essay-score-backfill");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * The score of a graded answer that still holds it as a text prefix because the backfill has
+     * not reached it yet. Null for every other answer, and for all answers once the backfill finished.
+     */
+    public Double pendingLegacyScore(Long answerId, Boolean correct, String givenText) {
+        if (finished || answerId == null || answerId > upperId || !Boolean.TRUE.equals(correct)) {
+            return null;
+        }
+        return Answer.parseLegacyEssayScore(givenText);
+    }
+
+    /**
+     * Runs the rest of the backfill on the calling thread and returns the number of answers moved.
+     */
+    public int backfill() {
+        if (finished) {
+            return 0;
+        }
+        long upper = upperId;
+        Long doneThrough = jdbcTemplate.queryForObject(
+                "SELECT done_through FROM data_migration WHERE name = ?", Long.class, NAME);
+        int moved = 0;
+
+        for (long from = doneThrough != null ? doneThrough : 0L; from < upper; from += chunkSize) {
+            long lower = from;
+            long to = Math.min(lower + chunkSize, upper);
+            Integer count = transactionTemplate.execute(status -> {
+                int rangeMoved = backfillRange(lower, to);
+                jdbcTemplate.update("UPDATE data_migration SET done_through = ? WHERE name = ? AND done_through < ?",
+                        to, NAME, to);
+                return rangeMoved;
+            });
+            moved += count != null ? count : 0;
+
+            if (pauseMillis > 0) {
+                try {
+                    Thread.sleep(pauseMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return moved;
+                }
+            }
+        }
+
+        jdbcTemplate.update("UPDATE data_migration SET finished = TRUE WHERE name = ?", NAME);
+        finished = true;
+        log.info("Essay score backfill finished, moved {} essay scores into answer.essay_score", moved);
+        return moved;
+    }
+
+    // Backfills answers with lower < id <= upper
+    private int backfillRange(long lower, long upper) {
+        List<Map<String, Object>> rows = jdbcTemplate.queryForList(
+                "SELECT id, given_text FROM answer WHERE id > ? AND id <= ? AND essay_score IS NULL " +
+                        "AND correct = TRUE AND given_text LIKE 'ESSAY_SCORE:%'", lower, upper);
+
+        List<Object[]> updates = new ArrayList<>();
+        for (Map<String, Object> row : rows) {
+            String givenText = (String) row.get("given_text");
+            Double score = Answer.parseLegacyEssayScore(givenText);
+            if (score != null) {
+                updates.add(new Object[] {score, Answer.stripLegacyEssayScore(givenText), row.get("id"), givenText});
+            }
+        }
+        if (updates.isEmpty()) {
+            return 0;
+        }
+
+        int moved = 0;
+        for (int updated : jdbcTemplate.batchUpdate(
+                "UPDATE answer SET essay_score = ?, given_text = ? WHERE id = ? AND given_text = ?", updates)) {
+            // Rewritten batches may report SUCCESS_NO_INFO (-2) instead of a row count
+            if (updated != 0) {
+                moved++;
+            }
+        }
+        return moved;
+    }
+
+    private List<Map<String, Object>> readState() {
+        return jdbcTemplate.queryForList("SELECT upper_id, finished FROM data_migration WHERE name = ?", NAME);
+    }
+}
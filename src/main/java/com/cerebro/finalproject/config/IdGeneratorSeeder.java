@@ -0,0 +1,88 @@
+package com.cerebro.finalproject.config;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Moves the pooled id generator past ids that were already handed out by MySQL AUTO_INCREMENT.
+ * Runs once at startup, after Hibernate has updated the schema and before any request is served.
+ *
+ * Existing id columns may keep their AUTO_INCREMENT attribute: Hibernate always supplies the id,
+ * so the column default is never used. Rows must therefore not be inserted without an id by
+ * other tools while the application runs, or they may take an id from a block already handed out.
+ */
+@Component
+public class IdGeneratorSeeder {
+
+    private static final Logger log = LoggerFactory.getLogger(IdGeneratorSeeder.class);
+
+    // Must match the allocationSize of the @TableGenerator mappings
+    static final int ALLOCATION_SIZE = 50;
+
+    // Generator segment -> table whose ids it generates
+    private static final Map<String, String> SEGMENTS = new LinkedHashMap<>();
+
+    static {
+        SEGMENTS.put("user", "users");
+        SEGMENTS.put("classroom", "classroom");
+        SEGMENTS.put("quiz", "quiz");
+        SEGMENTS.put("question", "question");
+        SEGMENTS.put("choice", "choice");
+        SEGMENTS.put("test_case", "test_case");
+        SEGMENTS.put("submission", "submission");
+        SEGMENTS.put("attempt", "attempt");
+        SEGMENTS.put("answer", "answer");
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // Injected so the schema (including id_generator) exists before seeding
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    // Instances booting at the same time may seed concurrently; each generator ends up at least a block ahead
+    @PostConstruct
+    public void seed() {
+        for (Map.Entry<String, String> segment : SEGMENTS.entrySet()) {
+            seedSegment(segment.getKey(), segment.getValue());
+        }
+    }
+
+    private void seedSegment(String segment, String table) {
+        Long maxId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM " + table, Long.class);
+        // The pooled optimizer hands out (next_val - allocationSize, next_val], so stay a full block ahead
+        long required = (maxId != null ? maxId : 0L) + ALLOCATION_SIZE + 1;
+
+        List<Long> current = jdbcTemplate.queryForList(
+                "SELECT next_val FROM id_generator WHERE sequence_name = ?", Long.class, segment);
+
+        if (current.isEmpty()) {
+            try {
+                jdbcTemplate.update("INSERT INTO id_generator (sequence_name, next_val) VALUES (?, ?)", segment, required);
+                log.info("Seeded id generator '{}' at {}", segment, required);
+                return;
+            } catch (DuplicateKeyException e) {
+                // An instance booting at the same time seeded it first; make sure it is far enough ahead
+            }
+        } else if (current.get(0) >= required) {
+            return;
+        }
+
+        // Conditional, so a generator that has moved on meanwhile is never set back
+        if (jdbcTemplate.update("UPDATE id_generator SET next_val = ? WHERE sequence_name = ? AND next_val < ?",
+                required, segment, required) > 0) {
+            log.info("Advanced id generator '{}' to {}", segment, required);
+        }
+    }
+}
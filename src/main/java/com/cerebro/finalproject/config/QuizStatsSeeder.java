@@ -0,0 +1,30 @@
+package com.cerebro.finalproject.config;
+
+import com.cerebro.finalproject.service.QuizStatsService;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Creates quiz_stats rows for quizzes that predate them, before any request is served. With
+ * app.stats.rebuild-on-startup=true every quiz's stats are recomputed instead (drift repair).
+ */
+@Component
+public class QuizStatsSeeder {
+
+    @Autowired
+    private QuizStatsService quizStatsService;
+
+    @Value("${app.stats.rebuild-on-startup:false}")
+    private boolean rebuildOnStartup;
+
+    @PostConstruct
+    public void seed() {
+        if (rebuildOnStartup) {
+            quizStatsService.rebuildAll();
+        } else {
+            quizStatsService.rebuildMissing();
+        }
+    }
+}
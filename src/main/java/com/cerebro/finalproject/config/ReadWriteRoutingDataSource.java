@@ -0,0 +1,56 @@
+package com.cerebro.finalproject.config;
+
+import com.cerebro.finalproject.security.CustomUserDetails;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * Sends connections of read-only transactions to the replica when {@link ReplicaLagMonitor}
+ * allows it, and everything else to the primary. Must sit behind a LazyConnectionDataSourceProxy,
+ * so the connection is only chosen once the transaction's read-only flag is known.
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+    enum Route { PRIMARY, REPLICA }
+
+    private final ReplicaLagMonitor lagMonitor;
+
+    public ReadWriteRoutingDataSource(DataSource primary, DataSource replica, ReplicaLagMonitor lagMonitor) {
+        this.lagMonitor = lagMonitor;
+        setTargetDataSources(Map.of(Route.PRIMARY, primary, Route.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        Long userId = currentUserId();
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return lagMonitor.canReadFromReplica(userId) ? Route.REPLICA : Route.PRIMARY;
+        }
+
+        // The user's following reads stay on the primary until the replica has this write
+        if (userId != null && TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    lagMonitor.recordWrite(userId);
+                }
+            });
+        }
+        return Route.PRIMARY;
+    }
+
+    private static Long currentUserId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof CustomUserDetails details) {
+            return details.getUser().getId();
+        }
+        return null;
+    }
+}
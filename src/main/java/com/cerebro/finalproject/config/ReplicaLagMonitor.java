@@ -0,0 +1,118 @@
+package com.cerebro.finalproject.config;
+
+import com.cerebro.finalproject.service.AttemptSubmittedEvent;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Decides whether a read may go to the replica, from how far the replica is behind the primary.
+ *
+ * A heartbeat row on the primary is set to the current time every interval; the value read back
+ * from the replica is the point up to which the replica has applied the primary's commits. Reads
+ * go to the primary while that point is more than the allowed lag ago, and a user's reads go to
+ * the primary until the replica has passed that user's last committed write, so their own
+ * changes (such as a just-submitted attempt) are always visible to them.
+ */
+public class ReplicaLagMonitor {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaLagMonitor.class);
+
+    private final JdbcTemplate primary;
+    private final JdbcTemplate replica;
+    private final long maxLagMillis;
+
+    // Primary time the replica has caught up to; 0 until the first heartbeat is read back
+    private volatile long caughtUpTo;
+    // Only used to log changes of state
+    private volatile boolean lagging = true;
+
+    // User id -> time of the user's last committed write
+    private final Map<Long, Long> lastWrites = new ConcurrentHashMap<>();
+
+    public ReplicaLagMonitor(DataSource primary, DataSource replica, long maxLagMillis) {
+        this.primary = new JdbcTemplate(primary);
+        this.replica = new JdbcTemplate(replica);
+        this.maxLagMillis = maxLagMillis;
+    }
+
+    @PostConstruct
+    public void createHeartbeat() {
+        primary.execute("CREATE TABLE IF NOT EXISTS replica_heartbeat (id INT PRIMARY KEY, beat_at BIGINT NOT NULL)");
+        Integer rows = primary.queryForObject("SELECT COUNT(*) FROM replica_heartbeat", Integer.class);
+        if (rows == null || rows == 0) {
+            primary.update("INSERT INTO replica_heartbeat (id, beat_at) VALUES (1, ?)", System.currentTimeMillis());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.datasource.replica.heartbeat-interval-ms:1000}")
+    public void beat() {
+        try {
+            primary.update("UPDATE replica_heartbeat SET beat_at = ? WHERE id = 1", System.currentTimeMillis());
+        } catch (DataAccessException e) {
+            log.warn("Could not write the replica heartbeat", e);
+        }
+        refresh();
+    }
+
+    // Reads the heartbeat back from the replica
+    public void refresh() {
+        long now = System.currentTimeMillis();
+        try {
+            List<Long> beat = replica.queryForList("SELECT beat_at FROM replica_heartbeat WHERE id = 1", Long.class);
+            caughtUpTo = beat.isEmpty() ? 0L : beat.get(0);
+        } catch (DataAccessException e) {
+            // Unreachable or not yet replicated: treat as infinitely behind
+            caughtUpTo = 0L;
+        }
+
+        boolean nowLagging = now - caughtUpTo > maxLagMillis;
+        if (nowLagging != lagging) {
+            if (nowLagging) {
+                log.warn("Replica is more than {} ms behind; reading from the primary", maxLagMillis);
+            } else {
+                log.info("Replica caught up; read-only transactions use it again");
+            }
+            lagging = nowLagging;
+        }
+        lastWrites.values().removeIf(writtenAt -> writtenAt < caughtUpTo);
+    }
+
+    /**
+     * Whether a read of the given user (null when there is none, e.g. a background job) may be
+     * served by the replica.
+     */
+    public boolean canReadFromReplica(Long userId) {
+        // Also covers heartbeats that stopped being read back
+        if (System.currentTimeMillis() - caughtUpTo > maxLagMillis) {
+            return false;
+        }
+        if (userId == null) {
+            return true;
+        }
+        Long writtenAt = lastWrites.get(userId);
+        return writtenAt == null || writtenAt < caughtUpTo;
+    }
+
+    // Called once a write of the user has committed on the primary
+    public void recordWrite(Long userId) {
+        lastWrites.put(userId, System.currentTimeMillis());
+    }
+
+    // Submits graded by background workers carry no user of their own
+    @TransactionalEventListener
+    public void onAttemptSubmitted(AttemptSubmittedEvent event) {
+        if (event.getStudentId() != null) {
+            recordWrite(event.getStudentId());
+        }
+    }
+}
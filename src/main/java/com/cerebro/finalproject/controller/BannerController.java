@@ -1,6 +1,6 @@
 package com.cerebro.finalproject.controller;
 
-import com.cerebro.finalproject.model.Classroom;
+import com.cerebro.finalproject.model.ClassroomBanner;
 import com.cerebro.finalproject.service.ClassroomService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.io.ClassPathResource;
@@ -23,25 +23,23 @@ public class BannerController {
     @Autowired
     private ClassroomService classroomService;
 
+    // Reads only the classroom_banner row, never the classroom
     @GetMapping("/classroom/{id}/banner")
     public ResponseEntity<byte[]> getClassroomBanner(@PathVariable Long id) {
-        Optional<Classroom> classroomOpt = classroomService.findById(id);
+        Optional<ClassroomBanner> bannerOpt = classroomService.findBanner(id);
 
-        if (classroomOpt.isPresent()) {
-            Classroom classroom = classroomOpt.get();
-
-            if (classroom.getBannerImage() != null) {
-                HttpHeaders headers = new HttpHeaders();
-
-                // Set content type
-                if (classroom.getBannerContentType() != null) {
-                    headers.setContentType(MediaType.parseMediaType(classroom.getBannerContentType()));
-                } else {
-                    headers.setContentType(MediaType.IMAGE_JPEG);
-                }
+        if (bannerOpt.isPresent()) {
+            ClassroomBanner banner = bannerOpt.get();
+            HttpHeaders headers = new HttpHeaders();
 
-                return new ResponseEntity<>(classroom.getBannerImage(), headers, HttpStatus.OK);
+            // Set content type
+            if (banner.getContentType() != null) {
+                headers.setContentType(MediaType.parseMediaType(banner.getContentType()));
+            } else {
+                headers.setContentType(MediaType.IMAGE_JPEG);
             }
+
+            return new ResponseEntity<>(banner.getImage(), headers, HttpStatus.OK);
         }
 
         // If no banner found, return default
@@ -4,14 +4,21 @@ import com.cerebro.finalproject.model.*;
 import com.cerebro.finalproject.repository.UserRepository;
 import com.cerebro.finalproject.security.CustomUserDetails;
 import com.cerebro.finalproject.service.ClassroomService;
+import com.cerebro.finalproject.service.DuplicateAttemptException;
+import com.cerebro.finalproject.service.QuizPaper;
+import com.cerebro.finalproject.service.QuizPaperService;
 import com.cerebro.finalproject.service.QuizService;
+import com.cerebro.finalproject.service.SubmissionIntakeService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Optional;
 
@@ -25,9 +32,19 @@ public class StudentController {
     @Autowired
     private QuizService quizService;
 
+    @Autowired
+    private QuizPaperService quizPaperService;
+
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private SubmissionIntakeService submissionIntakeService;
+
+    // Store submissions and grade them in the background instead of on the request thread
+    @Value("${app.submission.async-intake:false}")
+    private boolean asyncIntake;
+
     @GetMapping
     public String studentDashboard(@AuthenticationPrincipal CustomUserDetails userDetails, Model model) {
         // Fetch user with eagerly loaded classes
@@ -92,8 +109,7 @@ public class StudentController {
         }
 
         model.addAttribute("classRoom", classroom);
-        model.addAttribute("quizzes", quizService.findByClassRoomId(classId));
-        model.addAttribute("studentId", student.getId());
+        model.addAttribute("quizzes", quizService.getStudentQuizRows(classId, student.getId()));
         return "student_class";
     }
 
@@ -120,36 +136,32 @@ public class StudentController {
             return "redirect:/student";
         }
 
-        // Verify quiz exists and belongs to the class
-        Optional<Quiz> quizOpt = quizService.findById(quizId);
-        if (quizOpt.isEmpty()) {
+        // Verify quiz exists and belongs to the class; the cached paper is shared by every student
+        Optional<QuizPaper> paperOpt = quizPaperService.getPaper(quizId);
+        if (paperOpt.isEmpty()) {
             redirectAttributes.addFlashAttribute("error", "Quiz not found");
             return "redirect:/student/class/" + classId;
         }
 
-        Quiz quiz = quizOpt.get();
+        QuizPaper paper = paperOpt.get();
 
         // SECURITY: Verify quiz belongs to this classroom
-        if (!quiz.getClassRoom().getId().equals(classId)) {
+        if (!classId.equals(paper.getClassRoomId())) {
             redirectAttributes.addFlashAttribute("error", "Quiz does not belong to this class");
             return "redirect:/student/class/" + classId;
         }
 
         // CHECK: Prevent student from taking quiz if already attempted
-        if (quizService.hasStudentAttempted(quizId, student.getId())) {
-            Optional<Attempt> attemptOpt = quizService.getStudentLatestAttempt(quizId, student.getId());
-            if (attemptOpt.isPresent()) {
-                Attempt attempt = attemptOpt.get();
-                redirectAttributes.addFlashAttribute("info",
-                        "You have already completed this quiz. Your score: " +
-                                attempt.getScore() + " / " + quiz.getTotalPoints());
-            } else {
-                redirectAttributes.addFlashAttribute("info", "You have already completed this quiz.");
-            }
+        Optional<Attempt> attemptOpt = quizService.getStudentLatestAttempt(quizId, student.getId());
+        if (attemptOpt.isPresent()) {
+            redirectAttributes.addFlashAttribute("info",
+                    "You have already completed this quiz. Your score: " +
+                            attemptOpt.get().getScore() + " / " + paper.getTotalPoints());
             return "redirect:/student/class/" + classId;
         }
 
-        model.addAttribute("quiz", quiz);
+        model.addAttribute("quiz", paper);
+        model.addAttribute("classRoom", classroom);
         model.addAttribute("classId", classId);
         return "studentquiz";
     }
@@ -192,10 +204,15 @@ public class StudentController {
             return "redirect:/student/class/" + classId;
         }
 
-        // CHECK: Prevent duplicate submission
-        if (quizService.hasStudentAttempted(quizId, student.getId())) {
-            redirectAttributes.addFlashAttribute("error", "You have already submitted this quiz.");
-            return "redirect:/student/class/" + classId;
+        if (asyncIntake) {
+            if (submissionIntakeService.hasSubmitted(quizId, student.getId())) {
+                redirectAttributes.addFlashAttribute("error", "You have already submitted this quiz.");
+                return "redirect:/student/class/" + classId;
+            }
+
+            Submission submission = submissionIntakeService.accept(quiz, student, answers);
+            redirectAttributes.addFlashAttribute("info", "Quiz received! Your answers are being graded.");
+            return "redirect:/student/class/" + classId + "?receipt=" + submission.getId();
         }
 
         try {
@@ -204,13 +221,45 @@ public class StudentController {
 
             redirectAttributes.addFlashAttribute("success",
                     "Quiz submitted successfully! Your score: " + attempt.getScore() +
-                            " out of " + quiz.getQuestions().size());
+                            " out of " + quiz.getTotalPoints());
 
             return "redirect:/student/class/" + classId + "?submitted";
+        } catch (DuplicateAttemptException e) {
+            // Double-click or retry: the database already holds this student's attempt
+            redirectAttributes.addFlashAttribute("error", "You have already submitted this quiz.");
+            return "redirect:/student/class/" + classId;
         } catch (Exception e) {
             e.printStackTrace();
             redirectAttributes.addFlashAttribute("error", "Error submitting quiz. Please try again.");
             return "redirect:/student/class/" + classId + "/quiz/" + quizId;
         }
     }
-}
\ No newline at end of file
+
+    // Polled by the class page while an asynchronously received submission is being graded
+    @GetMapping("/submission/{submissionId}/status")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> submissionStatus(@PathVariable Long submissionId,
+                                                                @AuthenticationPrincipal CustomUserDetails userDetails) {
+        Optional<Submission> submissionOpt =
+                submissionIntakeService.findForStudent(submissionId, userDetails.getUser().getId());
+        if (submissionOpt.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+
+        Submission submission = submissionOpt.get();
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("id", submission.getId());
+        body.put("status", submission.getStatus().name());
+        body.put("receivedAt", submission.getReceivedAt());
+        body.put("gradedAt", submission.getGradedAt());
+
+        if (submission.getAttemptId() != null) {
+            quizService.getAttemptById(submission.getAttemptId()).ifPresent(attempt -> {
+                body.put("score", attempt.getScore());
+                body.put("totalPoints", submission.getQuiz().getTotalPoints());
+            });
+        }
+
+        return ResponseEntity.ok(body);
+    }
+}
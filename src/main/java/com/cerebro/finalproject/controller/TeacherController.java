@@ -1,20 +1,40 @@
 package com.cerebro.finalproject.controller;
 
 import com.cerebro.finalproject.model.*;
-import com.cerebro.finalproject.repository.AnswerRepository;
+import com.cerebro.finalproject.repository.QuizScoreSummary;
 import com.cerebro.finalproject.repository.UserRepository;
 import com.cerebro.finalproject.security.CustomUserDetails;
+import com.cerebro.finalproject.service.AttemptListingService;
+import com.cerebro.finalproject.service.AttemptPage;
+import com.cerebro.finalproject.service.AttemptSort;
 import com.cerebro.finalproject.service.ClassroomService;
+import com.cerebro.finalproject.service.Gradebook;
+import com.cerebro.finalproject.service.GradebookService;
+import com.cerebro.finalproject.service.ItemAnalysisService;
+import com.cerebro.finalproject.service.LiveResultsService;
+import com.cerebro.finalproject.service.QuizExportService;
 import com.cerebro.finalproject.service.QuizService;
+import com.cerebro.finalproject.service.QuizStatsService;
+import com.cerebro.finalproject.service.RegradeJob;
+import com.cerebro.finalproject.service.RegradeService;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Controller
@@ -31,7 +51,25 @@ public class TeacherController {
     private UserRepository userRepository;
 
     @Autowired
-    private AnswerRepository answerRepository;
+    private RegradeService regradeService;
+
+    @Autowired
+    private QuizStatsService quizStatsService;
+
+    @Autowired
+    private ItemAnalysisService itemAnalysisService;
+
+    @Autowired
+    private AttemptListingService attemptListingService;
+
+    @Autowired
+    private QuizExportService quizExportService;
+
+    @Autowired
+    private GradebookService gradebookService;
+
+    @Autowired
+    private LiveResultsService liveResultsService;
 
     @GetMapping
     public String teacherDashboard(@AuthenticationPrincipal CustomUserDetails userDetails, Model model) {
@@ -69,6 +107,61 @@ public class TeacherController {
         return "teacher_classlist";
     }
 
+    @GetMapping("/class/{id}/gradebook")
+    public String viewGradebook(@PathVariable Long id, Model model) {
+        Optional<Classroom> classroomOpt = classroomService.findById(id);
+        if (classroomOpt.isEmpty()) {
+            return "redirect:/teacher";
+        }
+
+        model.addAttribute("classRoom", classroomOpt.get());
+        model.addAttribute("gradebook", gradebookService.build(id));
+        return "teacher_gradebook";
+    }
+
+    // The gradebook as JSON: quizzes, then one entry per student with a score per quiz (null if not taken)
+    @GetMapping("/class/{id}/gradebook/data")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> gradebookData(@PathVariable Long id) {
+        if (classroomService.findById(id).isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+
+        Gradebook gradebook = gradebookService.build(id);
+        List<Map<String, Object>> quizzes = new ArrayList<>();
+        for (int q = 0; q < gradebook.getQuizCount(); q++) {
+            Map<String, Object> quiz = new LinkedHashMap<>();
+            quiz.put("id", gradebook.getQuizId(q));
+            quiz.put("title", gradebook.getQuizTitle(q));
+            quiz.put("totalPoints", gradebook.getQuizTotalPoints(q));
+            quiz.put("attempts", gradebook.getQuizAttempts(q));
+            quiz.put("average", gradebook.getQuizAverage(q));
+            quizzes.add(quiz);
+        }
+
+        List<Map<String, Object>> students = new ArrayList<>();
+        for (int s = 0; s < gradebook.getStudentCount(); s++) {
+            List<Double> scores = new ArrayList<>(gradebook.getQuizCount());
+            for (int q = 0; q < gradebook.getQuizCount(); q++) {
+                scores.add(gradebook.getScore(s, q));
+            }
+            Map<String, Object> student = new LinkedHashMap<>();
+            student.put("id", gradebook.getStudentId(s));
+            student.put("name", gradebook.getStudentName(s));
+            student.put("email", gradebook.getStudentEmail(s));
+            student.put("total", gradebook.getStudentTotal(s));
+            student.put("percentage", gradebook.getStudentPercentage(s));
+            student.put("scores", scores);
+            students.add(student);
+        }
+
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("classroomId", id);
+        body.put("quizzes", quizzes);
+        body.put("students", students);
+        return ResponseEntity.ok(body);
+    }
+
     @GetMapping("/class/{classId}/create_quiz")
     public String showCreateQuizForm(@PathVariable Long classId, Model model) {
         Optional<Classroom> classroomOpt = classroomService.findById(classId);
@@ -111,7 +204,9 @@ public class TeacherController {
                               @RequestParam(value = "choice1", required = false) String choice1,
                               @RequestParam(value = "choice2", required = false) String choice2,
                               @RequestParam(value = "choice3", required = false) String choice3,
-                              @RequestParam(value = "choice4", required = false) String choice4) {
+                              @RequestParam(value = "choice4", required = false) String choice4,
+                              @RequestParam(value = "testInput", required = false) List<String> testInputs,
+                              @RequestParam(value = "testOutput", required = false) List<String> testOutputs) {
 
         Optional<Quiz> quizOpt = quizService.findById(quizId);
         if (quizOpt.isEmpty()) {
@@ -126,6 +221,8 @@ public class TeacherController {
         if (type == Question.QuestionType.MCQ) {
             List<String> choices = List.of(choice1, choice2, choice3, choice4);
             quizService.addQuestionWithChoices(quiz, text, choices, correct, questionPoints);
+        } else if (type == Question.QuestionType.CODING) {
+            quizService.addCodingQuestion(quiz, text, correct, questionPoints, testInputs, testOutputs);
         } else {
             quizService.addQuestion(quiz, type, text, correct, questionPoints);
         }
@@ -179,76 +276,106 @@ public class TeacherController {
         return "redirect:/teacher/quiz/" + quizId + "/edit";
     }
 
+    @PostMapping("/quiz/{quizId}/question/{questionId}/answer_key")
+    public String updateAnswerKey(@PathVariable Long quizId,
+                                  @PathVariable Long questionId,
+                                  @RequestParam(value = "correct", required = false) String correct,
+                                  @RequestParam(value = "correctChoiceId", required = false) Long correctChoiceId,
+                                  RedirectAttributes redirectAttributes) {
+        try {
+            quizService.updateAnswerKey(questionId, correct, correctChoiceId);
+            redirectAttributes.addFlashAttribute("success", "Answer key updated. Existing answers are being regraded.");
+        } catch (RuntimeException e) {
+            redirectAttributes.addFlashAttribute("error", e.getMessage());
+            return "redirect:/teacher/quiz/" + quizId + "/edit";
+        }
+        return "redirect:/teacher/quiz/" + quizId + "/edit?regrade=" + questionId;
+    }
+
+    // Regrades existing answers against the current key, e.g. after a failed or interrupted job
+    @PostMapping("/quiz/{quizId}/question/{questionId}/regrade")
+    public String regradeQuestion(@PathVariable Long quizId, @PathVariable Long questionId) {
+        regradeService.scheduleRegrade(questionId);
+        return "redirect:/teacher/quiz/" + quizId + "/edit?regrade=" + questionId;
+    }
+
+    // Polled by the quiz editor while a regrade runs
+    @GetMapping("/question/{questionId}/regrade/status")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> regradeStatus(@PathVariable Long questionId) {
+        Optional<RegradeJob> jobOpt = regradeService.getJob(questionId);
+        if (jobOpt.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+
+        RegradeJob job = jobOpt.get();
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("questionId", job.getQuestionId());
+        body.put("status", job.getStatus().name());
+        body.put("percent", job.getPercent());
+        body.put("totalAnswers", job.getTotalAnswers());
+        body.put("processedAnswers", job.getProcessedAnswers());
+        body.put("changedAnswers", job.getChangedAnswers());
+        body.put("adjustedAttempts", job.getAdjustedAttempts());
+        body.put("skippedAnswers", job.getSkippedAnswers());
+        body.put("startedAt", job.getStartedAt());
+        body.put("finishedAt", job.getFinishedAt());
+        body.put("error", job.getError());
+        return ResponseEntity.ok(body);
+    }
+
+    // Recomputes the quiz's results statistics from its attempts
+    @PostMapping("/quiz/{id}/stats/rebuild")
+    public String rebuildQuizStats(@PathVariable Long id, RedirectAttributes redirectAttributes) {
+        quizStatsService.rebuild(id);
+        redirectAttributes.addFlashAttribute("success", "Statistics recalculated from all attempts.");
+        return "redirect:/teacher/quiz/" + id + "/results";
+    }
+
     @GetMapping("/quiz/{id}/results")
-    public String viewQuizResults(@PathVariable Long id, Model model) {
+    public String viewQuizResults(@PathVariable Long id,
+                                  @RequestParam(defaultValue = "submitted") String sort,
+                                  @RequestParam(defaultValue = "asc") String dir,
+                                  @RequestParam(required = false) String after,
+                                  @RequestParam(required = false) Long afterId,
+                                  @RequestParam(required = false) Integer size,
+                                  @RequestParam(defaultValue = "0") int start,
+                                  Model model) {
         Optional<Quiz> quizOpt = quizService.findById(id);
         if (quizOpt.isEmpty()) {
             return "redirect:/teacher";
         }
 
         Quiz quiz = quizOpt.get();
-        List<Attempt> attempts = quizService.getQuizAttempts(id);
-        double averageScore = quizService.calculateAverageScore(id);
+        AttemptPage page = attemptListingService.getPage(id, AttemptSort.fromParam(sort),
+                "desc".equalsIgnoreCase(dir), after, afterId, size);
+        // Summary is one quiz_stats row, not computed from the page above
+        QuizScoreSummary summary = quizService.getScoreSummary(id);
 
         model.addAttribute("quiz", quiz);
-        model.addAttribute("attempts", attempts);
-        model.addAttribute("averageScore", averageScore);
-
-        if (!attempts.isEmpty() && quiz.getTotalPoints() != null && quiz.getTotalPoints() > 0) {
-            double totalPoints = quiz.getTotalPoints();
-
-            double maxScore = 0.0;
-            double minScore = totalPoints;
-
-            for (Attempt attempt : attempts) {
-                if (attempt.getScore() != null) {
-                    if (attempt.getScore() > maxScore) {
-                        maxScore = attempt.getScore();
-                    }
-                    if (attempt.getScore() < minScore) {
-                        minScore = attempt.getScore();
-                    }
-                }
-            }
-
-            long excellentCount = 0;
-            long goodCount = 0;
-            long averageCount = 0;
-            long poorCount = 0;
-
-            for (Attempt attempt : attempts) {
-                if (attempt.getScore() != null) {
-                    double percentage = (attempt.getScore() / totalPoints) * 100;
-                    if (percentage >= 90) {
-                        excellentCount++;
-                    } else if (percentage >= 80) {
-                        goodCount++;
-                    } else if (percentage >= 70) {
-                        averageCount++;
-                    } else {
-                        poorCount++;
-                    }
-                }
-            }
-
-            model.addAttribute("maxScore", maxScore);
-            model.addAttribute("minScore", minScore);
-            model.addAttribute("excellentCount", excellentCount);
-            model.addAttribute("goodCount", goodCount);
-            model.addAttribute("averageCount", averageCount);
-            model.addAttribute("poorCount", poorCount);
-        } else {
-            model.addAttribute("maxScore", 0.0);
-            model.addAttribute("minScore", 0.0);
-            model.addAttribute("excellentCount", 0L);
-            model.addAttribute("goodCount", 0L);
-            model.addAttribute("averageCount", 0L);
-            model.addAttribute("poorCount", 0L);
-        }
+        model.addAttribute("page", page);
+        // Only used to number the rows; the page itself is found by its cursor
+        model.addAttribute("start", afterId != null ? Math.max(start, 0) : 0);
+        model.addAttribute("attemptCount", summary.getCount());
+        model.addAttribute("averageScore", summary.getAveragePercentage());
+        model.addAttribute("maxScore", summary.getMaxScore() != null ? summary.getMaxScore() : 0.0);
+        model.addAttribute("minScore", summary.getMinScore() != null ? summary.getMinScore() : 0.0);
+        model.addAttribute("excellentCount", summary.getExcellentCount());
+        model.addAttribute("goodCount", summary.getGoodCount());
+        model.addAttribute("averageCount", summary.getAverageCount());
+        model.addAttribute("poorCount", summary.getPoorCount());
+        model.addAttribute("distribution", quizStatsService.getDistribution(id).orElse(null));
 
         return "teacher_insidequiz_result";
     }
 
+    // Server-Sent Events with the summary and new attempts, for the open results page
+    @GetMapping(value = "/quiz/{id}/results/live", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @ResponseBody
+    public SseEmitter liveResults(@PathVariable Long id) {
+        return liveResultsService.watch(id);
+    }
+
     // NEW: View detailed attempt with essay grading
     @GetMapping("/attempt/{attemptId}/review")
     public String reviewAttempt(@PathVariable Long attemptId, Model model, RedirectAttributes redirectAttributes) {
@@ -259,7 +386,7 @@ public class TeacherController {
         }
 
         Attempt attempt = attemptOpt.get();
-        List<Answer> answers = answerRepository.findByAttemptId(attemptId);
+        List<Answer> answers = quizService.getAnswersForReview(attempt);
 
         model.addAttribute("attempt", attempt);
         model.addAttribute("answers", answers);
@@ -268,6 +395,74 @@ public class TeacherController {
         return "teacher_review_attempt";
     }
 
+    // CSV download of the results: "attempts" (one line per attempt) or "answers" (attempt x question
+    // matrix). Written from a database cursor on an async thread, so the request thread is released.
+    @GetMapping("/quiz/{quizId}/export")
+    public ResponseEntity<StreamingResponseBody> exportResults(@PathVariable Long quizId,
+                                                               @RequestParam(defaultValue = "attempts") String type) {
+        if (quizService.findById(quizId).isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+
+        boolean answers = "answers".equalsIgnoreCase(type);
+        StreamingResponseBody body = answers
+                ? out -> quizExportService.writeAnswerMatrix(quizId, out)
+                : out -> quizExportService.writeAttempts(quizId, out);
+        String filename = "quiz-" + quizId + (answers ? "-answers.csv" : "-results.csv");
+
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
+                .contentType(new MediaType("text", "csv", StandardCharsets.UTF_8))
+                .body(body);
+    }
+
+    // Item analysis report: difficulty, discrimination and most chosen wrong choice per question
+    @GetMapping("/quiz/{quizId}/analysis")
+    public String itemAnalysis(@PathVariable Long quizId, Model model) {
+        Optional<Quiz> quizOpt = quizService.findById(quizId);
+        if (quizOpt.isEmpty()) {
+            return "redirect:/teacher";
+        }
+
+        model.addAttribute("quiz", quizOpt.get());
+        model.addAttribute("analysis", itemAnalysisService.analyze(quizId));
+        return "teacher_item_analysis";
+    }
+
+    // All essay answers of a quiz on one page, graded with a single submit
+    @GetMapping("/quiz/{quizId}/essays")
+    public String gradeEssays(@PathVariable Long quizId, Model model) {
+        Optional<Quiz> quizOpt = quizService.findById(quizId);
+        if (quizOpt.isEmpty()) {
+            return "redirect:/teacher";
+        }
+
+        model.addAttribute("quiz", quizOpt.get());
+        model.addAttribute("answers", quizService.getEssayAnswers(quizId));
+        return "teacher_grade_essays";
+    }
+
+    // Form fields are named "score_{answerId}"; blank fields are left ungraded
+    @PostMapping("/quiz/{quizId}/essays/grade")
+    public String gradeEssaysBatch(@PathVariable Long quizId,
+                                   @RequestParam Map<String, String> params,
+                                   RedirectAttributes redirectAttributes) {
+        Map<Long, Double> scores = new LinkedHashMap<>();
+        try {
+            for (Map.Entry<String, String> param : params.entrySet()) {
+                if (param.getKey().startsWith("score_") && !param.getValue().trim().isEmpty()) {
+                    scores.put(Long.parseLong(param.getKey().substring(6)), Double.parseDouble(param.getValue()));
+                }
+            }
+            int graded = quizService.gradeEssayAnswers(scores);
+            redirectAttributes.addFlashAttribute("success", graded + " essay answer(s) graded successfully!");
+        } catch (Exception e) {
+            redirectAttributes.addFlashAttribute("error", "Failed to grade answers: " + e.getMessage());
+        }
+
+        return "redirect:/teacher/quiz/" + quizId + "/essays";
+    }
+
     // NEW: Grade essay answer
     @PostMapping("/answer/{answerId}/grade")
     public String gradeEssayAnswer(@PathVariable Long answerId,
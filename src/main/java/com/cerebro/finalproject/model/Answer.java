@@ -4,11 +4,20 @@ import jakarta.persistence.*;
 
 // Answer Entity
 @Entity
-@Table(name = "answer")
+@Table(name = "answer", indexes = {
+        // Keyset scans of one question's answers (regrading)
+        @Index(name = "idx_answer_question_id", columnList = "question_id, id")
+})
 public class Answer {
 
+    public static final String LEGACY_ESSAY_PREFIX = "ESSAY_SCORE:";
+    public static final String LEGACY_ESSAY_SEPARATOR = "|||";
+
+    // Pooled table ids (instead of IDENTITY) so Hibernate can batch inserts
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "answer_id")
+    @TableGenerator(name = "answer_id", table = "id_generator", pkColumnName = "sequence_name",
+            valueColumnName = "next_val", pkColumnValue = "answer", allocationSize = 50)
     private Long id;
 
     @ManyToOne
@@ -29,6 +38,9 @@ public class Answer {
     @Column(nullable = false)
     private Boolean correct = false;
 
+    @Column(name = "essay_score")
+    private Double essayScore;
+
     // Getters and Setters
     public Long getId() { return id; }
     public void setId(Long id) { this.id = id; }
@@ -48,39 +60,48 @@ public class Answer {
     public Boolean getCorrect() { return correct; }
     public void setCorrect(Boolean correct) { this.correct = correct; }
 
-    // Helper method to extract essay score from givenText
-    // Format: "ESSAY_SCORE:5.0|||<actual essay text>"
-    public Double getEssayScore() {
-        if (givenText != null && givenText.startsWith("ESSAY_SCORE:")) {
+    // Score given by the teacher to an essay answer, null until graded
+    public Double getEssayScore() { return essayScore; }
+
+    public void setEssayScore(Double essayScore) {
+        this.essayScore = essayScore;
+        if (essayScore != null) {
+            this.correct = true; // Mark as graded
+        }
+    }
+
+    // Essay text as written by the student
+    public String getActualEssayText() {
+        return givenText;
+    }
+
+    // Essay scores used to be stored as a "ESSAY_SCORE:5.0|||<essay text>" prefix of given_text.
+    // Only EssayScoreBackfill reads them, from graded answers older than the migration.
+    public static boolean isLegacyEssayText(String givenText) {
+        return givenText != null && givenText.startsWith(LEGACY_ESSAY_PREFIX);
+    }
+
+    public static Double parseLegacyEssayScore(String givenText) {
+        if (isLegacyEssayText(givenText)) {
             try {
-                int endIndex = givenText.indexOf("|||");
+                int endIndex = givenText.indexOf(LEGACY_ESSAY_SEPARATOR);
                 if (endIndex > 0) {
-                    String scoreStr = givenText.substring(12, endIndex);
-                    return Double.parseDouble(scoreStr);
+                    return Double.parseDouble(givenText.substring(LEGACY_ESSAY_PREFIX.length(), endIndex));
                 }
-            } catch (Exception e) {
+            } catch (NumberFormatException e) {
                 return null;
             }
         }
         return null;
     }
 
-    // Helper method to get actual essay text without score prefix
-    public String getActualEssayText() {
-        if (givenText != null && givenText.startsWith("ESSAY_SCORE:")) {
-            int startIndex = givenText.indexOf("|||");
-            if (startIndex > 0 && startIndex + 3 < givenText.length()) {
-                return givenText.substring(startIndex + 3);
+    public static String stripLegacyEssayScore(String givenText) {
+        if (isLegacyEssayText(givenText)) {
+            int startIndex = givenText.indexOf(LEGACY_ESSAY_SEPARATOR);
+            if (startIndex > 0) {
+                return givenText.substring(startIndex + LEGACY_ESSAY_SEPARATOR.length());
             }
         }
         return givenText;
     }
-
-    // Helper method to set essay score (stores in givenText with special format)
-    public void setEssayScore(Double score, String essayText) {
-        if (score != null) {
-            this.givenText = "ESSAY_SCORE:" + score + "|||" + (essayText != null ? essayText : "");
-            this.correct = true; // Mark as graded
-        }
-    }
-}
\ No newline at end of file
+}
@@ -7,11 +7,21 @@ import java.util.List;
 
 // Attempt Entity
 @Entity
-@Table(name = "attempt")
+@Table(name = "attempt", uniqueConstraints = {
+        // One attempt per student and quiz, enforced by the database so concurrent submits cannot both win
+        @UniqueConstraint(name = "uk_attempt_quiz_student", columnNames = {"quiz_id", "student_id"})
+}, indexes = {
+        // Results table pages in submission order and in score order
+        @Index(name = "idx_attempt_quiz_submitted", columnList = "quiz_id, submitted_at, id"),
+        @Index(name = "idx_attempt_quiz_score", columnList = "quiz_id, score, id")
+})
 public class Attempt {
 
+    // Pooled table ids (instead of IDENTITY) so Hibernate can batch inserts
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "attempt_id")
+    @TableGenerator(name = "attempt_id", table = "id_generator", pkColumnName = "sequence_name",
+            valueColumnName = "next_val", pkColumnValue = "attempt", allocationSize = 50)
     private Long id;
 
     @ManyToOne
@@ -22,6 +32,8 @@ public class Attempt {
     @JoinColumn(name = "student_id", nullable = false)
     private User student;
 
+    // Set when the attempt is inserted, so score order needs no null handling
+    @Column(name = "score", nullable = false)
     private Double score;
 
     @Column(name = "submitted_at")
@@ -1,13 +1,19 @@
 package com.cerebro.finalproject.model;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "choice")
 @Table(name = "choice")
 public class Choice {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "choice_id")
+    @TableGenerator(name = "choice_id", table = "id_generator", pkColumnName = "sequence_name",
+            valueColumnName = "next_val", pkColumnValue = "choice", allocationSize = 50)
     private Long id;
 
     @ManyToOne
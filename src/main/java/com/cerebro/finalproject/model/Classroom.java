@@ -9,7 +9,9 @@ import java.util.Set;
 public class Classroom {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "classroom_id")
+    @TableGenerator(name = "classroom_id", table = "id_generator", pkColumnName = "sequence_name",
+            valueColumnName = "next_val", pkColumnValue = "classroom", allocationSize = 50)
     private Long id;
 
     @Column(name = "name", length = 150, nullable = false)
@@ -21,13 +23,7 @@ public class Classroom {
     @Column(name = "banner_path")
     private String bannerPath;
 
-    // NEW: Store banner image in database
-    @Lob
-    @Column(name = "banner_image", columnDefinition = "LONGBLOB")
-    private byte[] bannerImage;
-
-    @Column(name = "banner_content_type", length = 50)
-    private String bannerContentType;
+    // The uploaded banner image is a separate ClassroomBanner row (classroom_banner)
 
     @ManyToOne
     @JoinColumn(name = "teacher_id")
@@ -86,23 +82,6 @@ public class Classroom {
         this.bannerPath = bannerPath;
     }
 
-    // NEW Getters and Setters
-    public byte[] getBannerImage() {
-        return bannerImage;
-    }
-
-    public void setBannerImage(byte[] bannerImage) {
-        this.bannerImage = bannerImage;
-    }
-
-    public String getBannerContentType() {
-        return bannerContentType;
-    }
-
-    public void setBannerContentType(String bannerContentType) {
-        this.bannerContentType = bannerContentType;
-    }
-
     public User getTeacher() {
         return teacher;
     }
@@ -0,0 +1,53 @@
+package com.cerebro.finalproject.model;
+
+import jakarta.persistence.*;
+
+// ClassroomBanner Entity: the banner image of a classroom, kept apart so loading a classroom never reads it
+@Entity
+@Table(name = "classroom_banner")
+public class ClassroomBanner {
+
+    @Id
+    @Column(name = "classroom_id")
+    private Long classroomId;
+
+    @Lob
+    @Column(name = "image", columnDefinition = "LONGBLOB", nullable = false)
+    private byte[] image;
+
+    @Column(name = "content_type", length = 50)
+    private String contentType;
+
+    public ClassroomBanner() {
+    }
+
+    public ClassroomBanner(Long classroomId, byte[] image, String contentType) {
+        this.classroomId = classroomId;
+        this.image = image;
+        this.contentType = contentType;
+    }
+
+    public Long getClassroomId() {
+        return classroomId;
+    }
+
+    public void setClassroomId(Long classroomId) {
+        this.classroomId = classroomId;
+    }
+
+    public byte[] getImage() {
+        return image;
+    }
+
+    public void setImage(byte[] image) {
+        this.image = image;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public void setContentType(String contentType) {
+        this.contentType = contentType;
+    }
+}
@@ -1,15 +1,21 @@
 package com.cerebro.finalproject.model;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "question")
 @Table(name = "question")
 public class Question {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "question_id")
+    @TableGenerator(name = "question_id", table = "id_generator", pkColumnName = "sequence_name",
+            valueColumnName = "next_val", pkColumnValue = "question", allocationSize = 50)
     private Long id;
 
     @ManyToOne
@@ -32,12 +38,18 @@ public class Question {
     @Column(name = "points")
     private Double points = 1.0;  // NEW: Individual question points
 
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "question_choices")
     @OneToMany(mappedBy = "question", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<Choice> choices = new ArrayList<>();
 
     @OneToMany(mappedBy = "question", cascade = CascadeType.ALL)
     private List<Answer> answers = new ArrayList<>();
 
+    // Test cases CODING submissions are run against
+    @OneToMany(mappedBy = "question", cascade = CascadeType.ALL, orphanRemoval = true)
+    @OrderBy("tcIndex ASC")
+    private List<TestCase> testCases = new ArrayList<>();
+
     public enum QuestionType {
         MCQ,    // Multiple Choice
         TF,     // True/False
@@ -127,4 +139,12 @@ public class Question {
     public void setAnswers(List<Answer> answers) {
         this.answers = answers;
     }
-}
\ No newline at end of file
+
+    public List<TestCase> getTestCases() {
+        return testCases;
+    }
+
+    public void setTestCases(List<TestCase> testCases) {
+        this.testCases = testCases;
+    }
+}
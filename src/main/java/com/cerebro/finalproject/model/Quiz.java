@@ -1,17 +1,23 @@
 package com.cerebro.finalproject.model;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
 // Quiz Entity
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "quiz")
 @Table(name = "quiz")
 public class Quiz {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "quiz_id")
+    @TableGenerator(name = "quiz_id", table = "id_generator", pkColumnName = "sequence_name",
+            valueColumnName = "next_val", pkColumnValue = "quiz", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
@@ -23,11 +29,12 @@ public class Quiz {
     @Column(nullable = false)
     private Boolean published = true;
 
-    @ManyToOne
+    // Lazy, so a quiz read from the second-level cache does not load its class and teacher
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "class_room_id")
     private Classroom classRoom;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "teacher_id")
     private User teacher;
 
@@ -37,6 +44,7 @@ public class Quiz {
     @Column(name = "created_at")
     private LocalDateTime createdAt = LocalDateTime.now();
 
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "quiz_questions")
     @OneToMany(mappedBy = "quiz", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<Question> questions = new ArrayList<>();
 
@@ -0,0 +1,61 @@
+package com.cerebro.finalproject.model;
+
+import jakarta.persistence.*;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+// QuizScoreBin Entity: attempts of a quiz in one ScoreHistogram bin, one row per bin so a submit counts itself in with one update
+@Entity
+@Table(name = "quiz_score_bin")
+@IdClass(QuizScoreBin.Key.class)
+public class QuizScoreBin {
+
+    @Id
+    @Column(name = "quiz_id")
+    private Long quizId;
+
+    @Id
+    @Column(name = "bin_index")
+    private int bin;
+
+    @Column(name = "bin_count", nullable = false)
+    private long count;
+
+    public QuizScoreBin() {
+    }
+
+    // Getters and Setters
+    public Long getQuizId() { return quizId; }
+    public void setQuizId(Long quizId) { this.quizId = quizId; }
+
+    public int getBin() { return bin; }
+    public void setBin(int bin) { this.bin = bin; }
+
+    public long getCount() { return count; }
+    public void setCount(long count) { this.count = count; }
+
+    public static class Key implements Serializable {
+
+        private Long quizId;
+        private int bin;
+
+        public Key() {
+        }
+
+        public Key(Long quizId, int bin) {
+            this.quizId = quizId;
+            this.bin = bin;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key other && bin == other.bin && Objects.equals(quizId, other.quizId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(quizId, bin);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.cerebro.finalproject.model;
+
+import jakarta.persistence.*;
+
+// QuizStats Entity: running score statistics of a quiz, kept up to date as attempts are stored and graded
+@Entity
+@Table(name = "quiz_stats")
+public class QuizStats {
+
+    @Id
+    @Column(name = "quiz_id")
+    private Long quizId;
+
+    // Attempts that have a score
+    @Column(name = "attempt_count", nullable = false)
+    private long attemptCount;
+
+    @Column(name = "score_sum", nullable = false)
+    private double scoreSum;
+
+    @Column(name = "score_sum_squares", nullable = false)
+    private double scoreSumSquares;
+
+    @Column(name = "min_score")
+    private Double minScore;
+
+    @Column(name = "max_score")
+    private Double maxScore;
+
+    // Total points the grade bands were counted against; bands are rebuilt when it changes
+    @Column(name = "total_points", nullable = false)
+    private double totalPoints;
+
+    @Column(name = "excellent_count", nullable = false)
+    private long excellentCount;
+
+    @Column(name = "good_count", nullable = false)
+    private long goodCount;
+
+    @Column(name = "average_count", nullable = false)
+    private long averageCount;
+
+    @Column(name = "poor_count", nullable = false)
+    private long poorCount;
+
+    // Whether the quiz's quiz_score_bin rows have been counted; null for rows from before they existed, until rebuilt
+    @Column(name = "bins_counted")
+    private Boolean binsCounted;
+
+    public QuizStats() {
+    }
+
+    public QuizStats(Long quizId) {
+        this.quizId = quizId;
+    }
+
+    // Getters and Setters
+    public Long getQuizId() { return quizId; }
+    public void setQuizId(Long quizId) { this.quizId = quizId; }
+
+    public long getAttemptCount() { return attemptCount; }
+    public void setAttemptCount(long attemptCount) { this.attemptCount = attemptCount; }
+
+    public double getScoreSum() { return scoreSum; }
+    public void setScoreSum(double scoreSum) { this.scoreSum = scoreSum; }
+
+    public double getScoreSumSquares() { return scoreSumSquares; }
+    public void setScoreSumSquares(double scoreSumSquares) { this.scoreSumSquares = scoreSumSquares; }
+
+    public Double getMinScore() { return minScore; }
+    public void setMinScore(Double minScore) { this.minScore = minScore; }
+
+    public Double getMaxScore() { return maxScore; }
+    public void setMaxScore(Double maxScore) { this.maxScore = maxScore; }
+
+    public double getTotalPoints() { return totalPoints; }
+    public void setTotalPoints(double totalPoints) { this.totalPoints = totalPoints; }
+
+    public long getExcellentCount() { return excellentCount; }
+    public void setExcellentCount(long excellentCount) { this.excellentCount = excellentCount; }
+
+    public long getGoodCount() { return goodCount; }
+    public void setGoodCount(long goodCount) { this.goodCount = goodCount; }
+
+    public long getAverageCount() { return averageCount; }
+    public void setAverageCount(long averageCount) { this.averageCount = averageCount; }
+
+    public long getPoorCount() { return poorCount; }
+    public void setPoorCount(long poorCount) { this.poorCount = poorCount; }
+
+    public boolean isBinsCounted() { return Boolean.TRUE.equals(binsCounted); }
+    public void setBinsCounted(boolean binsCounted) { this.binsCounted = binsCounted; }
+}
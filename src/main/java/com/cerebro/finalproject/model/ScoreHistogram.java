@@ -0,0 +1,90 @@
+package com.cerebro.finalproject.model;
+
+import java.util.Arrays;
+
+/**
+ * Fixed-size histogram of attempt scores as a share of the quiz's total points, in BINS equal
+ * bins from 0% to 100%.
+ *
+ * Unlike a sorting- or centroid-based quantile sketch it supports removing a score (regrades and
+ * essay grading move scores around), two histograms of the same width merge by adding their bins,
+ * and its size does not depend on the number of attempts. Quantiles are exact to within one bin,
+ * i.e. a thousandth of the total points. Scores outside 0..total points count in the end bins.
+ */
+public class ScoreHistogram {
+
+    public static final int BINS = 1000;
+
+    private final long[] counts;
+    private long count;
+
+    public ScoreHistogram() {
+        this.counts = new long[BINS];
+    }
+
+    // The bin of a score; must match the FLOOR(...) of the rebuild query
+    public static int binOf(double score, double totalPoints) {
+        double bin = Math.floor(score / totalPoints * BINS);
+        return (int) Math.max(0, Math.min(BINS - 1, bin));
+    }
+
+    public void add(int bin, long delta) {
+        int clamped = Math.max(0, Math.min(BINS - 1, bin));
+        long updated = Math.max(0, counts[clamped] + delta);
+        count += updated - counts[clamped];
+        counts[clamped] = updated;
+    }
+
+    public void merge(ScoreHistogram other) {
+        for (int i = 0; i < BINS; i++) {
+            add(i, other.counts[i]);
+        }
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getBin(int bin) {
+        return counts[bin];
+    }
+
+    /**
+     * The q-quantile (0..1) as a share of the total points (0..1), or null if empty. Takes the
+     * (n - 1) * q-th smallest score and places it evenly within its bin.
+     */
+    public Double quantile(double q) {
+        if (count == 0) {
+            return null;
+        }
+        long rank = (long) Math.floor((count - 1) * Math.max(0.0, Math.min(1.0, q)));
+        long before = 0;
+        for (int i = 0; i < BINS; i++) {
+            if (rank < before + counts[i]) {
+                return (i + (rank - before + 0.5) / counts[i]) / BINS;
+            }
+            before += counts[i];
+        }
+        return 1.0;
+    }
+
+    // Counts in bucketCount equal, coarser buckets; bucketCount must divide BINS
+    public long[] buckets(int bucketCount) {
+        long[] buckets = new long[bucketCount];
+        int width = BINS / bucketCount;
+        for (int i = 0; i < BINS; i++) {
+            buckets[i / width] += counts[i];
+        }
+        return buckets;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof ScoreHistogram other && Arrays.equals(counts, other.counts);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(counts);
+    }
+}
@@ -0,0 +1,82 @@
+package com.cerebro.finalproject.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+// Submission Entity: raw answers received by the asynchronous intake, graded later into an Attempt
+@Entity
+@Table(name = "submission", indexes = {
+        @Index(name = "idx_submission_status", columnList = "status, received_at"),
+        @Index(name = "idx_submission_quiz_student", columnList = "quiz_id, student_id")
+})
+public class Submission {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "submission_id")
+    @TableGenerator(name = "submission_id", table = "id_generator", pkColumnName = "sequence_name",
+            valueColumnName = "next_val", pkColumnValue = "submission", allocationSize = 50)
+    private Long id;
+
+    @ManyToOne
+    @JoinColumn(name = "quiz_id", nullable = false)
+    private Quiz quiz;
+
+    @ManyToOne
+    @JoinColumn(name = "student_id", nullable = false)
+    private User student;
+
+    // Answer map as submitted ("q_{questionId}" -> value), stored as JSON
+    @Column(name = "answers", columnDefinition = "TEXT", nullable = false)
+    private String answers;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Status status = Status.PENDING;
+
+    @Column(name = "received_at", nullable = false)
+    private LocalDateTime receivedAt = LocalDateTime.now();
+
+    @Column(name = "graded_at")
+    private LocalDateTime gradedAt;
+
+    @Column(name = "attempt_id")
+    private Long attemptId;
+
+    @Column(name = "error", length = 500)
+    private String error;
+
+    public enum Status {
+        PENDING,   // Waiting for a grading worker
+        GRADED,    // Attempt created
+        DUPLICATE, // Student already had an attempt for this quiz
+        FAILED     // Grading threw an error
+    }
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public Quiz getQuiz() { return quiz; }
+    public void setQuiz(Quiz quiz) { this.quiz = quiz; }
+
+    public User getStudent() { return student; }
+    public void setStudent(User student) { this.student = student; }
+
+    public String getAnswers() { return answers; }
+    public void setAnswers(String answers) { this.answers = answers; }
+
+    public Status getStatus() { return status; }
+    public void setStatus(Status status) { this.status = status; }
+
+    public LocalDateTime getReceivedAt() { return receivedAt; }
+    public void setReceivedAt(LocalDateTime receivedAt) { this.receivedAt = receivedAt; }
+
+    public LocalDateTime getGradedAt() { return gradedAt; }
+    public void setGradedAt(LocalDateTime gradedAt) { this.gradedAt = gradedAt; }
+
+    public Long getAttemptId() { return attemptId; }
+    public void setAttemptId(Long attemptId) { this.attemptId = attemptId; }
+
+    public String getError() { return error; }
+    public void setError(String error) { this.error = error; }
+}
@@ -0,0 +1,54 @@
+package com.cerebro.finalproject.model;
+
+import jakarta.persistence.*;
+
+// TestCase Entity: stdin/expected stdout pair a CODING question's submissions are run against
+@Entity
+@Table(name = "test_case")
+public class TestCase {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "test_case_id")
+    @TableGenerator(name = "test_case_id", table = "id_generator", pkColumnName = "sequence_name",
+            valueColumnName = "next_val", pkColumnValue = "test_case", allocationSize = 50)
+    private Long id;
+
+    @ManyToOne
+    @JoinColumn(name = "question_id", nullable = false)
+    private Question question;
+
+    @Column(name = "input", columnDefinition = "TEXT")
+    private String input;
+
+    @Column(name = "expected_output", columnDefinition = "TEXT", nullable = false)
+    private String expectedOutput;
+
+    @Column(name = "tc_index")
+    private Integer tcIndex;
+
+    // Constructors
+    public TestCase() {}
+
+    public TestCase(Question question, String input, String expectedOutput, Integer tcIndex) {
+        this.question = question;
+        this.input = input;
+        this.expectedOutput = expectedOutput;
+        this.tcIndex = tcIndex;
+    }
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public Question getQuestion() { return question; }
+    public void setQuestion(Question question) { this.question = question; }
+
+    public String getInput() { return input; }
+    public void setInput(String input) { this.input = input; }
+
+    public String getExpectedOutput() { return expectedOutput; }
+    public void setExpectedOutput(String expectedOutput) { this.expectedOutput = expectedOutput; }
+
+    public Integer getTcIndex() { return tcIndex; }
+    public void setTcIndex(Integer tcIndex) { this.tcIndex = tcIndex; }
+}
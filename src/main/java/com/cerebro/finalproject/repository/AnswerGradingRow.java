@@ -0,0 +1,31 @@
+package com.cerebro.finalproject.repository;
+
+/**
+ * The columns of an answer needed to grade it again, read without loading the entity.
+ */
+public class AnswerGradingRow {
+
+    private final Long id;
+    private final Long attemptId;
+    private final Long choiceId;
+    private final String givenText;
+    private final boolean correct;
+
+    public AnswerGradingRow(Long id, Long attemptId, Long choiceId, String givenText, Boolean correct) {
+        this.id = id;
+        this.attemptId = attemptId;
+        this.choiceId = choiceId;
+        this.givenText = givenText;
+        this.correct = Boolean.TRUE.equals(correct);
+    }
+
+    public Long getId() { return id; }
+
+    public Long getAttemptId() { return attemptId; }
+
+    public Long getChoiceId() { return choiceId; }
+
+    public String getGivenText() { return givenText; }
+
+    public boolean isCorrect() { return correct; }
+}
@@ -0,0 +1,56 @@
+package com.cerebro.finalproject.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * One answer of an attempt with the attempt's student and score, for the answer matrix export.
+ * The answer columns are null for an attempt without answers.
+ */
+public class AnswerMatrixRow {
+
+    private final Long attemptId;
+    private final String studentName;
+    private final String studentEmail;
+    private final Double score;
+    private final LocalDateTime submittedAt;
+    private final Long questionId;
+    private final String choiceText;
+    private final String givenText;
+    private final boolean correct;
+    private final Double essayScore;
+
+    public AnswerMatrixRow(Long attemptId, String studentName, String studentEmail, Double score,
+                           LocalDateTime submittedAt, Long questionId, String choiceText, String givenText,
+                           Boolean correct, Double essayScore) {
+        this.attemptId = attemptId;
+        this.studentName = studentName;
+        this.studentEmail = studentEmail;
+        this.score = score;
+        this.submittedAt = submittedAt;
+        this.questionId = questionId;
+        this.choiceText = choiceText;
+        this.givenText = givenText;
+        this.correct = Boolean.TRUE.equals(correct);
+        this.essayScore = essayScore;
+    }
+
+    public Long getAttemptId() { return attemptId; }
+
+    public String getStudentName() { return studentName; }
+
+    public String getStudentEmail() { return studentEmail; }
+
+    public Double getScore() { return score; }
+
+    public LocalDateTime getSubmittedAt() { return submittedAt; }
+
+    public Long getQuestionId() { return questionId; }
+
+    public String getChoiceText() { return choiceText; }
+
+    public String getGivenText() { return givenText; }
+
+    public boolean isCorrect() { return correct; }
+
+    public Double getEssayScore() { return essayScore; }
+}
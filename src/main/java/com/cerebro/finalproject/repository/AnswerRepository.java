@@ -1,9 +1,16 @@
 package com.cerebro.finalproject.repository;
 
 import com.cerebro.finalproject.model.Answer;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -11,7 +18,46 @@ public interface AnswerRepository extends JpaRepository<Answer, Long> {
 
     List<Answer> findByAttemptId(Long attemptId);
 
+    // An attempt's answers with their questions and chosen choices, for the review page
+    @Query("SELECT a FROM Answer a JOIN FETCH a.question LEFT JOIN FETCH a.choice WHERE a.attempt.id = :attemptId ORDER BY a.id")
+    List<Answer> findByAttemptIdWithQuestions(@Param("attemptId") Long attemptId);
+
     List<Answer> findByQuestionId(Long questionId);
 
+    long countByQuestionId(Long questionId);
+
     void deleteByAttemptId(Long attemptId);
-}
\ No newline at end of file
+
+    // Next chunk of a question's answers after the given id (keyset pagination, no entity loading)
+    @Query("SELECT new com.cerebro.finalproject.repository.AnswerGradingRow(a.id, a.attempt.id, a.choice.id, a.givenText, a.correct) " +
+            "FROM Answer a WHERE a.question.id = :questionId AND a.id > :afterId ORDER BY a.id ASC")
+    List<AnswerGradingRow> findGradingRows(@Param("questionId") Long questionId,
+                                           @Param("afterId") Long afterId,
+                                           Pageable page);
+
+    @Modifying
+    @Query("UPDATE Answer a SET a.correct = :correct WHERE a.id IN :ids")
+    int updateCorrect(@Param("ids") Collection<Long> ids, @Param("correct") boolean correct);
+
+    // Row locks until commit, so a concurrent grading of the same answer waits and then reads the
+    // score stored here as its previous score; taken in id order so two batches cannot deadlock
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT new com.cerebro.finalproject.repository.EssayGradingRow(a.id, a.attempt.id, q.type, q.points, a.essayScore, a.correct, a.givenText) " +
+            "FROM Answer a JOIN a.question q WHERE a.id IN :ids ORDER BY a.id")
+    List<EssayGradingRow> findEssayGradingRowsForUpdate(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query("UPDATE Answer a SET a.essayScore = :score, a.correct = true WHERE a.id = :id")
+    int updateEssayScore(@Param("id") Long id, @Param("score") Double score);
+
+    // For answers the backfill has not reached yet: also drops the legacy score prefix from the text
+    @Modifying
+    @Query("UPDATE Answer a SET a.essayScore = :score, a.givenText = :givenText, a.correct = true WHERE a.id = :id")
+    int updateEssayScore(@Param("id") Long id, @Param("score") Double score, @Param("givenText") String givenText);
+
+    // Essay answers of a quiz with their attempt, student and question, for grading in one page
+    @Query("SELECT a FROM Answer a JOIN FETCH a.attempt t JOIN FETCH t.student JOIN FETCH a.question q " +
+            "WHERE q.quiz.id = :quizId AND q.type = com.cerebro.finalproject.model.Question.QuestionType.ESSAY " +
+            "ORDER BY q.qIndex ASC, t.submittedAt ASC")
+    List<Answer> findEssayAnswersByQuizId(@Param("quizId") Long quizId);
+}
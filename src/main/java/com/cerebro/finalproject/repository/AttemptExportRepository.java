@@ -0,0 +1,16 @@
+package com.cerebro.finalproject.repository;
+
+import java.util.stream.Stream;
+
+/**
+ * Export queries of {@link AttemptRepository}, streamed in batches of app.reports.fetch-size rows.
+ */
+public interface AttemptExportRepository {
+
+    // Exports: streamed from a cursor in batches of the fetch size, so they must be consumed inside a
+    // transaction and closed. Rows are projections, so the persistence context does not grow.
+    Stream<AttemptListRow> streamListRows(Long quizId);
+
+    // Every answer of the quiz's attempts, grouped by attempt; attempts without answers give one row
+    Stream<AnswerMatrixRow> streamAnswerMatrixRows(Long quizId);
+}
@@ -0,0 +1,41 @@
+package com.cerebro.finalproject.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.beans.factory.annotation.Value;
+
+import java.util.stream.Stream;
+
+// Sets the fetch size per query, which @QueryHints could only take as a constant
+class AttemptExportRepositoryImpl implements AttemptExportRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final int fetchSize;
+
+    AttemptExportRepositoryImpl(@Value("${app.reports.fetch-size:1000}") int fetchSize) {
+        this.fetchSize = fetchSize;
+    }
+
+    @Override
+    public Stream<AttemptListRow> streamListRows(Long quizId) {
+        return entityManager.createQuery(AttemptRepository.LIST_ROW + "ORDER BY t.submittedAt ASC, t.id ASC",
+                        AttemptListRow.class)
+                .setParameter("quizId", quizId)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                .getResultStream();
+    }
+
+    @Override
+    public Stream<AnswerMatrixRow> streamAnswerMatrixRows(Long quizId) {
+        return entityManager.createQuery("SELECT new com.cerebro.finalproject.repository.AnswerMatrixRow(t.id, s.name, " +
+                        "s.email, t.score, t.submittedAt, a.question.id, c.text, a.givenText, a.correct, a.essayScore) " +
+                        "FROM Attempt t JOIN t.student s LEFT JOIN t.answers a LEFT JOIN a.choice c " +
+                        "WHERE t.quiz.id = :quizId ORDER BY t.submittedAt ASC, t.id ASC, a.id ASC", AnswerMatrixRow.class)
+                .setParameter("quizId", quizId)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                .getResultStream();
+    }
+}
@@ -0,0 +1,34 @@
+package com.cerebro.finalproject.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * One line of a quiz's results table: the attempt with its student's name and email, read
+ * without loading the attempt or the student.
+ */
+public class AttemptListRow {
+
+    private final Long id;
+    private final String studentName;
+    private final String studentEmail;
+    private final Double score;
+    private final LocalDateTime submittedAt;
+
+    public AttemptListRow(Long id, String studentName, String studentEmail, Double score, LocalDateTime submittedAt) {
+        this.id = id;
+        this.studentName = studentName;
+        this.studentEmail = studentEmail;
+        this.score = score;
+        this.submittedAt = submittedAt;
+    }
+
+    public Long getId() { return id; }
+
+    public String getStudentName() { return studentName; }
+
+    public String getStudentEmail() { return studentEmail; }
+
+    public Double getScore() { return score; }
+
+    public LocalDateTime getSubmittedAt() { return submittedAt; }
+}
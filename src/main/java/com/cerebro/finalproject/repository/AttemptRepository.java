@@ -1,14 +1,23 @@
 package com.cerebro.finalproject.repository;
 
 import com.cerebro.finalproject.model.Attempt;
+import com.cerebro.finalproject.model.ScoreHistogram;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface AttemptRepository extends JpaRepository<Attempt, Long> {
+public interface AttemptRepository extends JpaRepository<Attempt, Long>, AttemptExportRepository {
 
     List<Attempt> findByQuizId(Long quizId);
 
@@ -19,4 +28,95 @@ public interface AttemptRepository extends JpaRepository<Attempt, Long> {
     Optional<Attempt> findFirstByQuizIdAndStudentIdOrderBySubmittedAtDesc(Long quizId, Long studentId);
 
     boolean existsByQuizIdAndStudentId(Long quizId, Long studentId);
-}
\ No newline at end of file
+
+    // Keyset-paginated results table rows: the first page in the given order, and the page after
+    // (after, afterId). Score and submission orders read idx_attempt_quiz_score and
+    // idx_attempt_quiz_submitted in index order; missing names sort as ''.
+    String LIST_ROW = "SELECT new com.cerebro.finalproject.repository.AttemptListRow(t.id, s.name, s.email, t.score, t.submittedAt) " +
+            "FROM Attempt t JOIN t.student s WHERE t.quiz.id = :quizId ";
+
+    @Query(LIST_ROW + "ORDER BY t.score ASC, t.id ASC")
+    List<AttemptListRow> findFirstListRowsByScoreAsc(@Param("quizId") Long quizId, Pageable page);
+
+    @Query(LIST_ROW + "AND (t.score > :after OR (t.score = :after AND t.id > :afterId)) " +
+            "ORDER BY t.score ASC, t.id ASC")
+    List<AttemptListRow> findListRowsByScoreAsc(@Param("quizId") Long quizId, @Param("after") Double after,
+                                                @Param("afterId") Long afterId, Pageable page);
+
+    @Query(LIST_ROW + "ORDER BY t.score DESC, t.id DESC")
+    List<AttemptListRow> findFirstListRowsByScoreDesc(@Param("quizId") Long quizId, Pageable page);
+
+    @Query(LIST_ROW + "AND (t.score < :after OR (t.score = :after AND t.id < :afterId)) " +
+            "ORDER BY t.score DESC, t.id DESC")
+    List<AttemptListRow> findListRowsByScoreDesc(@Param("quizId") Long quizId, @Param("after") Double after,
+                                                 @Param("afterId") Long afterId, Pageable page);
+
+    @Query(LIST_ROW + "ORDER BY t.submittedAt ASC, t.id ASC")
+    List<AttemptListRow> findFirstListRowsBySubmittedAtAsc(@Param("quizId") Long quizId, Pageable page);
+
+    @Query(LIST_ROW + "AND (t.submittedAt > :after OR (t.submittedAt = :after AND t.id > :afterId)) " +
+            "ORDER BY t.submittedAt ASC, t.id ASC")
+    List<AttemptListRow> findListRowsBySubmittedAtAsc(@Param("quizId") Long quizId, @Param("after") LocalDateTime after,
+                                                      @Param("afterId") Long afterId, Pageable page);
+
+    @Query(LIST_ROW + "ORDER BY t.submittedAt DESC, t.id DESC")
+    List<AttemptListRow> findFirstListRowsBySubmittedAtDesc(@Param("quizId") Long quizId, Pageable page);
+
+    @Query(LIST_ROW + "AND (t.submittedAt < :after OR (t.submittedAt = :after AND t.id < :afterId)) " +
+            "ORDER BY t.submittedAt DESC, t.id DESC")
+    List<AttemptListRow> findListRowsBySubmittedAtDesc(@Param("quizId") Long quizId, @Param("after") LocalDateTime after,
+                                                       @Param("afterId") Long afterId, Pageable page);
+
+    // Names are on the joined users table, so no attempt index can serve this order
+    @Query(LIST_ROW + "ORDER BY COALESCE(s.name, '') ASC, t.id ASC")
+    List<AttemptListRow> findFirstListRowsByStudentNameAsc(@Param("quizId") Long quizId, Pageable page);
+
+    @Query(LIST_ROW + "AND (COALESCE(s.name, '') > :after OR (COALESCE(s.name, '') = :after AND t.id > :afterId)) " +
+            "ORDER BY COALESCE(s.name, '') ASC, t.id ASC")
+    List<AttemptListRow> findListRowsByStudentNameAsc(@Param("quizId") Long quizId, @Param("after") String after,
+                                                      @Param("afterId") Long afterId, Pageable page);
+
+    @Query(LIST_ROW + "ORDER BY COALESCE(s.name, '') DESC, t.id DESC")
+    List<AttemptListRow> findFirstListRowsByStudentNameDesc(@Param("quizId") Long quizId, Pageable page);
+
+    @Query(LIST_ROW + "AND (COALESCE(s.name, '') < :after OR (COALESCE(s.name, '') = :after AND t.id < :afterId)) " +
+            "ORDER BY COALESCE(s.name, '') DESC, t.id DESC")
+    List<AttemptListRow> findListRowsByStudentNameDesc(@Param("quizId") Long quizId, @Param("after") String after,
+                                                       @Param("afterId") Long afterId, Pageable page);
+
+    // Count, sums, min, max and grade band counts of a quiz's scored attempts in a single query
+    @Query("SELECT new com.cerebro.finalproject.repository.QuizScoreSummary(COUNT(t.score), MAX(q.totalPoints), " +
+            "SUM(t.score), SUM(t.score * t.score), MIN(t.score), MAX(t.score), " +
+            "SUM(CASE WHEN q.totalPoints > 0 AND t.score / q.totalPoints * 100 >= 90 THEN 1 ELSE 0 END), " +
+            "SUM(CASE WHEN q.totalPoints > 0 AND t.score / q.totalPoints * 100 >= 80 " +
+            "AND t.score / q.totalPoints * 100 < 90 THEN 1 ELSE 0 END), " +
+            "SUM(CASE WHEN q.totalPoints > 0 AND t.score / q.totalPoints * 100 >= 70 " +
+            "AND t.score / q.totalPoints * 100 < 80 THEN 1 ELSE 0 END), " +
+            "SUM(CASE WHEN q.totalPoints > 0 AND t.score / q.totalPoints * 100 < 70 THEN 1 ELSE 0 END)) " +
+            "FROM Attempt t JOIN t.quiz q WHERE q.id = :quizId")
+    QuizScoreSummary summarizeScores(@Param("quizId") Long quizId);
+
+    // Scored attempts per histogram bin (score as a share of total points); out of range bins are
+    // clamped by the caller
+    @Query("SELECT new com.cerebro.finalproject.repository.ScoreBinCount(" +
+            "FLOOR(t.score / q.totalPoints * " + ScoreHistogram.BINS + "), COUNT(t)) " +
+            "FROM Attempt t JOIN t.quiz q WHERE q.id = :quizId AND t.score IS NOT NULL AND q.totalPoints > 0 " +
+            "GROUP BY FLOOR(t.score / q.totalPoints * " + ScoreHistogram.BINS + ")")
+    List<ScoreBinCount> countScoreBins(@Param("quizId") Long quizId);
+
+    // Scores before a change, locked until commit so a concurrent change to the same attempts
+    // waits and then reads the score stored here; taken in id order so two changes cannot deadlock
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT new com.cerebro.finalproject.repository.AttemptScoreRow(t.id, t.quiz.id, t.score) " +
+            "FROM Attempt t WHERE t.id IN :ids ORDER BY t.id")
+    List<AttemptScoreRow> findScoreRowsForUpdate(@Param("ids") Collection<Long> ids);
+
+    // Adjusts scores in place, so concurrent changes to other answers of the same attempts are kept
+    @Modifying
+    @Query("UPDATE Attempt t SET t.score = COALESCE(t.score, 0) + :delta WHERE t.id IN :ids")
+    int addToScore(@Param("ids") Collection<Long> ids, @Param("delta") double delta);
+
+    @Modifying
+    @Query("UPDATE Attempt t SET t.score = COALESCE(t.score, 0) + :delta WHERE t.id = :id")
+    int addToScore(@Param("id") Long id, @Param("delta") double delta);
+}
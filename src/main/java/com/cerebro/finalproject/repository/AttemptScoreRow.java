@@ -0,0 +1,23 @@
+package com.cerebro.finalproject.repository;
+
+/**
+ * An attempt's quiz and current score, read without loading the entity.
+ */
+public class AttemptScoreRow {
+
+    private final Long id;
+    private final Long quizId;
+    private final Double score;
+
+    public AttemptScoreRow(Long id, Long quizId, Double score) {
+        this.id = id;
+        this.quizId = quizId;
+        this.score = score;
+    }
+
+    public Long getId() { return id; }
+
+    public Long getQuizId() { return quizId; }
+
+    public Double getScore() { return score; }
+}
@@ -0,0 +1,9 @@
+package com.cerebro.finalproject.repository;
+
+import com.cerebro.finalproject.model.ClassroomBanner;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ClassroomBannerRepository extends JpaRepository<ClassroomBanner, Long> {
+}
@@ -1,8 +1,15 @@
 package com.cerebro.finalproject.repository;
 
 import com.cerebro.finalproject.model.Classroom;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
@@ -15,4 +22,17 @@ public interface ClassroomRepository extends JpaRepository<Classroom, Long> {
     List<Classroom> findByTeacherId(Long teacherId);
 
     boolean existsByCode(String code);
+
+    // Reads the join table's primary key (classroom_id, student_id) only, never the classroom or its students
+    @Query(value = "SELECT COUNT(*) FROM classroom_students WHERE classroom_id = :classroomId AND student_id = :studentId",
+            nativeQuery = true)
+    long countEnrollment(@Param("classroomId") Long classroomId, @Param("studentId") Long studentId);
+
+    // Declares the only table it writes, so Hibernate invalidates no cached entities
+    @Modifying
+    @Transactional
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "classroom_students"))
+    @Query(value = "INSERT INTO classroom_students (classroom_id, student_id) VALUES (:classroomId, :studentId)",
+            nativeQuery = true)
+    void insertEnrollment(@Param("classroomId") Long classroomId, @Param("studentId") Long studentId);
 }
\ No newline at end of file
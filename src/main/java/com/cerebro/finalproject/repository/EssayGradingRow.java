@@ -0,0 +1,42 @@
+package com.cerebro.finalproject.repository;
+
+import com.cerebro.finalproject.model.Question;
+
+/**
+ * The columns needed to grade an essay answer and adjust its attempt's score.
+ */
+public class EssayGradingRow {
+
+    private final Long answerId;
+    private final Long attemptId;
+    private final Question.QuestionType type;
+    private final Double points;
+    private final Double essayScore;
+    private final Boolean correct;
+    private final String givenText;
+
+    public EssayGradingRow(Long answerId, Long attemptId, Question.QuestionType type, Double points,
+                           Double essayScore, Boolean correct, String givenText) {
+        this.answerId = answerId;
+        this.attemptId = attemptId;
+        this.type = type;
+        this.points = points;
+        this.essayScore = essayScore;
+        this.correct = correct;
+        this.givenText = givenText;
+    }
+
+    public Long getAnswerId() { return answerId; }
+
+    public Long getAttemptId() { return attemptId; }
+
+    public Question.QuestionType getType() { return type; }
+
+    public Double getPoints() { return points; }
+
+    public Double getEssayScore() { return essayScore; }
+
+    public Boolean getCorrect() { return correct; }
+
+    public String getGivenText() { return givenText; }
+}
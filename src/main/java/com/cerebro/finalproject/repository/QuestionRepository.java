@@ -15,4 +15,8 @@ public interface QuestionRepository extends JpaRepository<Question, Long> {
     List<Question> findByQuizIdOrderByQIndexAsc(@Param("quizId") Long quizId);
 
     List<Question> findByQuizId(Long quizId);
+
+    // Fetch all questions of a quiz with their choices in a single query
+    @Query("SELECT DISTINCT q FROM Question q LEFT JOIN FETCH q.choices WHERE q.quiz.id = :quizId ORDER BY q.qIndex ASC")
+    List<Question> findByQuizIdWithChoices(@Param("quizId") Long quizId);
 }
\ No newline at end of file
@@ -1,12 +1,15 @@
 package com.cerebro.finalproject.repository;
 
 import com.cerebro.finalproject.model.Quiz;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -19,8 +22,22 @@ public interface QuizRepository extends JpaRepository<Quiz, Long> {
 
     List<Quiz> findByClassRoomIdAndPublished(Long classRoomId, Boolean published);
 
+    // A student has at most one attempt per quiz (uk_attempt_quiz_student), so the join adds no rows
+    @Query("SELECT new com.cerebro.finalproject.repository.StudentQuizRow(q.id, q.title, q.description, " +
+            "q.totalPoints, q.createdAt, (SELECT COUNT(qs) FROM Question qs WHERE qs.quiz = q), t.id, t.score) " +
+            "FROM Quiz q LEFT JOIN Attempt t ON t.quiz = q AND t.student.id = :studentId " +
+            "WHERE q.classRoom.id = :classRoomId ORDER BY q.id")
+    List<StudentQuizRow> findStudentQuizRows(@Param("classRoomId") Long classRoomId,
+                                             @Param("studentId") Long studentId);
+
+    @Query("SELECT q.totalPoints FROM Quiz q WHERE q.id = :quizId")
+    Double findTotalPoints(@Param("quizId") Long quizId);
+
+    // Declares the table it writes, so Hibernate only invalidates the cached quizzes (all of them;
+    // QuizService also evicts this one after commit) instead of the whole second-level cache
     @Modifying
     @Transactional
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "quiz"))
     @Query(value = "UPDATE quiz q SET q.total_points = " +
             "(SELECT COALESCE(SUM(points), 0) FROM question WHERE quiz_id = q.id) " +
             "WHERE q.id = :quizId", nativeQuery = true)
@@ -0,0 +1,33 @@
+package com.cerebro.finalproject.repository;
+
+import com.cerebro.finalproject.model.QuizScoreBin;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface QuizScoreBinRepository extends JpaRepository<QuizScoreBin, QuizScoreBin.Key> {
+
+    // Creates the bin's row or adjusts it in place, without reading it first; declares the only
+    // table it writes, so Hibernate invalidates no cached entities
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "quiz_score_bin"))
+    @Query(value = "INSERT INTO quiz_score_bin (quiz_id, bin_index, bin_count) VALUES (:quizId, :bin, :delta) " +
+            "ON DUPLICATE KEY UPDATE bin_count = bin_count + :delta", nativeQuery = true)
+    int addToBin(@Param("quizId") Long quizId, @Param("bin") int bin, @Param("delta") long delta);
+
+    @Query("SELECT new com.cerebro.finalproject.repository.ScoreBinCount(b.bin, b.count) " +
+            "FROM QuizScoreBin b WHERE b.quizId = :quizId AND b.count > 0")
+    List<ScoreBinCount> findBins(@Param("quizId") Long quizId);
+
+    @Modifying
+    @Query("DELETE FROM QuizScoreBin b WHERE b.quizId = :quizId")
+    int deleteByQuizId(@Param("quizId") Long quizId);
+}
@@ -0,0 +1,74 @@
+package com.cerebro.finalproject.repository;
+
+/**
+ * Score statistics of all scored attempts of a quiz, read from quiz_stats or computed by one
+ * aggregate query. Grade bands follow the results page: 90%+ excellent, 80%+ good, 70%+ average,
+ * the rest poor.
+ */
+public class QuizScoreSummary {
+
+    private final long count;
+    private final double totalPoints;
+    private final double scoreSum;
+    private final double scoreSumSquares;
+    private final Double minScore;
+    private final Double maxScore;
+    private final long excellentCount;
+    private final long goodCount;
+    private final long averageCount;
+    private final long poorCount;
+
+    public QuizScoreSummary(Long count, Double totalPoints, Double scoreSum, Double scoreSumSquares,
+                            Double minScore, Double maxScore,
+                            Long excellentCount, Long goodCount, Long averageCount, Long poorCount) {
+        this.count = count != null ? count : 0L;
+        this.totalPoints = totalPoints != null ? totalPoints : 0.0;
+        this.scoreSum = scoreSum != null ? scoreSum : 0.0;
+        this.scoreSumSquares = scoreSumSquares != null ? scoreSumSquares : 0.0;
+        this.minScore = minScore;
+        this.maxScore = maxScore;
+        this.excellentCount = excellentCount != null ? excellentCount : 0L;
+        this.goodCount = goodCount != null ? goodCount : 0L;
+        this.averageCount = averageCount != null ? averageCount : 0L;
+        this.poorCount = poorCount != null ? poorCount : 0L;
+    }
+
+    public long getCount() { return count; }
+
+    public double getTotalPoints() { return totalPoints; }
+
+    public double getScoreSum() { return scoreSum; }
+
+    public double getScoreSumSquares() { return scoreSumSquares; }
+
+    public Double getAverageScore() { return count > 0 ? scoreSum / count : null; }
+
+    // Population standard deviation of the scores
+    public Double getStandardDeviation() {
+        if (count == 0) {
+            return null;
+        }
+        double mean = scoreSum / count;
+        return Math.sqrt(Math.max(0.0, scoreSumSquares / count - mean * mean));
+    }
+
+    public Double getMinScore() { return minScore; }
+
+    public Double getMaxScore() { return maxScore; }
+
+    public long getExcellentCount() { return excellentCount; }
+
+    public long getGoodCount() { return goodCount; }
+
+    public long getAverageCount() { return averageCount; }
+
+    public long getPoorCount() { return poorCount; }
+
+    // Average score as a percentage of the quiz's total points, 0 when there is nothing to average
+    public double getAveragePercentage() {
+        if (count == 0 || totalPoints <= 0) {
+            return 0.0;
+        }
+        return (scoreSum / count / totalPoints) * 100;
+    }
+}
@@ -0,0 +1,72 @@
+package com.cerebro.finalproject.repository;
+
+import com.cerebro.finalproject.model.QuizStats;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface QuizStatsRepository extends JpaRepository<QuizStats, Long> {
+
+    // Row lock for rebuilds; submits and grading adjust the row in place with the updates below
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM QuizStats s WHERE s.quizId = :quizId")
+    Optional<QuizStats> findByIdForUpdate(@Param("quizId") Long quizId);
+
+    /**
+     * Adds counted deltas to the row in one statement, so concurrent submits never wait on a read
+     * of it. The bands were counted against totalPoints; if the row has other total points the
+     * update matches nothing and the row has to be rebuilt.
+     */
+    @Modifying
+    @Query("UPDATE QuizStats s SET s.attemptCount = s.attemptCount + :count, " +
+            "s.scoreSum = s.scoreSum + :sum, s.scoreSumSquares = s.scoreSumSquares + :sumSquares, " +
+            "s.minScore = CASE WHEN s.minScore IS NULL OR s.minScore > :addedMin THEN :addedMin ELSE s.minScore END, " +
+            "s.maxScore = CASE WHEN s.maxScore IS NULL OR s.maxScore < :addedMax THEN :addedMax ELSE s.maxScore END, " +
+            "s.excellentCount = s.excellentCount + :excellent, s.goodCount = s.goodCount + :good, " +
+            "s.averageCount = s.averageCount + :average, s.poorCount = s.poorCount + :poor " +
+            "WHERE s.quizId = :quizId AND s.totalPoints = :totalPoints")
+    int addCounts(@Param("quizId") Long quizId, @Param("totalPoints") double totalPoints,
+                  @Param("count") long count, @Param("sum") double sum, @Param("sumSquares") double sumSquares,
+                  @Param("addedMin") Double addedMin, @Param("addedMax") Double addedMax,
+                  @Param("excellent") long excellent, @Param("good") long good,
+                  @Param("average") long average, @Param("poor") long poor);
+
+    // Recomputes the minimum and maximum from the attempts, only if a removed score was one of them
+    @Modifying
+    @Query("UPDATE QuizStats s SET " +
+            "s.minScore = (SELECT MIN(t.score) FROM Attempt t WHERE t.quiz.id = :quizId), " +
+            "s.maxScore = (SELECT MAX(t.score) FROM Attempt t WHERE t.quiz.id = :quizId) " +
+            "WHERE s.quizId = :quizId AND (s.minScore >= :removedMin OR s.maxScore <= :removedMax)")
+    int refreshExtremes(@Param("quizId") Long quizId, @Param("removedMin") double removedMin,
+                        @Param("removedMax") double removedMax);
+
+    // Total points the row's grade bands and bins were counted against
+    @Query("SELECT s.totalPoints FROM QuizStats s WHERE s.quizId = :quizId")
+    Optional<Double> findTotalPoints(@Param("quizId") Long quizId);
+
+    @Query("SELECT new com.cerebro.finalproject.repository.QuizScoreSummary(s.attemptCount, s.totalPoints, " +
+            "s.scoreSum, s.scoreSumSquares, s.minScore, s.maxScore, " +
+            "s.excellentCount, s.goodCount, s.averageCount, s.poorCount) " +
+            "FROM QuizStats s WHERE s.quizId = :quizId")
+    Optional<QuizScoreSummary> findSummary(@Param("quizId") Long quizId);
+
+    @Query("SELECT q.id FROM Quiz q")
+    List<Long> findAllQuizIds();
+
+    // Quizzes without a stats row, or with one from before score bins were kept
+    @Query("SELECT q.id FROM Quiz q WHERE NOT EXISTS (SELECT s.quizId FROM QuizStats s " +
+            "WHERE s.quizId = q.id AND s.binsCounted = TRUE)")
+    List<Long> findQuizIdsWithoutStats();
+
+    @Modifying
+    @Query("DELETE FROM QuizStats s WHERE s.quizId = :quizId")
+    int deleteByQuizId(@Param("quizId") Long quizId);
+}
@@ -0,0 +1,19 @@
+package com.cerebro.finalproject.repository;
+
+/**
+ * Number of a quiz's attempts whose score falls in one ScoreHistogram bin.
+ */
+public class ScoreBinCount {
+
+    private final int bin;
+    private final long count;
+
+    public ScoreBinCount(Number bin, Number count) {
+        this.bin = bin.intValue();
+        this.count = count.longValue();
+    }
+
+    public int getBin() { return bin; }
+
+    public long getCount() { return count; }
+}
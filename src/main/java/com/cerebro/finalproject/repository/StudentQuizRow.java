@@ -0,0 +1,54 @@
+package com.cerebro.finalproject.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * One quiz card of a student's class page: the quiz, its question count and the student's
+ * attempt at it, if any, read without loading the quiz, its questions or the attempt.
+ */
+public class StudentQuizRow {
+
+    private final Long quizId;
+    private final String title;
+    private final String description;
+    private final Double totalPoints;
+    private final LocalDateTime createdAt;
+    private final long questionCount;
+    private final Long attemptId;
+    private final Double score;
+
+    public StudentQuizRow(Long quizId, String title, String description, Double totalPoints, LocalDateTime createdAt,
+                          Number questionCount, Long attemptId, Double score) {
+        this.quizId = quizId;
+        this.title = title;
+        this.description = description;
+        this.totalPoints = totalPoints;
+        this.createdAt = createdAt;
+        this.questionCount = questionCount != null ? questionCount.longValue() : 0L;
+        this.attemptId = attemptId;
+        this.score = score;
+    }
+
+    public Long getQuizId() { return quizId; }
+
+    public String getTitle() { return title; }
+
+    public String getDescription() { return description; }
+
+    public Double getTotalPoints() { return totalPoints; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+
+    public long getQuestionCount() { return questionCount; }
+
+    public Long getAttemptId() { return attemptId; }
+
+    public boolean isAttempted() { return attemptId != null; }
+
+    // The student's score; a missing score (not graded yet) reads as 0
+    public double getScore() { return score != null ? score : 0.0; }
+
+    public double getPercentage() {
+        return totalPoints != null && totalPoints > 0 ? getScore() / totalPoints * 100 : 0.0;
+    }
+}
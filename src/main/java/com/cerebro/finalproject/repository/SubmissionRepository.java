@@ -0,0 +1,31 @@
+package com.cerebro.finalproject.repository;
+
+import com.cerebro.finalproject.model.Submission;
+import org.springframework.data.domain.Pageable;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface SubmissionRepository extends JpaRepository<Submission, Long> {
+
+    boolean existsByQuizIdAndStudentIdAndStatus(Long quizId, Long studentId, Submission.Status status);
+
+    // Row lock so a submission is graded by one worker only
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM Submission s WHERE s.id = :id")
+    Optional<Submission> findByIdForUpdate(@Param("id") Long id);
+
+    // Ids of pending submissions received before the given time, oldest first
+    @Query("SELECT s.id FROM Submission s WHERE s.status = :status AND s.receivedAt < :before ORDER BY s.receivedAt ASC")
+    List<Long> findIdsByStatusReceivedBefore(@Param("status") Submission.Status status,
+                                             @Param("before") LocalDateTime before,
+                                             Pageable pageable);
+}
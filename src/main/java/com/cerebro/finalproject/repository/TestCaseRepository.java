@@ -0,0 +1,19 @@
+package com.cerebro.finalproject.repository;
+
+import com.cerebro.finalproject.model.TestCase;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface TestCaseRepository extends JpaRepository<TestCase, Long> {
+
+    List<TestCase> findByQuestionIdOrderByTcIndexAsc(Long questionId);
+
+    // All test cases of a quiz in one query, grouped by question
+    @Query("SELECT t FROM TestCase t WHERE t.question.quiz.id = :quizId ORDER BY t.question.id ASC, t.tcIndex ASC")
+    List<TestCase> findByQuizId(@Param("quizId") Long quizId);
+}
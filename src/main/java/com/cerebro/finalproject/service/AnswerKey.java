@@ -0,0 +1,117 @@
+package com.cerebro.finalproject.service;
+
+import com.cerebro.finalproject.model.Question;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Immutable, pre-normalized answer key of a quiz.
+ * Built once per quiz by {@link AnswerKeyService} and shared by every submission,
+ * so grading never has to go back to the database for questions or choices.
+ */
+public final class AnswerKey {
+
+    private final Long quizId;
+    private final List<Entry> entries;
+
+    AnswerKey(Long quizId, List<Entry> entries) {
+        this.quizId = quizId;
+        this.entries = Collections.unmodifiableList(entries);
+    }
+
+    public Long getQuizId() {
+        return quizId;
+    }
+
+    public List<Entry> getEntries() {
+        return entries;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    // Entry of the given question, or null if the question is not part of this quiz
+    public Entry findEntry(Long questionId) {
+        for (Entry entry : entries) {
+            if (entry.getQuestionId().equals(questionId)) {
+                return entry;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Answer key of a single question.
+     */
+    public static final class Entry {
+
+        private final Long questionId;
+        private final Question.QuestionType type;
+        private final double points;
+        private final String normalizedCorrectAnswer;
+        private final Set<Long> choiceIds;
+        private final Set<Long> correctChoiceIds;
+        private final CodeFingerprint codeFingerprint;
+        private final List<CodeTestCase> testCases;
+        private final String parameterName;
+
+        Entry(Long questionId, Question.QuestionType type, double points, String normalizedCorrectAnswer,
+              Set<Long> choiceIds, Set<Long> correctChoiceIds, CodeFingerprint codeFingerprint,
+              List<CodeTestCase> testCases) {
+            this.questionId = questionId;
+            this.type = type;
+            this.points = points;
+            this.normalizedCorrectAnswer = normalizedCorrectAnswer;
+            this.choiceIds = Collections.unmodifiableSet(choiceIds);
+            this.correctChoiceIds = Collections.unmodifiableSet(correctChoiceIds);
+            this.codeFingerprint = codeFingerprint;
+            this.testCases = Collections.unmodifiableList(testCases);
+            this.parameterName = "q_" + questionId;
+        }
+
+        public Long getQuestionId() {
+            return questionId;
+        }
+
+        public Question.QuestionType getType() {
+            return type;
+        }
+
+        public double getPoints() {
+            return points;
+        }
+
+        /**
+         * Normalized correct answer of TF/IDENT questions, or null if none was set.
+         */
+        public String getNormalizedCorrectAnswer() {
+            return normalizedCorrectAnswer;
+        }
+
+        public Set<Long> getChoiceIds() {
+            return choiceIds;
+        }
+
+        public Set<Long> getCorrectChoiceIds() {
+            return correctChoiceIds;
+        }
+
+        // Lexed reference solution of CODING questions, or null if none was set
+        public CodeFingerprint getCodeFingerprint() {
+            return codeFingerprint;
+        }
+
+        // Test cases of CODING questions; empty when answers are compared with the reference solution
+        public List<CodeTestCase> getTestCases() {
+            return testCases;
+        }
+
+        // Name of the form field holding the student's answer
+        public String getParameterName() {
+            return parameterName;
+        }
+    }
+}
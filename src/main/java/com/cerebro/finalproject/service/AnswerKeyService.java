@@ -0,0 +1,189 @@
+package com.cerebro.finalproject.service;
+
+import com.cerebro.finalproject.model.Choice;
+import com.cerebro.finalproject.model.Question;
+import com.cerebro.finalproject.model.TestCase;
+import com.cerebro.finalproject.repository.QuestionRepository;
+import com.cerebro.finalproject.repository.TestCaseRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Builds and caches the {@link AnswerKey} of each quiz and grades submissions against it.
+ * Keys are held in a bounded LRU cache and must be evicted whenever a question of the quiz changes.
+ */
+@Service
+public class AnswerKeyService {
+
+    @Autowired
+    private QuestionRepository questionRepository;
+
+    @Autowired
+    private TestCaseRepository testCaseRepository;
+
+    @Autowired
+    private AnswerNormalizer answerNormalizer;
+
+    @Autowired
+    private CodeComparator codeComparator;
+
+    @Autowired
+    private CodeExecutionService codeExecutionService;
+
+    private final QuizCache<AnswerKey> cache;
+
+    public AnswerKeyService(@Value("${app.grading.answer-key-cache-size:256}") int maxEntries) {
+        this.cache = new QuizCache<>("answer key", maxEntries);
+    }
+
+    /**
+     * Returns the answer key of a quiz, building it with a single query on a cache miss.
+     * Concurrent callers for the same quiz wait for one build instead of each querying.
+     */
+    public AnswerKey getAnswerKey(Long quizId) {
+        return cache.get(quizId, this::buildAnswerKey);
+    }
+
+    /**
+     * Drops the cached key of a quiz. When called inside a transaction the key is dropped again
+     * after commit, so a key rebuilt from not-yet-committed data cannot outlive the change.
+     */
+    public void evict(Long quizId) {
+        cache.evict(quizId);
+    }
+
+    /**
+     * Grades a submission entirely in memory. Answers are keyed by form field name ("q_{questionId}").
+     *
+     * @throws CodeNotRunException if a CODING answer's test cases could not all be run
+     */
+    public List<GradedAnswer> grade(AnswerKey key, Map<String, String> answers) {
+        List<GradedAnswer> graded = new ArrayList<>(key.size());
+        for (AnswerKey.Entry entry : key.getEntries()) {
+            graded.add(grade(entry, answers.get(entry.getParameterName())));
+        }
+        return graded;
+    }
+
+    /**
+     * Grades one answer. For MCQ questions the given answer is the selected choice id.
+     *
+     * @throws CodeNotRunException if a CODING answer's test cases could not all be run
+     */
+    public GradedAnswer grade(AnswerKey.Entry entry, String givenAnswer) {
+        String correctAnswer = entry.getNormalizedCorrectAnswer();
+
+        Long choiceId = null;
+        String givenText = null;
+        boolean isCorrect = false;
+
+        switch (entry.getType()) {
+            case MCQ:
+                if (givenAnswer != null && !givenAnswer.trim().isEmpty()) {
+                    try {
+                        Long selected = Long.parseLong(givenAnswer);
+                        if (entry.getChoiceIds().contains(selected)) {
+                            choiceId = selected;
+                            isCorrect = entry.getCorrectChoiceIds().contains(selected);
+                        }
+                    } catch (NumberFormatException e) {
+                        isCorrect = false;
+                    }
+                }
+                break;
+
+            case TF:
+            case IDENT:
+                givenText = givenAnswer;
+                if (givenAnswer != null && correctAnswer != null) {
+                    isCorrect = answerNormalizer.normalizeAnswer(givenAnswer).equals(correctAnswer);
+                }
+                break;
+
+            case CODING:
+                givenText = givenAnswer;
+                if (givenAnswer == null || givenAnswer.isBlank()) {
+                    break;
+                }
+                if (!entry.getTestCases().isEmpty() && codeExecutionService.isAvailable()) {
+                    ExecutionReport report = codeExecutionService.run(givenAnswer, entry.getTestCases());
+                    // Busy runners are no verdict on the answer; it has to be graded again later
+                    if (!report.isComplete()) {
+                        throw new CodeNotRunException(entry.getQuestionId(), report.getNotRunReason());
+                    }
+                    // Correct only when every test case passes
+                    isCorrect = report.allPassed();
+                } else if (entry.getCodeFingerprint() != null) {
+                    isCorrect = codeComparator.matches(entry.getCodeFingerprint(), givenAnswer);
+                }
+                break;
+
+            case ESSAY:
+                givenText = givenAnswer;
+                isCorrect = false; // Essays need manual grading
+                break;
+        }
+
+        return new GradedAnswer(entry.getQuestionId(), choiceId, givenText, isCorrect, entry.getPoints());
+    }
+
+    private AnswerKey buildAnswerKey(Long quizId) {
+        List<Question> questions = questionRepository.findByQuizIdWithChoices(quizId);
+
+        // Test cases come from a second query; fetching two collections in one would multiply rows
+        Map<Long, List<CodeTestCase>> testCases = new HashMap<>();
+        for (TestCase testCase : testCaseRepository.findByQuizId(quizId)) {
+            testCases.computeIfAbsent(testCase.getQuestion().getId(), id -> new ArrayList<>())
+                    .add(new CodeTestCase(testCase.getInput(), testCase.getExpectedOutput()));
+        }
+
+        List<AnswerKey.Entry> entries = new ArrayList<>(questions.size());
+
+        for (Question question : questions) {
+            double points = question.getPoints() != null ? question.getPoints() : 1.0;
+            Set<Long> choiceIds = new HashSet<>();
+            Set<Long> correctChoiceIds = new HashSet<>();
+            String correctAnswer = null;
+            CodeFingerprint codeFingerprint = null;
+
+            switch (question.getType()) {
+                case MCQ:
+                    for (Choice choice : question.getChoices()) {
+                        choiceIds.add(choice.getId());
+                        if (Boolean.TRUE.equals(choice.getCorrect())) {
+                            correctChoiceIds.add(choice.getId());
+                        }
+                    }
+                    break;
+                case TF:
+                case IDENT:
+                    if (question.getCorrectAnswer() != null) {
+                        correctAnswer = answerNormalizer.normalizeAnswer(question.getCorrectAnswer());
+                    }
+                    break;
+                case CODING:
+                    if (question.getCorrectAnswer() != null) {
+                        codeFingerprint = codeComparator.fingerprint(question.getCorrectAnswer());
+                    }
+                    break;
+                default:
+                    break;
+            }
+
+            entries.add(new AnswerKey.Entry(question.getId(), question.getType(), points,
+                    correctAnswer, choiceIds, correctChoiceIds, codeFingerprint,
+                    testCases.getOrDefault(question.getId(), Collections.emptyList())));
+        }
+
+        return new AnswerKey(quizId, entries);
+    }
+}
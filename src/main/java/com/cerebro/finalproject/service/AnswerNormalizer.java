@@ -0,0 +1,98 @@
+package com.cerebro.finalproject.service;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+
+/**
+ * Normalizes student and reference answers before they are compared.
+ *
+ * {@link #normalizeAnswer} reproduces the original regex based normalization,
+ * {@code trim().toLowerCase().replaceAll("\\s+", " ")}, exactly, but in a single char scan over
+ * the input with a per-thread reusable buffer and no {@code Pattern} compilation. CODING answers are
+ * compared by {@link CodeComparator} instead.
+ */
+@Component
+public class AnswerNormalizer {
+
+    // Buffers above this size are not kept around after use
+    private static final int MAX_RETAINED_BUFFER = 16 * 1024;
+
+    private final ThreadLocal<Buffers> buffers = ThreadLocal.withInitial(Buffers::new);
+
+    public String normalizeAnswer(String answer) {
+        if (answer == null) {
+            return "";
+        }
+
+        int start = 0;
+        int end = answer.length();
+        while (start < end && answer.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && answer.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        if (start == end) {
+            return "";
+        }
+
+        Buffers buf = buffers.get();
+        char[] out = buf.out(end - start);
+        boolean asciiLowerCase = asciiLowerCaseIsExact();
+        boolean needsLowerCase = false;
+        boolean inWhitespace = false;
+        int n = 0;
+
+        for (int i = start; i < end; i++) {
+            char c = answer.charAt(i);
+            if (isRegexWhitespace(c)) {
+                if (!inWhitespace) {
+                    out[n++] = ' ';
+                    inWhitespace = true;
+                }
+            } else {
+                inWhitespace = false;
+                if (c < 0x80 && asciiLowerCase) {
+                    out[n++] = (c >= 'A' && c <= 'Z') ? (char) (c + 32) : c;
+                } else {
+                    out[n++] = c;
+                    needsLowerCase = true;
+                }
+            }
+        }
+
+        String result = new String(out, 0, n);
+        buf.release();
+        return needsLowerCase ? result.toLowerCase() : result;
+    }
+
+    private static boolean isRegexWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    // String.toLowerCase() maps ASCII letters differently only for these default locales
+    private static boolean asciiLowerCaseIsExact() {
+        String language = Locale.getDefault().getLanguage();
+        return !("tr".equals(language) || "az".equals(language) || "lt".equals(language));
+    }
+
+    private static final class Buffers {
+
+        private char[] out = new char[256];
+
+        char[] out(int capacity) {
+            if (out.length < capacity) {
+                out = new char[capacity];
+            }
+            return out;
+        }
+
+        // Drops oversized buffers so one huge answer does not pin memory on a worker thread
+        void release() {
+            if (out.length > MAX_RETAINED_BUFFER) {
+                out = new char[256];
+            }
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.cerebro.finalproject.service;
+
+import com.cerebro.finalproject.repository.AttemptListRow;
+import com.cerebro.finalproject.repository.AttemptRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+
+/**
+ * Pages through a quiz's attempts for the results table.
+ *
+ * Pages are keyset-paginated: each page continues after the sort value and id of the previous
+ * page's last row instead of skipping an offset, and rows are read as projections joined with the
+ * student's name and email. A page therefore costs one query over at most size + 1 rows, however
+ * many attempts the quiz has.
+ */
+@Service
+public class AttemptListingService {
+
+    @Autowired
+    private AttemptRepository attemptRepository;
+
+    private final int defaultPageSize;
+    private final int maxPageSize;
+
+    public AttemptListingService(@Value("${app.results.page-size:25}") int defaultPageSize,
+                                 @Value("${app.results.max-page-size:100}") int maxPageSize) {
+        this.defaultPageSize = defaultPageSize;
+        this.maxPageSize = maxPageSize;
+    }
+
+    /**
+     * Returns the page after the row (after, afterId), or the first page if afterId is null. The
+     * size is clamped to 1..max-page-size; null means the default size. A cursor that does not
+     * parse for the sort also yields the first page.
+     */
+    @Transactional(readOnly = true)
+    public AttemptPage getPage(Long quizId, AttemptSort sort, boolean descending,
+                               String after, Long afterId, Integer size) {
+        int pageSize = size == null ? defaultPageSize : Math.max(1, Math.min(size, maxPageSize));
+        // One extra row tells whether there is a next page
+        Pageable limit = PageRequest.of(0, pageSize + 1);
+
+        Object cursor = afterId != null ? parseCursor(sort, after) : null;
+        List<AttemptListRow> rows = cursor == null ? firstPage(quizId, sort, descending, limit) : switch (sort) {
+            case SCORE -> descending
+                    ? attemptRepository.findListRowsByScoreDesc(quizId, (Double) cursor, afterId, limit)
+                    : attemptRepository.findListRowsByScoreAsc(quizId, (Double) cursor, afterId, limit);
+            case STUDENT -> descending
+                    ? attemptRepository.findListRowsByStudentNameDesc(quizId, (String) cursor, afterId, limit)
+                    : attemptRepository.findListRowsByStudentNameAsc(quizId, (String) cursor, afterId, limit);
+            case SUBMITTED -> descending
+                    ? attemptRepository.findListRowsBySubmittedAtDesc(quizId, (LocalDateTime) cursor, afterId, limit)
+                    : attemptRepository.findListRowsBySubmittedAtAsc(quizId, (LocalDateTime) cursor, afterId, limit);
+        };
+
+        if (rows.size() <= pageSize) {
+            return new AttemptPage(rows, sort, descending, pageSize, null, null);
+        }
+        rows = rows.subList(0, pageSize);
+        AttemptListRow last = rows.get(pageSize - 1);
+        return new AttemptPage(rows, sort, descending, pageSize, cursorValue(sort, last), last.getId());
+    }
+
+    private List<AttemptListRow> firstPage(Long quizId, AttemptSort sort, boolean descending, Pageable limit) {
+        return switch (sort) {
+            case SCORE -> descending
+                    ? attemptRepository.findFirstListRowsByScoreDesc(quizId, limit)
+                    : attemptRepository.findFirstListRowsByScoreAsc(quizId, limit);
+            case STUDENT -> descending
+                    ? attemptRepository.findFirstListRowsByStudentNameDesc(quizId, limit)
+                    : attemptRepository.findFirstListRowsByStudentNameAsc(quizId, limit);
+            case SUBMITTED -> descending
+                    ? attemptRepository.findFirstListRowsBySubmittedAtDesc(quizId, limit)
+                    : attemptRepository.findFirstListRowsBySubmittedAtAsc(quizId, limit);
+        };
+    }
+
+    // The sort value of a row as it appears in page links; matches the COALESCE of the name queries
+    private String cursorValue(AttemptSort sort, AttemptListRow row) {
+        return switch (sort) {
+            case SCORE -> String.valueOf(row.getScore());
+            case STUDENT -> row.getStudentName() != null ? row.getStudentName() : "";
+            case SUBMITTED -> String.valueOf(row.getSubmittedAt());
+        };
+    }
+
+    private Object parseCursor(AttemptSort sort, String after) {
+        if (after == null) {
+            return null;
+        }
+        try {
+            return switch (sort) {
+                case SCORE -> Double.valueOf(after);
+                case STUDENT -> after;
+                case SUBMITTED -> LocalDateTime.parse(after);
+            };
+        } catch (NumberFormatException | DateTimeParseException e) {
+            return null;
+        }
+    }
+}
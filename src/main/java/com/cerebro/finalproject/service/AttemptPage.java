@@ -0,0 +1,43 @@
+package com.cerebro.finalproject.service;
+
+import com.cerebro.finalproject.repository.AttemptListRow;
+
+import java.util.List;
+
+/**
+ * One page of a quiz's results table. The next page starts after the sort value and id of the
+ * last row (nextAfter, nextAfterId), which are null on the last page.
+ */
+public class AttemptPage {
+
+    private final List<AttemptListRow> rows;
+    private final AttemptSort sort;
+    private final boolean descending;
+    private final int size;
+    private final String nextAfter;
+    private final Long nextAfterId;
+
+    AttemptPage(List<AttemptListRow> rows, AttemptSort sort, boolean descending, int size,
+                String nextAfter, Long nextAfterId) {
+        this.rows = rows;
+        this.sort = sort;
+        this.descending = descending;
+        this.size = size;
+        this.nextAfter = nextAfter;
+        this.nextAfterId = nextAfterId;
+    }
+
+    public List<AttemptListRow> getRows() { return rows; }
+
+    public AttemptSort getSort() { return sort; }
+
+    public boolean isDescending() { return descending; }
+
+    public int getSize() { return size; }
+
+    public String getNextAfter() { return nextAfter; }
+
+    public Long getNextAfterId() { return nextAfterId; }
+
+    public boolean hasNext() { return nextAfterId != null; }
+}
@@ -0,0 +1,28 @@
+package com.cerebro.finalproject.service;
+
+/**
+ * Orders a quiz's results table can be sorted by, with the request parameter value of each.
+ */
+public enum AttemptSort {
+    SUBMITTED("submitted"),
+    SCORE("score"),
+    STUDENT("student");
+
+    private final String param;
+
+    AttemptSort(String param) {
+        this.param = param;
+    }
+
+    public String getParam() { return param; }
+
+    // Unknown values fall back to submission order
+    public static AttemptSort fromParam(String param) {
+        for (AttemptSort sort : values()) {
+            if (sort.param.equalsIgnoreCase(param)) {
+                return sort;
+            }
+        }
+        return SUBMITTED;
+    }
+}
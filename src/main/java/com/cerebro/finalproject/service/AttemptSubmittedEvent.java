@@ -0,0 +1,39 @@
+package com.cerebro.finalproject.service;
+
+import java.time.LocalDateTime;
+
+/**
+ * Published when an attempt is stored; listeners that need it to be committed use
+ * {@code @TransactionalEventListener}.
+ */
+public class AttemptSubmittedEvent {
+
+    private final Long quizId;
+    private final Long attemptId;
+    private final Long studentId;
+    private final String studentName;
+    private final Double score;
+    private final LocalDateTime submittedAt;
+
+    public AttemptSubmittedEvent(Long quizId, Long attemptId, Long studentId, String studentName,
+                                 Double score, LocalDateTime submittedAt) {
+        this.quizId = quizId;
+        this.attemptId = attemptId;
+        this.studentId = studentId;
+        this.studentName = studentName;
+        this.score = score;
+        this.submittedAt = submittedAt;
+    }
+
+    public Long getQuizId() { return quizId; }
+
+    public Long getAttemptId() { return attemptId; }
+
+    public Long getStudentId() { return studentId; }
+
+    public String getStudentName() { return studentName; }
+
+    public Double getScore() { return score; }
+
+    public LocalDateTime getSubmittedAt() { return submittedAt; }
+}
@@ -1,16 +1,18 @@
 package com.cerebro.finalproject.service;
 
 import com.cerebro.finalproject.model.Classroom;
+import com.cerebro.finalproject.model.ClassroomBanner;
 import com.cerebro.finalproject.model.User;
+import com.cerebro.finalproject.repository.ClassroomBannerRepository;
 import com.cerebro.finalproject.repository.ClassroomRepository;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.core.io.ClassPathResource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
-import org.springframework.util.StreamUtils;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
-import java.io.InputStream;
 import java.util.List;
 import java.util.Optional;
 import java.util.Random;
@@ -21,47 +23,39 @@ public class ClassroomService {
     @Autowired
     private ClassroomRepository classroomRepository;
 
-    private static final String DEFAULT_BANNER_PATH = "static/images/default-class.jpg";
+    @Autowired
+    private ClassroomBannerRepository classroomBannerRepository;
+
+    private final EnrollmentCache enrollmentCache;
+
+    public ClassroomService(@Value("${app.enrollment.cache-size:10000}") int enrollmentCacheSize) {
+        this.enrollmentCache = new EnrollmentCache(enrollmentCacheSize);
+    }
 
+    // Classes without an uploaded banner have no banner row and are shown the default image
+    @Transactional
     public Classroom createClass(String name, User teacher, MultipartFile banner) {
         Classroom classroom = new Classroom();
         classroom.setName(name);
         classroom.setTeacher(teacher);
         classroom.setCode(generateUniqueCode());
+        classroom = classroomRepository.save(classroom);
 
         // Handle banner upload
         if (banner != null && !banner.isEmpty()) {
             try {
-                classroom.setBannerImage(banner.getBytes());
-                classroom.setBannerContentType(banner.getContentType());
+                classroomBannerRepository.save(new ClassroomBanner(classroom.getId(), banner.getBytes(), banner.getContentType()));
             } catch (IOException e) {
+                // If upload fails, the class keeps the default banner
                 e.printStackTrace();
-                // If upload fails, set default banner
-                setDefaultBanner(classroom);
             }
-        } else {
-            // No banner uploaded, set default
-            setDefaultBanner(classroom);
         }
 
-        return classroomRepository.save(classroom);
+        return classroom;
     }
 
-    /**
-     * Sets the default banner image from resources
-     */
-    private void setDefaultBanner(Classroom classroom) {
-        try {
-            ClassPathResource defaultBanner = new ClassPathResource(DEFAULT_BANNER_PATH);
-            InputStream inputStream = defaultBanner.getInputStream();
-            byte[] defaultImageBytes = StreamUtils.copyToByteArray(inputStream);
-
-            classroom.setBannerImage(defaultImageBytes);
-            classroom.setBannerContentType("image/jpeg");
-        } catch (IOException e) {
-            e.printStackTrace();
-            // If even default fails, leave null (will be handled in view)
-        }
+    public Optional<ClassroomBanner> findBanner(Long classroomId) {
+        return classroomBannerRepository.findById(classroomId);
     }
 
     public Optional<Classroom> findById(Long id) {
@@ -76,13 +70,30 @@ public class ClassroomService {
         return classroomRepository.findByTeacherId(teacherId);
     }
 
+    // Inserts the join row directly instead of loading every enrolled student into classroom.students
     public Classroom addStudentToClass(Classroom classroom, User student) {
-        classroom.getStudents().add(student);
-        return classroomRepository.save(classroom);
+        try {
+            classroomRepository.insertEnrollment(classroom.getId(), student.getId());
+        } catch (DataIntegrityViolationException e) {
+            // Joined concurrently (e.g. a double-click); the primary key keeps one row
+        }
+        enrollmentCache.evict(classroom.getId(), student.getId());
+        return classroom;
     }
 
     public boolean isStudentInClass(Classroom classroom, User student) {
-        return classroom.getStudents().contains(student);
+        return isStudentInClass(classroom.getId(), student.getId());
+    }
+
+    // One indexed lookup on a cache miss, whatever the size of the class
+    public boolean isStudentInClass(Long classroomId, Long studentId) {
+        Boolean cached = enrollmentCache.get(classroomId, studentId);
+        if (cached != null) {
+            return cached;
+        }
+        boolean enrolled = classroomRepository.countEnrollment(classroomId, studentId) > 0;
+        enrollmentCache.put(classroomId, studentId, enrolled);
+        return enrolled;
     }
 
     private String generateUniqueCode() {
@@ -0,0 +1,164 @@
+package com.cerebro.finalproject.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares CODING answers as token streams instead of regex-normalized strings.
+ *
+ * The lexer skips whitespace and comments and splits the code into words (identifiers, keywords,
+ * numbers), string/char literals and single punctuation characters; comparison ignores case.
+ * The reference solution is lexed once into a {@link CodeFingerprint} (cached with the quiz's
+ * {@link AnswerKey}), so grading an answer is one lexing pass plus a hash check, and the tokens
+ * are only compared char by char when the hashes match.
+ */
+@Component
+public class CodeComparator {
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final ThreadLocal<Tokens> buffers = ThreadLocal.withInitial(Tokens::new);
+
+    private final Timer compareTime;
+
+    public CodeComparator(MeterRegistry meterRegistry) {
+        this.compareTime = Timer.builder("quiz.grading.coding.compare")
+                .description("Time to compare one CODING answer with its reference solution")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Lexes a reference solution into an immutable fingerprint.
+     */
+    public CodeFingerprint fingerprint(String code) {
+        Tokens tokens = buffers.get();
+        lex(code, tokens);
+        return new CodeFingerprint(code,
+                Arrays.copyOf(tokens.starts, tokens.count),
+                Arrays.copyOf(tokens.ends, tokens.count),
+                tokens.hash);
+    }
+
+    /**
+     * Whether the given code has the same token stream as the reference.
+     */
+    public boolean matches(CodeFingerprint reference, String code) {
+        if (reference == null || code == null) {
+            return false;
+        }
+
+        long start = System.nanoTime();
+        try {
+            Tokens tokens = buffers.get();
+            lex(code, tokens);
+            if (tokens.count != reference.getTokenCount() || tokens.hash != reference.getHash()) {
+                return false;
+            }
+            // Hashes match; confirm token by token so a collision can never mark an answer correct
+            for (int i = 0; i < tokens.count; i++) {
+                if (!sameToken(code, tokens.starts[i], tokens.ends[i], reference.getSource(),
+                        reference.getStarts()[i], reference.getEnds()[i])) {
+                    return false;
+                }
+            }
+            return true;
+        } finally {
+            compareTime.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private static void lex(String code, Tokens tokens) {
+        tokens.reset();
+        int length = code.length();
+        int i = 0;
+
+        while (i < length) {
+            char c = code.charAt(i);
+
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (c == '/' && i + 1 < length && code.charAt(i + 1) == '/') {
+                i += 2;
+                while (i < length && code.charAt(i) != '\n' && code.charAt(i) != '\r') {
+                    i++;
+                }
+            } else if (c == '/' && i + 1 < length && code.charAt(i + 1) == '*') {
+                int close = code.indexOf("*/", i + 2);
+                i = close < 0 ? length : close + 2;
+            } else if (isWordChar(c)) {
+                int start = i;
+                while (i < length && isWordChar(code.charAt(i))) {
+                    i++;
+                }
+                tokens.add(code, start, i);
+            } else if (c == '"' || c == '\'' || c == '`') {
+                int start = i++;
+                while (i < length && code.charAt(i) != c && code.charAt(i) != '\n') {
+                    i += code.charAt(i) == '\\' && i + 1 < length ? 2 : 1;
+                }
+                i = Math.min(length, i + 1);
+                tokens.add(code, start, i);
+            } else {
+                tokens.add(code, i, i + 1);
+                i++;
+            }
+        }
+    }
+
+    private static boolean isWordChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '$';
+    }
+
+    private static boolean sameToken(String a, int aStart, int aEnd, String b, int bStart, int bEnd) {
+        int length = aEnd - aStart;
+        if (length != bEnd - bStart) {
+            return false;
+        }
+        for (int k = 0; k < length; k++) {
+            if (Character.toLowerCase(a.charAt(aStart + k)) != Character.toLowerCase(b.charAt(bStart + k))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Reusable per-thread token offsets and running hash
+    private static final class Tokens {
+
+        private int[] starts = new int[128];
+        private int[] ends = new int[128];
+        private int count;
+        private long hash;
+
+        void reset() {
+            count = 0;
+            hash = FNV_OFFSET;
+            if (starts.length > 64 * 1024) {
+                starts = new int[128];
+                ends = new int[128];
+            }
+        }
+
+        void add(String code, int start, int end) {
+            if (count == starts.length) {
+                starts = Arrays.copyOf(starts, count * 2);
+                ends = Arrays.copyOf(ends, count * 2);
+            }
+            starts[count] = start;
+            ends[count] = end;
+            count++;
+
+            long h = hash;
+            for (int k = start; k < end; k++) {
+                h = (h ^ Character.toLowerCase(code.charAt(k))) * FNV_PRIME;
+            }
+            // Token boundary, so "ab" "c" and "a" "bc" hash differently
+            hash = (h ^ 0x1F) * FNV_PRIME;
+        }
+    }
+}
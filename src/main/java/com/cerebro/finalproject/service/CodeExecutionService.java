@@ -0,0 +1,472 @@
+package com.cerebro.finalproject.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Compiles Java submissions in memory and runs them against a question's test cases.
+ *
+ * Every test case runs in its own JVM with a heap limit, an empty environment and the JDK
+ * security manager, which denies file, network and process access; exiting or exhausting memory
+ * only ends that JVM. A run over its wall-clock or CPU-time limit is killed, so a worker is never
+ * held by a submission for longer than the limit.
+ *
+ * Test runs share a fixed pool of workers, so the number of submissions competing for CPU is
+ * bounded no matter how many callers are waiting; test cases of one submission run in parallel.
+ * Compilations have their own workers and bounded queue, so they never wait behind test runs.
+ * A compilation or run that cannot finish within its timeout is reported as NOT_RUN, which is
+ * not a grade. Compiled classes are cached by the SHA-256 of the source, so identical
+ * submissions (and re-grades) compile once.
+ *
+ * Running submitted code is off unless app.coding.enabled is set; CODING answers are then graded
+ * by comparing them with the model answer. It needs app.submission.async-intake, so test runs
+ * never hold a web request thread.
+ */
+@Service
+public class CodeExecutionService {
+
+    private static final Logger log = LoggerFactory.getLogger(CodeExecutionService.class);
+
+    // How often a worker checks the limits of its running test
+    private static final long POLL_MILLIS = 20;
+    // Time a killed JVM gets to go away before its worker gives up waiting
+    private static final long KILL_GRACE_MILLIS = 1000;
+    private static final long COMPILE_TIMEOUT_SECONDS = 30;
+    // Compilations waiting for a compiler thread beyond this are not run
+    private static final int COMPILE_QUEUE_CAPACITY = 100;
+    private static final int MAX_REPORTED_OUTPUT = 1000;
+    private static final int MAX_ERROR_BYTES = 4096;
+    // The security manager can no longer be enabled from this release on
+    private static final int LAST_SECURITY_MANAGER_RELEASE = 23;
+
+    private final InMemoryJavaCompiler compiler = new InMemoryJavaCompiler();
+    private final ThreadPoolExecutor workers;
+    private final ThreadPoolExecutor compilers;
+    private final Map<String, FutureTask<InMemoryJavaCompiler.Result>> compiled;
+
+    private final boolean enabled;
+    private final String javaCommand;
+    private final long timeLimitNanos;
+    private final long cpuLimitNanos;
+    private final long queueTimeoutNanos;
+    private final int memoryLimitMegabytes;
+    private final int maxOutputBytes;
+
+    private final Timer runTime;
+    private final Counter compilations;
+
+    public CodeExecutionService(MeterRegistry meterRegistry,
+                                @Value("${app.coding.enabled:false}") boolean enabled,
+                                @Value("${app.coding.workers:0}") int workerCount,
+                                @Value("${app.coding.time-limit-ms:2000}") long timeLimitMillis,
+                                @Value("${app.coding.cpu-limit-ms:1000}") long cpuLimitMillis,
+                                @Value("${app.coding.queue-timeout-ms:30000}") long queueTimeoutMillis,
+                                @Value("${app.coding.memory-limit-mb:64}") int memoryLimitMegabytes,
+                                @Value("${app.coding.max-output-bytes:65536}") int maxOutputBytes,
+                                @Value("${app.coding.compile-cache-size:512}") int compileCacheSize,
+                                @Value("${app.submission.async-intake:false}") boolean asyncIntake) {
+        this.timeLimitNanos = TimeUnit.MILLISECONDS.toNanos(timeLimitMillis);
+        this.cpuLimitNanos = TimeUnit.MILLISECONDS.toNanos(cpuLimitMillis);
+        this.queueTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(queueTimeoutMillis);
+        this.memoryLimitMegabytes = memoryLimitMegabytes;
+        this.maxOutputBytes = maxOutputBytes;
+        this.javaCommand = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+
+        if (enabled && Runtime.version().feature() > LAST_SECURITY_MANAGER_RELEASE) {
+            log.warn("Running submitted code needs Java {} or older to sandbox it; CODING answers are compared "
+                    + "with the model answer instead", LAST_SECURITY_MANAGER_RELEASE);
+            enabled = false;
+        }
+        if (enabled && !asyncIntake) {
+            throw new IllegalStateException("app.coding.enabled needs app.submission.async-intake=true: "
+                    + "test runs take seconds and must not be waited for on a request thread");
+        }
+        this.enabled = enabled;
+
+        // Leave at least one core to the web and grading threads by default
+        int threads = workerCount > 0 ? workerCount : Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+        // Unbounded queue: every caller waits for its own tasks, so queued work is bounded by the callers
+        this.workers = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), daemonThreads("code-runner-"));
+        // A caller waits for a compilation before queueing any run, so runs can never fill this up
+        this.compilers = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(COMPILE_QUEUE_CAPACITY), daemonThreads("code-compiler-"),
+                new ThreadPoolExecutor.AbortPolicy());
+
+        this.compiled = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, FutureTask<InMemoryJavaCompiler.Result>> eldest) {
+                return size() > compileCacheSize;
+            }
+        };
+
+        Gauge.builder("quiz.grading.coding.queue.depth", workers, executor -> executor.getQueue().size())
+                .description("Test runs waiting for a code runner")
+                .register(meterRegistry);
+        Gauge.builder("quiz.grading.coding.compile.queue.depth", compilers, executor -> executor.getQueue().size())
+                .description("Compilations waiting for a compiler thread")
+                .register(meterRegistry);
+        this.runTime = Timer.builder("quiz.grading.coding.run")
+                .description("Wall time of one test case run")
+                .register(meterRegistry);
+        this.compilations = Counter.builder("quiz.grading.coding.compilations")
+                .description("Submissions compiled (compiled-class cache misses)")
+                .register(meterRegistry);
+    }
+
+    // False when running code is disabled, or the application runs on a JRE without javac
+    public boolean isAvailable() {
+        return enabled && compiler.isAvailable();
+    }
+
+    /**
+     * Compiles the source (or takes it from the cache) and runs it against every test case.
+     * Blocks until all test cases finished, hit a limit or timed out in the queue; check
+     * {@link ExecutionReport#isComplete()} before grading from the report.
+     */
+    public ExecutionReport run(String source, List<CodeTestCase> testCases) {
+        InMemoryJavaCompiler.Result program = compile(source);
+        if (program == null) {
+            return ExecutionReport.notRun("Not compiled: all compilers were busy");
+        }
+        if (!program.isSuccess()) {
+            return ExecutionReport.compileError(program.getError());
+        }
+
+        Path workDir = createWorkDir(program);
+        try {
+            long queuedAt = System.nanoTime();
+            List<Future<ExecutionReport.TestResult>> futures = new ArrayList<>(testCases.size());
+            for (int i = 0; i < testCases.size(); i++) {
+                futures.add(workers.submit(new TestRun(program.getMainClass(), workDir, i, testCases.get(i), queuedAt)));
+            }
+
+            // A run that started before the queue timeout ends within its limit after that
+            long deadline = queuedAt + queueTimeoutNanos + timeLimitNanos
+                    + TimeUnit.MILLISECONDS.toNanos(KILL_GRACE_MILLIS);
+            List<ExecutionReport.TestResult> results = new ArrayList<>(futures.size());
+            try {
+                for (Future<ExecutionReport.TestResult> future : futures) {
+                    results.add(await(future, deadline));
+                }
+            } catch (InterruptedException e) {
+                futures.forEach(future -> future.cancel(true));
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while running test cases", e);
+            }
+            return ExecutionReport.of(results);
+        } finally {
+            deleteRecursively(workDir);
+        }
+    }
+
+    // The compiled program, or null if the compilers were too busy to compile it in time
+    private InMemoryJavaCompiler.Result compile(String source) {
+        String key = sha256(source);
+        FutureTask<InMemoryJavaCompiler.Result> task;
+        boolean owner = false;
+        synchronized (compiled) {
+            task = compiled.get(key);
+            if (task == null) {
+                task = new FutureTask<>(() -> compiler.compile(source));
+                compiled.put(key, task);
+                owner = true;
+            }
+        }
+
+        if (owner) {
+            try {
+                compilers.execute(task);
+            } catch (RejectedExecutionException e) {
+                removeTask(key, task);
+                task.cancel(false);
+                return null;
+            }
+            compilations.increment();
+        }
+
+        try {
+            return task.get(COMPILE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while compiling submission", e);
+        } catch (TimeoutException | CancellationException e) {
+            // Stops the compilation, or skips it once its turn comes; callers sharing it are not run either
+            removeTask(key, task);
+            task.cancel(true);
+            return null;
+        } catch (ExecutionException e) {
+            removeTask(key, task);
+            throw new IllegalStateException("Could not compile submission", e);
+        }
+    }
+
+    private ExecutionReport.TestResult await(Future<ExecutionReport.TestResult> future, long deadline)
+            throws InterruptedException {
+        try {
+            return future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            // Only reached when every worker was busy for the whole queue timeout
+            future.cancel(true);
+            return notRun();
+        } catch (ExecutionException | CancellationException e) {
+            // The runner itself failed (or shut down), not the submission
+            return new ExecutionReport.TestResult(ExecutionReport.Status.NOT_RUN, "", "Not run: execution aborted", 0);
+        }
+    }
+
+    private static ExecutionReport.TestResult notRun() {
+        return new ExecutionReport.TestResult(ExecutionReport.Status.NOT_RUN, "",
+                "Not run: all code runners were busy", 0);
+    }
+
+    private static ThreadFactory daemonThreads(String namePrefix) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, namePrefix + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    // The submission's class files, next to a directory per test run for its input and output
+    private static Path createWorkDir(InMemoryJavaCompiler.Result program) {
+        try {
+            Path workDir = Files.createTempDirectory("code-runner-");
+            Path classDir = Files.createDirectory(workDir.resolve("classes"));
+            for (Map.Entry<String, byte[]> entry : program.getClasses().entrySet()) {
+                Path file = classDir.resolve(entry.getKey().replace('.', '/') + ".class");
+                Files.createDirectories(file.getParent());
+                Files.write(file, entry.getValue());
+            }
+            return workDir;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write submission classes", e);
+        }
+    }
+
+    private List<String> command(String mainClass, Path classDir) {
+        return List.of(javaCommand,
+                "-Xmx" + memoryLimitMegabytes + "m", "-Xss1m", "-XX:MaxMetaspaceSize=64m",
+                // Small, fast-starting JVM; startup costs about 0.2 s of the CPU limit
+                "-XX:+UseSerialGC", "-XX:TieredStopAtLevel=1", "-XX:ActiveProcessorCount=1", "-XX:-UsePerfData",
+                "-Djava.security.manager",
+                "-Dfile.encoding=UTF-8", "-Dsun.stdout.encoding=UTF-8", "-Dsun.stderr.encoding=UTF-8",
+                "-cp", classDir.toString(), mainClass);
+    }
+
+    /**
+     * Output comparison ignores line endings, trailing spaces on each line and trailing blank lines.
+     */
+    static String normalizeOutput(String output) {
+        StringBuilder normalized = new StringBuilder(output.length());
+        int length = output.length();
+        int lineStart = 0;
+        while (lineStart <= length) {
+            int lineEnd = output.indexOf('\n', lineStart);
+            if (lineEnd < 0) {
+                lineEnd = length;
+            }
+            int end = lineEnd;
+            while (end > lineStart && Character.isWhitespace(output.charAt(end - 1))) {
+                end--;
+            }
+            normalized.append(output, lineStart, end).append('\n');
+            lineStart = lineEnd + 1;
+        }
+
+        int end = normalized.length();
+        while (end > 0 && normalized.charAt(end - 1) == '\n') {
+            end--;
+        }
+        normalized.setLength(end);
+        return normalized.toString();
+    }
+
+    /**
+     * The uncaught exception (or launcher error) reported on standard error, without the JVM's
+     * security manager warnings; null if there is none.
+     */
+    static String errorMessage(String stderr) {
+        for (String line : stderr.split("\\R")) {
+            if (line.startsWith("Exception in thread")) {
+                int end = line.indexOf("\" ");
+                return end >= 0 ? line.substring(end + 2) : line;
+            }
+            if (line.startsWith("Error:")) {
+                return line.substring("Error:".length()).trim();
+            }
+        }
+        return null;
+    }
+
+    private static String truncate(String output) {
+        return output.length() > MAX_REPORTED_OUTPUT ? output.substring(0, MAX_REPORTED_OUTPUT) : output;
+    }
+
+    private static String readLimited(Path file, int limit) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            return new String(in.readNBytes(limit), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static void deleteRecursively(Path dir) {
+        try (Stream<Path> paths = Files.walk(dir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        } catch (IOException | UncheckedIOException e) {
+            log.warn("Could not delete {}", dir, e);
+        }
+    }
+
+    private static String sha256(String source) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(source.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private void removeTask(String key, FutureTask<InMemoryJavaCompiler.Result> task) {
+        synchronized (compiled) {
+            compiled.remove(key, task);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        compilers.shutdownNow();
+        workers.shutdownNow();
+    }
+
+    /**
+     * One test case run in a child JVM. The worker enforces the limits itself and always destroys
+     * the process before returning, also when the caller cancels the run.
+     */
+    private final class TestRun implements Callable<ExecutionReport.TestResult> {
+
+        private final String mainClass;
+        private final Path workDir;
+        private final int index;
+        private final CodeTestCase testCase;
+        private final long queuedAt;
+
+        TestRun(String mainClass, Path workDir, int index, CodeTestCase testCase, long queuedAt) {
+            this.mainClass = mainClass;
+            this.workDir = workDir;
+            this.index = index;
+            this.testCase = testCase;
+            this.queuedAt = queuedAt;
+        }
+
+        @Override
+        public ExecutionReport.TestResult call() throws IOException, InterruptedException {
+            if (System.nanoTime() - queuedAt > queueTimeoutNanos) {
+                return notRun();
+            }
+            Timer.Sample sample = Timer.start();
+            try {
+                return execute();
+            } finally {
+                sample.stop(runTime);
+            }
+        }
+
+        private ExecutionReport.TestResult execute() throws IOException, InterruptedException {
+            Path runDir = Files.createDirectory(workDir.resolve("run-" + index));
+            Path input = Files.writeString(runDir.resolve("input"), testCase.getInput(), StandardCharsets.UTF_8);
+            Path output = runDir.resolve("output");
+            Path errors = runDir.resolve("errors");
+
+            // The run directory is not on the class path, so the submission cannot read these files
+            ProcessBuilder builder = new ProcessBuilder(command(mainClass, workDir.resolve("classes")))
+                    .directory(runDir.toFile())
+                    .redirectInput(input.toFile())
+                    .redirectOutput(output.toFile())
+                    .redirectError(errors.toFile());
+            builder.environment().clear();
+
+            long start = System.nanoTime();
+            Process process = builder.start();
+            ExecutionReport.Status limitHit = null;
+            Duration cpu = Duration.ZERO;
+            try {
+                while (!process.waitFor(POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+                    cpu = process.info().totalCpuDuration().orElse(cpu);
+                    if (System.nanoTime() - start > timeLimitNanos || cpu.toNanos() > cpuLimitNanos) {
+                        limitHit = ExecutionReport.Status.TIME_LIMIT;
+                        break;
+                    }
+                    if (Files.size(output) > maxOutputBytes) {
+                        limitHit = ExecutionReport.Status.OUTPUT_LIMIT;
+                        break;
+                    }
+                }
+            } finally {
+                if (process.isAlive()) {
+                    process.destroyForcibly();
+                    process.waitFor(KILL_GRACE_MILLIS, TimeUnit.MILLISECONDS);
+                }
+            }
+
+            long cpuMillis = cpu.toMillis();
+            String stdout = readLimited(output, maxOutputBytes + 1);
+            if (limitHit == ExecutionReport.Status.TIME_LIMIT) {
+                return new ExecutionReport.TestResult(limitHit, truncate(stdout), "Time limit exceeded", cpuMillis);
+            }
+            if (limitHit == ExecutionReport.Status.OUTPUT_LIMIT || Files.size(output) > maxOutputBytes) {
+                return new ExecutionReport.TestResult(ExecutionReport.Status.OUTPUT_LIMIT, truncate(stdout),
+                        "Output limit exceeded", cpuMillis);
+            }
+
+            if (process.exitValue() != 0) {
+                String message = errorMessage(readLimited(errors, MAX_ERROR_BYTES));
+                return new ExecutionReport.TestResult(ExecutionReport.Status.RUNTIME_ERROR, truncate(stdout),
+                        message != null ? message : "Exited with code " + process.exitValue(), cpuMillis);
+            }
+
+            ExecutionReport.Status status = normalizeOutput(stdout).equals(normalizeOutput(testCase.getExpectedOutput()))
+                    ? ExecutionReport.Status.PASSED
+                    : ExecutionReport.Status.WRONG_ANSWER;
+            return new ExecutionReport.TestResult(status, truncate(stdout), null, cpuMillis);
+        }
+    }
+}
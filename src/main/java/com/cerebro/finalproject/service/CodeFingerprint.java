@@ -0,0 +1,40 @@
+package com.cerebro.finalproject.service;
+
+/**
+ * Immutable token stream of a reference solution, produced by {@link CodeComparator#fingerprint}.
+ * Tokens are kept as offsets into the source so no substrings are allocated.
+ */
+public final class CodeFingerprint {
+
+    private final String source;
+    private final int[] starts;
+    private final int[] ends;
+    private final long hash;
+
+    CodeFingerprint(String source, int[] starts, int[] ends, long hash) {
+        this.source = source;
+        this.starts = starts;
+        this.ends = ends;
+        this.hash = hash;
+    }
+
+    String getSource() {
+        return source;
+    }
+
+    int[] getStarts() {
+        return starts;
+    }
+
+    int[] getEnds() {
+        return ends;
+    }
+
+    public int getTokenCount() {
+        return starts.length;
+    }
+
+    public long getHash() {
+        return hash;
+    }
+}
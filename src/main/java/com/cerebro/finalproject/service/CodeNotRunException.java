@@ -0,0 +1,19 @@
+package com.cerebro.finalproject.service;
+
+/**
+ * Thrown when a CODING answer could not be run because every code runner was busy. The answer
+ * has no grade yet; callers leave it to be graded again later instead of storing a result.
+ */
+public class CodeNotRunException extends RuntimeException {
+
+    private final Long questionId;
+
+    public CodeNotRunException(Long questionId, String reason) {
+        super("Answer to question " + questionId + " was not run: " + reason);
+        this.questionId = questionId;
+    }
+
+    public Long getQuestionId() {
+        return questionId;
+    }
+}
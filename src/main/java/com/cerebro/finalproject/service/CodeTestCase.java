@@ -0,0 +1,23 @@
+package com.cerebro.finalproject.service;
+
+/**
+ * Immutable copy of a teacher-defined test case, held by the cached {@link AnswerKey}.
+ */
+public final class CodeTestCase {
+
+    private final String input;
+    private final String expectedOutput;
+
+    public CodeTestCase(String input, String expectedOutput) {
+        this.input = input != null ? input : "";
+        this.expectedOutput = expectedOutput != null ? expectedOutput : "";
+    }
+
+    public String getInput() {
+        return input;
+    }
+
+    public String getExpectedOutput() {
+        return expectedOutput;
+    }
+}
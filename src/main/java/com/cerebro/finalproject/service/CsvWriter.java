@@ -0,0 +1,72 @@
+package com.cerebro.finalproject.service;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes RFC 4180 CSV rows to a stream through a fixed-size buffer.
+ *
+ * Cells that a spreadsheet would run as a formula (starting with =, +, -, @) are prefixed with an
+ * apostrophe, since exported answers are typed by students.
+ */
+class CsvWriter implements Flushable, Closeable {
+
+    private final BufferedWriter writer;
+    private boolean rowStarted;
+
+    CsvWriter(OutputStream out) {
+        this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 8192);
+    }
+
+    CsvWriter cell(Object value) {
+        try {
+            if (rowStarted) {
+                writer.write(',');
+            }
+            rowStarted = true;
+            if (value == null) {
+                return this;
+            }
+            String text = value.toString();
+            if (value instanceof String && !text.isEmpty() && "=+-@".indexOf(text.charAt(0)) >= 0) {
+                text = "'" + text;
+            }
+            if (text.indexOf(',') >= 0 || text.indexOf('"') >= 0 || text.indexOf('\n') >= 0 || text.indexOf('\r') >= 0) {
+                writer.write('"');
+                writer.write(text.replace("\"", "\"\""));
+                writer.write('"');
+            } else {
+                writer.write(text);
+            }
+            return this;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    void endRow() {
+        try {
+            writer.write("\r\n");
+            rowStarted = false;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        writer.flush();
+    }
+
+    // Flushes without closing the underlying stream, which belongs to the caller
+    @Override
+    public void close() throws IOException {
+        writer.flush();
+    }
+}
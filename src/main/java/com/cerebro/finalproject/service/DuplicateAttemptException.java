@@ -0,0 +1,20 @@
+package com.cerebro.finalproject.service;
+
+import com.cerebro.finalproject.model.Attempt;
+
+/**
+ * Thrown when a student submits a quiz they already have an attempt for.
+ */
+public class DuplicateAttemptException extends RuntimeException {
+
+    private final Attempt existingAttempt;
+
+    public DuplicateAttemptException(Attempt existingAttempt) {
+        super("Student has already submitted this quiz");
+        this.existingAttempt = existingAttempt;
+    }
+
+    public Attempt getExistingAttempt() {
+        return existingAttempt;
+    }
+}
@@ -0,0 +1,63 @@
+package com.cerebro.finalproject.service;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded LRU cache of enrollment checks: whether a student is in a classroom, by the two ids.
+ * Both answers are cached, so an enrollment must be evicted when it is added.
+ */
+final class EnrollmentCache {
+
+    private record Key(long classroomId, long studentId) {
+    }
+
+    private final Map<Key, Boolean> cache;
+
+    EnrollmentCache(int maxEntries) {
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Boolean> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    // The cached answer, or null if the pair has not been checked (or was evicted)
+    Boolean get(long classroomId, long studentId) {
+        synchronized (cache) {
+            return cache.get(new Key(classroomId, studentId));
+        }
+    }
+
+    void put(long classroomId, long studentId, boolean enrolled) {
+        synchronized (cache) {
+            cache.put(new Key(classroomId, studentId), enrolled);
+        }
+    }
+
+    /**
+     * Drops the cached answer for the pair. When called inside a transaction it is dropped again
+     * after completion, so a check made before the commit cannot outlive the change.
+     */
+    void evict(long classroomId, long studentId) {
+        Key key = new Key(classroomId, studentId);
+        synchronized (cache) {
+            cache.remove(key);
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    synchronized (cache) {
+                        cache.remove(key);
+                    }
+                }
+            });
+        }
+    }
+}
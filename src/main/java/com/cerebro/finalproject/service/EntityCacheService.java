@@ -0,0 +1,69 @@
+package com.cerebro.finalproject.service;
+
+import com.cerebro.finalproject.model.Quiz;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.cache.JCacheMetrics;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Cache;
+import org.hibernate.cache.jcache.internal.JCacheRegionFactory;
+import org.hibernate.cache.spi.RegionFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+
+/**
+ * Hibernate's second-level cache of quizzes, questions and choices (regions are bounded in
+ * hibernate-cache.conf). Changes made through Hibernate keep the cached entries current by
+ * themselves; {@link #evictQuiz(Long)} drops what SQL updates (such as the quiz's total points)
+ * can leave stale. Hits, misses and evictions of every region are published as cache.* metrics.
+ */
+@Service
+public class EntityCacheService {
+
+    // Region names from the entities' @Cache annotations
+    static final List<String> REGIONS = List.of("quiz", "quiz_questions", "question", "question_choices", "choice");
+
+    private static final String QUIZ_QUESTIONS = Quiz.class.getName() + ".questions";
+
+    private final Cache cache;
+
+    public EntityCacheService(EntityManagerFactory entityManagerFactory, MeterRegistry meterRegistry) {
+        SessionFactoryImplementor sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        this.cache = sessionFactory.getCache();
+
+        RegionFactory regionFactory = sessionFactory.getServiceRegistry().getService(RegionFactory.class);
+        if (regionFactory instanceof JCacheRegionFactory jcache) {
+            for (String region : REGIONS) {
+                javax.cache.Cache<Object, Object> regionCache = jcache.getCacheManager().getCache(region);
+                if (regionCache != null) {
+                    JCacheMetrics.monitor(meterRegistry, regionCache, Tags.empty());
+                }
+            }
+        }
+    }
+
+    /**
+     * Drops the cached quiz and its question list, now and again once the current transaction
+     * completes, so a concurrent reader cannot put back the state from before the change.
+     */
+    public void evictQuiz(Long quizId) {
+        evictNow(quizId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    evictNow(quizId);
+                }
+            });
+        }
+    }
+
+    private void evictNow(Long quizId) {
+        cache.evictEntityData(Quiz.class, quizId);
+        cache.evictCollectionData(QUIZ_QUESTIONS, quizId);
+    }
+}
@@ -0,0 +1,125 @@
+package com.cerebro.finalproject.service;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Result of running one CODING submission against its test cases.
+ */
+public final class ExecutionReport {
+
+    public enum Status {
+        PASSED, WRONG_ANSWER, TIME_LIMIT, OUTPUT_LIMIT, RUNTIME_ERROR,
+        // No code runner was free to run the test case; says nothing about the submission
+        NOT_RUN
+    }
+
+    private final String compileError;
+    private final String notRunReason;
+    private final List<TestResult> results;
+
+    private ExecutionReport(String compileError, String notRunReason, List<TestResult> results) {
+        this.compileError = compileError;
+        this.notRunReason = notRunReason;
+        this.results = Collections.unmodifiableList(results);
+    }
+
+    static ExecutionReport compileError(String message) {
+        return new ExecutionReport(message != null ? message : "Compilation failed", null, Collections.emptyList());
+    }
+
+    // The submission could not even be compiled for lack of capacity
+    static ExecutionReport notRun(String reason) {
+        return new ExecutionReport(null, reason, Collections.emptyList());
+    }
+
+    static ExecutionReport of(List<TestResult> results) {
+        return new ExecutionReport(null, null, results);
+    }
+
+    // Compiler errors, or null if the submission compiled
+    public String getCompileError() {
+        return compileError;
+    }
+
+    public List<TestResult> getResults() {
+        return results;
+    }
+
+    public int getPassedCount() {
+        int passed = 0;
+        for (TestResult result : results) {
+            if (result.getStatus() == Status.PASSED) {
+                passed++;
+            }
+        }
+        return passed;
+    }
+
+    /**
+     * False when the submission, or any of its test cases, was not run for lack of capacity;
+     * such a report must not be turned into a grade.
+     */
+    public boolean isComplete() {
+        if (notRunReason != null) {
+            return false;
+        }
+        for (TestResult result : results) {
+            if (result.getStatus() == Status.NOT_RUN) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Why the report is not complete, or null if it is
+    public String getNotRunReason() {
+        if (notRunReason != null) {
+            return notRunReason;
+        }
+        for (TestResult result : results) {
+            if (result.getStatus() == Status.NOT_RUN) {
+                return result.getMessage();
+            }
+        }
+        return null;
+    }
+
+    public boolean allPassed() {
+        return compileError == null && !results.isEmpty() && getPassedCount() == results.size();
+    }
+
+    /**
+     * Outcome of a single test case.
+     */
+    public static final class TestResult {
+
+        private final Status status;
+        private final String output;
+        private final String message;
+        private final long cpuMillis;
+
+        TestResult(Status status, String output, String message, long cpuMillis) {
+            this.status = status;
+            this.output = output;
+            this.message = message;
+            this.cpuMillis = cpuMillis;
+        }
+
+        public Status getStatus() {
+            return status;
+        }
+
+        public String getOutput() {
+            return output;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        public long getCpuMillis() {
+            return cpuMillis;
+        }
+    }
+}
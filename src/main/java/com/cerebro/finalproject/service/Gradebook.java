@@ -0,0 +1,146 @@
+package com.cerebro.finalproject.service;
+
+import java.util.Locale;
+
+/**
+ * Scores of every enrolled student on every quiz of a classroom.
+ *
+ * Students are rows (by name) and quizzes columns (by creation). Scores are kept in one row-major
+ * double array, NaN where the student has no attempt, together with the per-student totals and
+ * per-quiz averages, so a class of any size is a handful of arrays rather than an object per cell.
+ */
+public final class Gradebook {
+
+    private final Long classroomId;
+
+    private final long[] studentIds;
+    private final String[] studentNames;
+    private final String[] studentEmails;
+
+    private final long[] quizIds;
+    private final String[] quizTitles;
+    private final double[] quizTotalPoints;
+
+    // scores[student * quizCount + quiz]
+    private final double[] scores;
+
+    private final double[] studentTotals;
+    private final double[] studentPossible;
+    private final int[] studentAttempts;
+    private final double[] quizScoreSums;
+    private final int[] quizAttempts;
+
+    Gradebook(Long classroomId, long[] studentIds, String[] studentNames, String[] studentEmails,
+              long[] quizIds, String[] quizTitles, double[] quizTotalPoints, double[] scores) {
+        this.classroomId = classroomId;
+        this.studentIds = studentIds;
+        this.studentNames = studentNames;
+        this.studentEmails = studentEmails;
+        this.quizIds = quizIds;
+        this.quizTitles = quizTitles;
+        this.quizTotalPoints = quizTotalPoints;
+        this.scores = scores;
+
+        int studentCount = studentIds.length;
+        int quizCount = quizIds.length;
+        studentTotals = new double[studentCount];
+        studentPossible = new double[studentCount];
+        studentAttempts = new int[studentCount];
+        quizScoreSums = new double[quizCount];
+        quizAttempts = new int[quizCount];
+        for (int s = 0; s < studentCount; s++) {
+            for (int q = 0; q < quizCount; q++) {
+                double score = scores[s * quizCount + q];
+                if (!Double.isNaN(score)) {
+                    studentTotals[s] += score;
+                    studentPossible[s] += quizTotalPoints[q];
+                    studentAttempts[s]++;
+                    quizScoreSums[q] += score;
+                    quizAttempts[q]++;
+                }
+            }
+        }
+    }
+
+    public Long getClassroomId() { return classroomId; }
+
+    public int getStudentCount() { return studentIds.length; }
+
+    public int getQuizCount() { return quizIds.length; }
+
+    // Row and column indexes, for iterating in templates
+    public int[] getStudentRows() {
+        return indexes(studentIds.length);
+    }
+
+    public int[] getQuizColumns() {
+        return indexes(quizIds.length);
+    }
+
+    public long getStudentId(int student) { return studentIds[student]; }
+
+    public String getStudentName(int student) { return studentNames[student]; }
+
+    public String getStudentEmail(int student) { return studentEmails[student]; }
+
+    public long getQuizId(int quiz) { return quizIds[quiz]; }
+
+    public String getQuizTitle(int quiz) { return quizTitles[quiz]; }
+
+    public double getQuizTotalPoints(int quiz) { return quizTotalPoints[quiz]; }
+
+    // Null if the student has not taken the quiz
+    public Double getScore(int student, int quiz) {
+        double score = scores[student * quizIds.length + quiz];
+        return Double.isNaN(score) ? null : score;
+    }
+
+    public double getStudentTotal(int student) { return studentTotals[student]; }
+
+    public int getStudentAttempts(int student) { return studentAttempts[student]; }
+
+    // Share of the points of the quizzes the student took, in percent; null if they took none
+    public Double getStudentPercentage(int student) {
+        return studentPossible[student] > 0 ? studentTotals[student] / studentPossible[student] * 100 : null;
+    }
+
+    public int getQuizAttempts(int quiz) { return quizAttempts[quiz]; }
+
+    // Mean score of the students who took the quiz; null if nobody did
+    public Double getQuizAverage(int quiz) {
+        return quizAttempts[quiz] > 0 ? quizScoreSums[quiz] / quizAttempts[quiz] : null;
+    }
+
+    // Cell text for the gradebook table: the score, or "-" if the quiz was not taken
+    public String getScoreText(int student, int quiz) {
+        double score = scores[student * quizIds.length + quiz];
+        return Double.isNaN(score) ? "-" : format(score);
+    }
+
+    /**
+     * The student's score cells as table markup, one &lt;td&gt; per quiz. Rendering a large class
+     * cell by cell in the template costs an expression evaluation per cell; a row at a time keeps
+     * the page fast. Only numbers and "-" are written, so the markup needs no escaping.
+     */
+    public String getScoreCellsHtml(int student) {
+        int quizCount = quizIds.length;
+        StringBuilder html = new StringBuilder(quizCount * 12);
+        for (int q = 0; q < quizCount; q++) {
+            double score = scores[student * quizCount + q];
+            html.append("<td>").append(Double.isNaN(score) ? "-" : format(score)).append("</td>");
+        }
+        return html.toString();
+    }
+
+    private static int[] indexes(int count) {
+        int[] indexes = new int[count];
+        for (int i = 0; i < count; i++) {
+            indexes[i] = i;
+        }
+        return indexes;
+    }
+
+    static String format(double value) {
+        return value == Math.rint(value) ? Long.toString((long) value) : String.format(Locale.ROOT, "%.2f", value);
+    }
+}
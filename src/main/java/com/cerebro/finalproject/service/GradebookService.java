@@ -0,0 +1,110 @@
+package com.cerebro.finalproject.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Builds the gradebook of a classroom.
+ *
+ * The enrolled students and the classroom's quizzes are read first, then one grouped query
+ * returns a single score per student and quiz, which is written straight into the score array.
+ */
+@Service
+public class GradebookService {
+
+    private final JdbcTemplate streamingJdbcTemplate;
+
+    public GradebookService(DataSource dataSource, @Value("${app.reports.fetch-size:1000}") int fetchSize) {
+        this.streamingJdbcTemplate = new JdbcTemplate(dataSource);
+        this.streamingJdbcTemplate.setFetchSize(fetchSize);
+    }
+
+    @Transactional(readOnly = true)
+    public Gradebook build(Long classroomId) {
+        List<Long> studentIdList = new ArrayList<>();
+        List<String> studentNames = new ArrayList<>();
+        List<String> studentEmails = new ArrayList<>();
+        streamingJdbcTemplate.query(
+                "SELECT u.id, u.name, u.email FROM classroom_students cs JOIN users u ON u.id = cs.student_id " +
+                        "WHERE cs.classroom_id = ? ORDER BY u.name, u.id",
+                rs -> {
+                    studentIdList.add(rs.getLong(1));
+                    studentNames.add(rs.getString(2));
+                    studentEmails.add(rs.getString(3));
+                }, classroomId);
+
+        List<Long> quizIdList = new ArrayList<>();
+        List<String> quizTitles = new ArrayList<>();
+        List<Double> quizTotals = new ArrayList<>();
+        streamingJdbcTemplate.query(
+                "SELECT id, title, COALESCE(total_points, 0) FROM quiz WHERE class_room_id = ? ORDER BY created_at, id",
+                rs -> {
+                    quizIdList.add(rs.getLong(1));
+                    quizTitles.add(rs.getString(2));
+                    quizTotals.add(rs.getDouble(3));
+                }, classroomId);
+
+        int studentCount = studentIdList.size();
+        int quizCount = quizIdList.size();
+        long[] studentIds = toArray(studentIdList);
+        long[] quizIds = toArray(quizIdList);
+        double[] quizTotalPoints = new double[quizCount];
+        for (int i = 0; i < quizCount; i++) {
+            quizTotalPoints[i] = quizTotals.get(i);
+        }
+
+        // Ids -> row and column, looked up by binary search while reading the scores
+        long[] sortedStudentIds = studentIds.clone();
+        Arrays.sort(sortedStudentIds);
+        int[] rowOf = slots(studentIds, sortedStudentIds);
+        long[] sortedQuizIds = quizIds.clone();
+        Arrays.sort(sortedQuizIds);
+        int[] columnOf = slots(quizIds, sortedQuizIds);
+
+        double[] scores = new double[studentCount * quizCount];
+        Arrays.fill(scores, Double.NaN);
+        if (studentCount > 0 && quizCount > 0) {
+            // One attempt per student and quiz is enforced, MAX only guards older duplicates
+            streamingJdbcTemplate.query(
+                    "SELECT t.student_id, t.quiz_id, MAX(COALESCE(t.score, 0)) FROM attempt t " +
+                            "JOIN quiz q ON q.id = t.quiz_id WHERE q.class_room_id = ? " +
+                            "GROUP BY t.student_id, t.quiz_id",
+                    rs -> {
+                        int student = Arrays.binarySearch(sortedStudentIds, rs.getLong(1));
+                        int quiz = Arrays.binarySearch(sortedQuizIds, rs.getLong(2));
+                        // Attempts of students who left the class are not shown
+                        if (student >= 0 && quiz >= 0) {
+                            scores[rowOf[student] * quizCount + columnOf[quiz]] = rs.getDouble(3);
+                        }
+                    }, classroomId);
+        }
+
+        return new Gradebook(classroomId, studentIds, studentNames.toArray(new String[0]),
+                studentEmails.toArray(new String[0]), quizIds, quizTitles.toArray(new String[0]),
+                quizTotalPoints, scores);
+    }
+
+    private static long[] toArray(List<Long> values) {
+        long[] array = new long[values.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = values.get(i);
+        }
+        return array;
+    }
+
+    // For each position in sortedIds, the index of that id in ids
+    private static int[] slots(long[] ids, long[] sortedIds) {
+        int[] slots = new int[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            slots[Arrays.binarySearch(sortedIds, ids[i])] = i;
+        }
+        return slots;
+    }
+}
@@ -0,0 +1,43 @@
+package com.cerebro.finalproject.service;
+
+/**
+ * Result of grading one question of a submission against an {@link AnswerKey}.
+ */
+public final class GradedAnswer {
+
+    private final Long questionId;
+    private final Long choiceId;
+    private final String givenText;
+    private final boolean correct;
+    private final double points;
+
+    GradedAnswer(Long questionId, Long choiceId, String givenText, boolean correct, double points) {
+        this.questionId = questionId;
+        this.choiceId = choiceId;
+        this.givenText = givenText;
+        this.correct = correct;
+        this.points = points;
+    }
+
+    public Long getQuestionId() {
+        return questionId;
+    }
+
+    // Selected choice for MCQ questions, null if none or not a choice of this question
+    public Long getChoiceId() {
+        return choiceId;
+    }
+
+    public String getGivenText() {
+        return givenText;
+    }
+
+    public boolean isCorrect() {
+        return correct;
+    }
+
+    // Points earned for this question
+    public double getEarnedPoints() {
+        return correct ? points : 0.0;
+    }
+}
@@ -0,0 +1,180 @@
+package com.cerebro.finalproject.service;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileManager;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Compiles a single Java source file in memory with the system compiler.
+ * Class files never touch the disk; the result is a map of binary class name to bytecode.
+ */
+class InMemoryJavaCompiler {
+
+    private static final Pattern PUBLIC_CLASS =
+            Pattern.compile("\\bpublic\\s+(?:final\\s+|abstract\\s+)*class\\s+([A-Za-z_$][A-Za-z0-9_$]*)");
+    private static final Pattern ANY_CLASS = Pattern.compile("\\bclass\\s+([A-Za-z_$][A-Za-z0-9_$]*)");
+
+    private static final List<String> OPTIONS = Arrays.asList(
+            "-proc:none", "-g:none", "-nowarn", "-implicit:none", "-XDstringConcat=inline");
+
+    private final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+
+    // The standard file manager caches the platform classes javac reads, which makes up most of the
+    // cost of a cold compilation; it is not thread-safe, so each compiling thread keeps its own
+    private final ThreadLocal<StandardJavaFileManager> fileManagers = ThreadLocal.withInitial(
+            () -> compiler.getStandardFileManager(null, null, StandardCharsets.UTF_8));
+
+    // False when running on a JRE without javac
+    boolean isAvailable() {
+        return compiler != null;
+    }
+
+    Result compile(String source) {
+        String className = mainClassName(source);
+        if (className == null) {
+            return Result.failure("No class declaration found");
+        }
+
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        ClassOutput output = new ClassOutput(fileManagers.get());
+
+        JavaFileObject unit = new SourceUnit(className, source);
+        Boolean ok = compiler.getTask(null, output, diagnostics, OPTIONS, null, Collections.singletonList(unit)).call();
+
+        if (!Boolean.TRUE.equals(ok)) {
+            StringBuilder message = new StringBuilder();
+            for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+                if (diagnostic.getKind() == Diagnostic.Kind.ERROR) {
+                    message.append("Line ").append(diagnostic.getLineNumber()).append(": ")
+                            .append(diagnostic.getMessage(null)).append('\n');
+                }
+            }
+            return Result.failure(message.toString().trim());
+        }
+
+        return Result.success(className, output.classes());
+    }
+
+    // Name of the public class, or of the first class when none is public
+    static String mainClassName(String source) {
+        Matcher matcher = PUBLIC_CLASS.matcher(source);
+        if (matcher.find()) {
+            return matcher.group(1);
+        }
+        matcher = ANY_CLASS.matcher(source);
+        return matcher.find() ? matcher.group(1) : null;
+    }
+
+    /**
+     * Outcome of one compilation: either bytecode plus the main class name, or an error message.
+     */
+    static final class Result {
+
+        private final String mainClass;
+        private final Map<String, byte[]> classes;
+        private final String error;
+
+        private Result(String mainClass, Map<String, byte[]> classes, String error) {
+            this.mainClass = mainClass;
+            this.classes = classes;
+            this.error = error;
+        }
+
+        static Result success(String mainClass, Map<String, byte[]> classes) {
+            return new Result(mainClass, Collections.unmodifiableMap(classes), null);
+        }
+
+        static Result failure(String error) {
+            return new Result(null, Collections.emptyMap(), error);
+        }
+
+        boolean isSuccess() {
+            return error == null;
+        }
+
+        String getMainClass() {
+            return mainClass;
+        }
+
+        Map<String, byte[]> getClasses() {
+            return classes;
+        }
+
+        String getError() {
+            return error;
+        }
+    }
+
+    private static final class SourceUnit extends SimpleJavaFileObject {
+
+        private final String source;
+
+        SourceUnit(String className, String source) {
+            super(URI.create("string:///" + className + Kind.SOURCE.extension), Kind.SOURCE);
+            this.source = source;
+        }
+
+        @Override
+        public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+            return source;
+        }
+    }
+
+    private static final class ClassUnit extends SimpleJavaFileObject {
+
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        ClassUnit(String className) {
+            super(URI.create("bytes:///" + className.replace('.', '/') + Kind.CLASS.extension), Kind.CLASS);
+        }
+
+        @Override
+        public OutputStream openOutputStream() {
+            return bytes;
+        }
+    }
+
+    // Collects generated class files in memory instead of writing them next to the source
+    private static final class ClassOutput extends ForwardingJavaFileManager<JavaFileManager> {
+
+        private final Map<String, ClassUnit> units = new HashMap<>();
+
+        ClassOutput(JavaFileManager delegate) {
+            super(delegate);
+        }
+
+        @Override
+        public JavaFileObject getJavaFileForOutput(Location location, String className,
+                                                   JavaFileObject.Kind kind, FileObject sibling) {
+            ClassUnit unit = new ClassUnit(className);
+            units.put(className, unit);
+            return unit;
+        }
+
+        Map<String, byte[]> classes() {
+            Map<String, byte[]> classes = new HashMap<>();
+            for (Map.Entry<String, ClassUnit> entry : units.entrySet()) {
+                classes.put(entry.getKey(), entry.getValue().bytes.toByteArray());
+            }
+            return classes;
+        }
+    }
+}
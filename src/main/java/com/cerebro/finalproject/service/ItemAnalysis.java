@@ -0,0 +1,117 @@
+package com.cerebro.finalproject.service;
+
+import com.cerebro.finalproject.model.Question;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Per-question item analysis of a quiz: how hard each question was and how well it separates
+ * the strongest students from the weakest.
+ */
+public final class ItemAnalysis {
+
+    private final Long quizId;
+    private final int attemptCount;
+    private final int groupSize;
+    private final List<Item> items;
+
+    ItemAnalysis(Long quizId, int attemptCount, int groupSize, List<Item> items) {
+        this.quizId = quizId;
+        this.attemptCount = attemptCount;
+        this.groupSize = groupSize;
+        this.items = Collections.unmodifiableList(items);
+    }
+
+    public Long getQuizId() {
+        return quizId;
+    }
+
+    public int getAttemptCount() {
+        return attemptCount;
+    }
+
+    // Attempts in each of the top and bottom score groups
+    public int getGroupSize() {
+        return groupSize;
+    }
+
+    public List<Item> getItems() {
+        return items;
+    }
+
+    /**
+     * Statistics of one question.
+     */
+    public static final class Item {
+
+        private final Long questionId;
+        private final int number;
+        private final String text;
+        private final Question.QuestionType type;
+        private final int answered;
+        private final int correct;
+        private final Double difficulty;
+        private final Double discrimination;
+        private final String topWrongChoice;
+        private final int topWrongChoiceCount;
+
+        Item(Long questionId, int number, String text, Question.QuestionType type, int answered, int correct,
+             Double difficulty, Double discrimination, String topWrongChoice, int topWrongChoiceCount) {
+            this.questionId = questionId;
+            this.number = number;
+            this.text = text;
+            this.type = type;
+            this.answered = answered;
+            this.correct = correct;
+            this.difficulty = difficulty;
+            this.discrimination = discrimination;
+            this.topWrongChoice = topWrongChoice;
+            this.topWrongChoiceCount = topWrongChoiceCount;
+        }
+
+        public Long getQuestionId() {
+            return questionId;
+        }
+
+        // 1-based position in the quiz
+        public int getNumber() {
+            return number;
+        }
+
+        public String getText() {
+            return text;
+        }
+
+        public Question.QuestionType getType() {
+            return type;
+        }
+
+        public int getAnswered() {
+            return answered;
+        }
+
+        public int getCorrect() {
+            return correct;
+        }
+
+        // Share of answers that were correct (0..1); null for essays and unanswered questions
+        public Double getDifficulty() {
+            return difficulty;
+        }
+
+        // Correct share in the top group minus the bottom group (-1..1); null if it cannot be computed
+        public Double getDiscrimination() {
+            return discrimination;
+        }
+
+        // Text of the wrong choice picked most often, or null
+        public String getTopWrongChoice() {
+            return topWrongChoice;
+        }
+
+        public int getTopWrongChoiceCount() {
+            return topWrongChoiceCount;
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package com.cerebro.finalproject.service;
+
+import com.cerebro.finalproject.model.Choice;
+import com.cerebro.finalproject.model.Question;
+import com.cerebro.finalproject.repository.QuestionRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Builds the item analysis report of a quiz.
+ *
+ * Attempts are ranked by score once to mark the top and bottom 27% (the usual Kelley groups).
+ * The quiz's answers are then read in a single forward-only pass, straight from the result set
+ * into primitive counters indexed by question and choice, without creating an object per answer.
+ */
+@Service
+public class ItemAnalysisService {
+
+    // Share of attempts in each of the top and bottom groups
+    static final double GROUP_SHARE = 0.27;
+
+    private static final byte BOTTOM = -1;
+    private static final byte TOP = 1;
+
+    @Autowired
+    private QuestionRepository questionRepository;
+
+    // Own template so the large answer scan streams in fetch-size batches instead of being buffered
+    private final JdbcTemplate streamingJdbcTemplate;
+
+    public ItemAnalysisService(DataSource dataSource, @Value("${app.reports.fetch-size:1000}") int fetchSize) {
+        this.streamingJdbcTemplate = new JdbcTemplate(dataSource);
+        this.streamingJdbcTemplate.setFetchSize(fetchSize);
+    }
+
+    @Transactional(readOnly = true)
+    public ItemAnalysis analyze(Long quizId) {
+        List<Question> questions = questionRepository.findByQuizIdWithChoices(quizId);
+
+        // Question and choice ids -> dense indexes, looked up by binary search during the scan
+        int questionCount = questions.size();
+        long[] questionIds = new long[questionCount];
+        for (int i = 0; i < questionCount; i++) {
+            questionIds[i] = questions.get(i).getId();
+        }
+        long[] sortedQuestionIds = questionIds.clone();
+        Arrays.sort(sortedQuestionIds);
+        int[] questionSlot = new int[questionCount];
+        for (int i = 0; i < questionCount; i++) {
+            questionSlot[Arrays.binarySearch(sortedQuestionIds, questionIds[i])] = i;
+        }
+
+        List<Choice> choices = new ArrayList<>();
+        for (Question question : questions) {
+            choices.addAll(question.getChoices());
+        }
+        choices.sort((a, b) -> Long.compare(a.getId(), b.getId()));
+        long[] choiceIds = new long[choices.size()];
+        for (int i = 0; i < choiceIds.length; i++) {
+            choiceIds[i] = choices.get(i).getId();
+        }
+
+        // Attempts in id order, so an answer's attempt is found by binary search
+        AttemptScores attempts = new AttemptScores();
+        streamingJdbcTemplate.query("SELECT id, COALESCE(score, 0) FROM attempt WHERE quiz_id = ? ORDER BY id",
+                rs -> {
+                    attempts.add(rs.getLong(1), rs.getDouble(2));
+                }, quizId);
+        int attemptCount = attempts.size;
+        long[] attemptIds = attempts.ids;
+        int groupSize = attemptCount < 2 ? 0 : Math.max(1, (int) Math.round(attemptCount * GROUP_SHARE));
+        byte[] attemptGroups = attempts.groups(groupSize);
+
+        int[] answered = new int[questionCount];
+        int[] correct = new int[questionCount];
+        int[] topCorrect = new int[questionCount];
+        int[] bottomCorrect = new int[questionCount];
+        int[] wrongPicks = new int[choiceIds.length];
+
+        streamingJdbcTemplate.query(
+                "SELECT a.attempt_id, a.question_id, a.choice_id, a.correct FROM answer a " +
+                        "JOIN question q ON q.id = a.question_id WHERE q.quiz_id = ?",
+                rs -> {
+                    int question = Arrays.binarySearch(sortedQuestionIds, rs.getLong(2));
+                    if (question < 0) {
+                        return;
+                    }
+                    question = questionSlot[question];
+                    boolean isCorrect = rs.getBoolean(4);
+
+                    answered[question]++;
+                    int attempt = Arrays.binarySearch(attemptIds, 0, attemptCount, rs.getLong(1));
+                    byte group = attempt >= 0 ? attemptGroups[attempt] : 0;
+                    if (isCorrect) {
+                        correct[question]++;
+                        if (group == TOP) {
+                            topCorrect[question]++;
+                        } else if (group == BOTTOM) {
+                            bottomCorrect[question]++;
+                        }
+                    } else {
+                        long choiceId = rs.getLong(3);
+                        if (!rs.wasNull()) {
+                            int choice = Arrays.binarySearch(choiceIds, choiceId);
+                            if (choice >= 0) {
+                                wrongPicks[choice]++;
+                            }
+                        }
+                    }
+                }, quizId);
+
+        // Most picked wrong choice per question
+        int[] topWrong = new int[questionCount];
+        Arrays.fill(topWrong, -1);
+        for (int i = 0; i < choiceIds.length; i++) {
+            if (wrongPicks[i] == 0) {
+                continue;
+            }
+            int question = questionSlot[Arrays.binarySearch(sortedQuestionIds, choices.get(i).getQuestion().getId())];
+            if (topWrong[question] < 0 || wrongPicks[i] > wrongPicks[topWrong[question]]) {
+                topWrong[question] = i;
+            }
+        }
+
+        List<ItemAnalysis.Item> items = new ArrayList<>(questionCount);
+        for (int i = 0; i < questionCount; i++) {
+            Question question = questions.get(i);
+            boolean essay = question.getType() == Question.QuestionType.ESSAY;
+            Double difficulty = essay || answered[i] == 0 ? null : (double) correct[i] / answered[i];
+            Double discrimination = essay || groupSize == 0 ? null
+                    : (double) (topCorrect[i] - bottomCorrect[i]) / groupSize;
+            items.add(new ItemAnalysis.Item(question.getId(), i + 1, question.getText(), question.getType(),
+                    answered[i], correct[i], difficulty, discrimination,
+                    topWrong[i] >= 0 ? choices.get(topWrong[i]).getText() : null,
+                    topWrong[i] >= 0 ? wrongPicks[topWrong[i]] : 0));
+        }
+        return new ItemAnalysis(quizId, attemptCount, groupSize, items);
+    }
+
+    // Growable primitive arrays of attempt ids (ascending) and scores
+    private static final class AttemptScores {
+
+        private long[] ids = new long[1024];
+        private double[] scores = new double[1024];
+        private int size;
+
+        void add(long id, double score) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                scores = Arrays.copyOf(scores, size * 2);
+            }
+            ids[size] = id;
+            scores[size] = score;
+            size++;
+        }
+
+        // TOP for the groupSize best scores, BOTTOM for the groupSize worst; ties at a cut go by id
+        byte[] groups(int groupSize) {
+            byte[] groups = new byte[size];
+            if (groupSize == 0) {
+                return groups;
+            }
+            double[] sorted = Arrays.copyOf(scores, size);
+            Arrays.sort(sorted);
+            double topCut = sorted[size - groupSize];
+            double bottomCut = sorted[groupSize - 1];
+
+            int topLeft = groupSize;
+            for (int i = 0; i < size; i++) {
+                if (scores[i] > topCut) {
+                    groups[i] = TOP;
+                    topLeft--;
+                }
+            }
+            for (int i = 0; i < size && topLeft > 0; i++) {
+                if (scores[i] == topCut && groups[i] == 0) {
+                    groups[i] = TOP;
+                    topLeft--;
+                }
+            }
+
+            int bottomLeft = groupSize;
+            for (int i = 0; i < size; i++) {
+                if (scores[i] < bottomCut && groups[i] == 0) {
+                    groups[i] = BOTTOM;
+                    bottomLeft--;
+                }
+            }
+            for (int i = size - 1; i >= 0 && bottomLeft > 0; i--) {
+                if (scores[i] == bottomCut && groups[i] == 0) {
+                    groups[i] = BOTTOM;
+                    bottomLeft--;
+                }
+            }
+            return groups;
+        }
+    }
+}
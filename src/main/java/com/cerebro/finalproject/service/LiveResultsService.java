@@ -0,0 +1,267 @@
+package com.cerebro.finalproject.service;
+
+import com.cerebro.finalproject.repository.QuizScoreSummary;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pushes new attempts and the updated summary to teachers watching a quiz's results page, as
+ * Server-Sent Events.
+ *
+ * Committed submissions arrive as {@link AttemptSubmittedEvent}s and are queued per quiz. One
+ * background thread drains a quiz's queue, reads its summary once and hands the same message to
+ * every watcher of that quiz, so a burst of submissions costs one summary read per flush however
+ * many teachers are watching, and nothing at all when nobody is. Each watcher writes its messages
+ * in order on a sender thread of its own while it has any, so a slow client only delays itself; one
+ * that falls more than {@value #MAX_BACKLOG} messages behind is disconnected. A quiz's entries are
+ * dropped when its last watcher goes away.
+ */
+@Service
+public class LiveResultsService {
+
+    private static final Logger log = LoggerFactory.getLogger(LiveResultsService.class);
+
+    static final int MAX_BACKLOG = 50;
+
+    @Autowired
+    private QuizStatsService quizStatsService;
+
+    private final long timeoutMillis;
+
+    // Watchers per quiz id; changed only through compute, so a quiz is never forgotten while watched
+    private final Map<Long, List<Watcher>> watchers = new ConcurrentHashMap<>();
+
+    // Attempts not yet pushed, and whether a flush is queued, per quiz id
+    private final Map<Long, Queue<AttemptSubmittedEvent>> pending = new ConcurrentHashMap<>();
+    private final Map<Long, AtomicBoolean> flushQueued = new ConcurrentHashMap<>();
+
+    // Summaries are read here, so a submitting request never waits for one
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "live-results");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Writes to the clients; at most one thread per watcher with messages to send
+    private final AtomicInteger senderNumber = new AtomicInteger();
+    private final ExecutorService senders = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "live-results-send-" + senderNumber.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public LiveResultsService(@Value("${app.live.timeout-ms:1800000}") long timeoutMillis) {
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    /**
+     * Opens an event stream for the quiz; the current summary is sent first. Nothing is read on the
+     * calling request thread: with open-in-view its connection would stay checked out for as long
+     * as the stream is open.
+     */
+    public SseEmitter watch(Long quizId) {
+        return watch(quizId, new SseEmitter(timeoutMillis));
+    }
+
+    SseEmitter watch(Long quizId, SseEmitter emitter) {
+        Watcher watcher = new Watcher(quizId, emitter);
+        watchers.compute(quizId, (id, quizWatchers) -> {
+            List<Watcher> updated = quizWatchers != null ? quizWatchers : new CopyOnWriteArrayList<>();
+            updated.add(watcher);
+            return updated;
+        });
+        emitter.onCompletion(() -> unwatch(watcher));
+        emitter.onTimeout(() -> unwatch(watcher));
+        emitter.onError(error -> unwatch(watcher));
+
+        executor.execute(() -> {
+            try {
+                watcher.offer(message(quizId, List.of()));
+            } catch (RuntimeException e) {
+                unwatch(watcher);
+                emitter.completeWithError(e);
+            }
+        });
+        return emitter;
+    }
+
+    public int getWatcherCount(Long quizId) {
+        List<Watcher> quizWatchers = watchers.get(quizId);
+        return quizWatchers != null ? quizWatchers.size() : 0;
+    }
+
+    // Whether anything is still kept for the quiz
+    boolean isTracked(Long quizId) {
+        return watchers.containsKey(quizId) || pending.containsKey(quizId) || flushQueued.containsKey(quizId);
+    }
+
+    private void unwatch(Watcher watcher) {
+        watchers.computeIfPresent(watcher.quizId, (id, quizWatchers) -> {
+            quizWatchers.remove(watcher);
+            return quizWatchers;
+        });
+        forgetIfUnwatched(watcher.quizId);
+    }
+
+    // Drops the quiz's entries if nobody watches it any more
+    private void forgetIfUnwatched(Long quizId) {
+        watchers.compute(quizId, (id, quizWatchers) -> {
+            if (quizWatchers != null && !quizWatchers.isEmpty()) {
+                return quizWatchers;
+            }
+            pending.remove(id);
+            flushQueued.remove(id);
+            return null;
+        });
+    }
+
+    @TransactionalEventListener
+    public void onAttemptSubmitted(AttemptSubmittedEvent event) {
+        Long quizId = event.getQuizId();
+        if (getWatcherCount(quizId) == 0) {
+            return;
+        }
+        pending.computeIfAbsent(quizId, id -> new ConcurrentLinkedQueue<>()).add(event);
+        AtomicBoolean queued = flushQueued.computeIfAbsent(quizId, id -> new AtomicBoolean());
+        if (queued.compareAndSet(false, true)) {
+            executor.execute(() -> flush(quizId, queued));
+        }
+    }
+
+    private void flush(Long quizId, AtomicBoolean queued) {
+        // Cleared first: events arriving from here on queue another flush
+        queued.set(false);
+        List<AttemptSubmittedEvent> attempts = new ArrayList<>();
+        Queue<AttemptSubmittedEvent> queue = pending.get(quizId);
+        AttemptSubmittedEvent next;
+        while (queue != null && (next = queue.poll()) != null) {
+            attempts.add(next);
+        }
+        List<Watcher> quizWatchers = watchers.get(quizId);
+        if (quizWatchers == null || quizWatchers.isEmpty()) {
+            // The last watcher left after the event was queued
+            forgetIfUnwatched(quizId);
+            return;
+        }
+        if (attempts.isEmpty()) {
+            return;
+        }
+
+        try {
+            Map<String, Object> message = message(quizId, attempts);
+            for (Watcher watcher : quizWatchers) {
+                watcher.offer(message);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Could not push live results of quiz {}", quizId, e);
+        }
+    }
+    private Map<String, Object> message(Long quizId, List<AttemptSubmittedEvent> attempts) {
+        QuizScoreSummary summary = quizStatsService.getSummary(quizId);
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (AttemptSubmittedEvent attempt : attempts) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("id", attempt.getAttemptId());
+            row.put("studentName", attempt.getStudentName());
+            row.put("score", attempt.getScore());
+            row.put("submittedAt", attempt.getSubmittedAt());
+            rows.add(row);
+        }
+
+        Map<String, Object> message = new LinkedHashMap<>();
+        message.put("quizId", quizId);
+        message.put("attemptCount", summary.getCount());
+        message.put("averagePercentage", summary.getAveragePercentage());
+        message.put("maxScore", summary.getMaxScore());
+        message.put("minScore", summary.getMinScore());
+        message.put("attempts", rows);
+        return message;
+    }
+
+    // One open stream and the messages it has yet to write
+    private final class Watcher {
+
+        private final Long quizId;
+        private final SseEmitter emitter;
+        private final Queue<Map<String, Object>> outbox = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger backlog = new AtomicInteger();
+        private final AtomicBoolean sending = new AtomicBoolean();
+
+        Watcher(Long quizId, SseEmitter emitter) {
+            this.quizId = quizId;
+            this.emitter = emitter;
+        }
+
+        void offer(Map<String, Object> message) {
+            if (backlog.incrementAndGet() > MAX_BACKLOG) {
+                // Not keeping up; the page reconnects and starts over from the current summary
+                unwatch(this);
+                emitter.completeWithError(new IOException("Live results client too slow"));
+                return;
+            }
+            outbox.add(message);
+            startSending();
+        }
+
+        private void startSending() {
+            if (!sending.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                senders.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                // Shutting down
+                sending.set(false);
+            }
+        }
+
+        private void drain() {
+            try {
+                Map<String, Object> message;
+                while ((message = outbox.poll()) != null) {
+                    backlog.decrementAndGet();
+                    emitter.send(SseEmitter.event().name("results").data(message, MediaType.APPLICATION_JSON));
+                }
+            } catch (IOException | IllegalStateException e) {
+                // Client went away
+                outbox.clear();
+                unwatch(this);
+                return;
+            } finally {
+                sending.set(false);
+            }
+            // A message may have been added after the last poll but before sending was cleared
+            if (!outbox.isEmpty()) {
+                startSending();
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+        senders.shutdownNow();
+    }
+}
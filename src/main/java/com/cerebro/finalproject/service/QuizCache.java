@@ -0,0 +1,89 @@
+package com.cerebro.finalproject.service;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.function.Function;
+
+/**
+ * Bounded LRU cache of one immutable value per quiz. Concurrent callers for the same quiz wait
+ * for a single load instead of each querying; a load that fails or finds nothing is not cached.
+ */
+final class QuizCache<V> {
+
+    private final String name;
+    private final Map<Long, FutureTask<V>> cache;
+
+    QuizCache(String name, int maxEntries) {
+        this.name = name;
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, FutureTask<V>> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    // The quiz's value, loaded on a miss; null if the loader found nothing
+    V get(Long quizId, Function<Long, V> loader) {
+        FutureTask<V> task;
+        boolean owner = false;
+        synchronized (cache) {
+            task = cache.get(quizId);
+            if (task == null) {
+                task = new FutureTask<>(() -> loader.apply(quizId));
+                cache.put(quizId, task);
+                owner = true;
+            }
+        }
+
+        if (owner) {
+            task.run();
+        }
+
+        try {
+            V value = task.get();
+            if (value == null) {
+                remove(quizId, task);
+            }
+            return value;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while loading " + name + " for quiz " + quizId, e);
+        } catch (ExecutionException e) {
+            remove(quizId, task);
+            throw new IllegalStateException("Failed to load " + name + " for quiz " + quizId, e.getCause());
+        }
+    }
+
+    /**
+     * Drops the cached value of a quiz. When called inside a transaction it is dropped again
+     * after completion, so a value rebuilt from not-yet-committed data cannot outlive the change.
+     */
+    void evict(Long quizId) {
+        synchronized (cache) {
+            cache.remove(quizId);
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    synchronized (cache) {
+                        cache.remove(quizId);
+                    }
+                }
+            });
+        }
+    }
+
+    private void remove(Long quizId, FutureTask<V> task) {
+        synchronized (cache) {
+            cache.remove(quizId, task);
+        }
+    }
+}
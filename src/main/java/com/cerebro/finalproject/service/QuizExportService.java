@@ -0,0 +1,168 @@
+package com.cerebro.finalproject.service;
+
+import com.cerebro.finalproject.model.Question;
+import com.cerebro.finalproject.repository.AnswerMatrixRow;
+import com.cerebro.finalproject.repository.AttemptListRow;
+import com.cerebro.finalproject.repository.AttemptRepository;
+import com.cerebro.finalproject.repository.QuestionRepository;
+import com.cerebro.finalproject.repository.QuizRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Stream;
+
+/**
+ * Writes a quiz's results as CSV: one line per attempt, or the attempt x question answer matrix.
+ *
+ * Rows are streamed from a database cursor straight into a buffered writer, so memory use does
+ * not depend on the number of attempts: at most one attempt's answers are held at a time. Each
+ * export runs in its own read-only transaction, since it is written outside the request thread.
+ */
+@Service
+public class QuizExportService {
+
+    @Autowired
+    private AttemptRepository attemptRepository;
+
+    @Autowired
+    private QuestionRepository questionRepository;
+
+    @Autowired
+    private QuizRepository quizRepository;
+
+    private static final DateTimeFormatter SUBMITTED_AT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private final TransactionTemplate readOnlyTransaction;
+
+    public QuizExportService(PlatformTransactionManager transactionManager) {
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    public void writeAttempts(Long quizId, OutputStream out) {
+        readOnlyTransaction.executeWithoutResult(status -> {
+            Double totalPoints = quizRepository.findTotalPoints(quizId);
+            try (Stream<AttemptListRow> rows = attemptRepository.streamListRows(quizId);
+                 CsvWriter csv = new CsvWriter(out)) {
+                csv.cell("Attempt ID").cell("Student").cell("Email").cell("Score").cell("Total Points")
+                        .cell("Percentage").cell("Submitted At").endRow();
+                Iterator<AttemptListRow> iterator = rows.iterator();
+                while (iterator.hasNext()) {
+                    AttemptListRow row = iterator.next();
+                    csv.cell(row.getId()).cell(row.getStudentName()).cell(row.getStudentEmail())
+                            .cell(row.getScore()).cell(totalPoints).cell(percentage(row.getScore(), totalPoints))
+                            .cell(format(row.getSubmittedAt())).endRow();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    /**
+     * Writes one line per attempt with, for every question in quiz order, the given answer and
+     * the points it earned. Unanswered questions are left empty; ungraded essays have no points.
+     */
+    public void writeAnswerMatrix(Long quizId, OutputStream out) {
+        readOnlyTransaction.executeWithoutResult(status -> {
+            List<Question> questions = questionRepository.findByQuizIdOrderByQIndexAsc(quizId);
+            int questionCount = questions.size();
+
+            // Question id -> column, looked up by binary search
+            long[] sortedQuestionIds = new long[questionCount];
+            for (int i = 0; i < questionCount; i++) {
+                sortedQuestionIds[i] = questions.get(i).getId();
+            }
+            Arrays.sort(sortedQuestionIds);
+            int[] columnOf = new int[questionCount];
+            for (int i = 0; i < questionCount; i++) {
+                columnOf[Arrays.binarySearch(sortedQuestionIds, questions.get(i).getId())] = i;
+            }
+
+            String[] answers = new String[questionCount];
+            Double[] points = new Double[questionCount];
+
+            try (Stream<AnswerMatrixRow> rows = attemptRepository.streamAnswerMatrixRows(quizId);
+                 CsvWriter csv = new CsvWriter(out)) {
+                csv.cell("Attempt ID").cell("Student").cell("Email").cell("Score").cell("Submitted At");
+                for (int i = 0; i < questionCount; i++) {
+                    csv.cell("Q" + (i + 1) + " Answer").cell("Q" + (i + 1) + " Points");
+                }
+                csv.endRow();
+
+                AnswerMatrixRow current = null;
+                Iterator<AnswerMatrixRow> iterator = rows.iterator();
+                while (iterator.hasNext()) {
+                    AnswerMatrixRow row = iterator.next();
+                    if (current != null && !current.getAttemptId().equals(row.getAttemptId())) {
+                        writeMatrixLine(csv, current, answers, points);
+                    }
+                    current = row;
+                    if (row.getQuestionId() == null) {
+                        continue;
+                    }
+                    int slot = Arrays.binarySearch(sortedQuestionIds, row.getQuestionId());
+                    if (slot >= 0) {
+                        Question question = questions.get(columnOf[slot]);
+                        answers[columnOf[slot]] = answerText(question, row);
+                        points[columnOf[slot]] = earnedPoints(question, row);
+                    }
+                }
+                if (current != null) {
+                    writeMatrixLine(csv, current, answers, points);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    // Writes the attempt's line and clears the answer buffers for the next one
+    private void writeMatrixLine(CsvWriter csv, AnswerMatrixRow attempt, String[] answers, Double[] points) {
+        csv.cell(attempt.getAttemptId()).cell(attempt.getStudentName()).cell(attempt.getStudentEmail())
+                .cell(attempt.getScore()).cell(format(attempt.getSubmittedAt()));
+        for (int i = 0; i < answers.length; i++) {
+            csv.cell(answers[i]).cell(points[i]);
+        }
+        csv.endRow();
+        Arrays.fill(answers, null);
+        Arrays.fill(points, null);
+    }
+
+    private String answerText(Question question, AnswerMatrixRow row) {
+        if (question.getType() == Question.QuestionType.MCQ) {
+            return row.getChoiceText();
+        }
+        return row.getGivenText();
+    }
+
+    private Double earnedPoints(Question question, AnswerMatrixRow row) {
+        if (question.getType() == Question.QuestionType.ESSAY) {
+            return row.getEssayScore();
+        }
+        double questionPoints = question.getPoints() != null ? question.getPoints() : 1.0;
+        return row.isCorrect() ? questionPoints : 0.0;
+    }
+
+    private String format(LocalDateTime time) {
+        return time != null ? SUBMITTED_AT.format(time) : null;
+    }
+
+    private String percentage(Double score, Double totalPoints) {
+        if (score == null || totalPoints == null || totalPoints <= 0) {
+            return null;
+        }
+        return String.format(Locale.ROOT, "%.2f", score / totalPoints * 100);
+    }
+}
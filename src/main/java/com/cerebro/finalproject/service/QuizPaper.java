@@ -0,0 +1,117 @@
+package com.cerebro.finalproject.service;
+
+import com.cerebro.finalproject.model.Question;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Immutable copy of what a student sees when taking a quiz: its questions and choices in order,
+ * without answer keys. Built once per quiz by {@link QuizPaperService} and shared by every
+ * student taking it.
+ */
+public final class QuizPaper {
+
+    private final Long quizId;
+    private final Long classRoomId;
+    private final String title;
+    private final String description;
+    private final double totalPoints;
+    private final List<Item> questions;
+
+    QuizPaper(Long quizId, Long classRoomId, String title, String description, double totalPoints, List<Item> questions) {
+        this.quizId = quizId;
+        this.classRoomId = classRoomId;
+        this.title = title;
+        this.description = description;
+        this.totalPoints = totalPoints;
+        this.questions = Collections.unmodifiableList(questions);
+    }
+
+    public Long getId() {
+        return quizId;
+    }
+
+    public Long getClassRoomId() {
+        return classRoomId;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public double getTotalPoints() {
+        return totalPoints;
+    }
+
+    public List<Item> getQuestions() {
+        return questions;
+    }
+
+    /**
+     * One question of the paper.
+     */
+    public static final class Item {
+
+        private final Long id;
+        private final Question.QuestionType type;
+        private final String text;
+        private final double points;
+        private final List<Option> choices;
+
+        Item(Long id, Question.QuestionType type, String text, double points, List<Option> choices) {
+            this.id = id;
+            this.type = type;
+            this.text = text;
+            this.points = points;
+            this.choices = Collections.unmodifiableList(choices);
+        }
+
+        public Long getId() {
+            return id;
+        }
+
+        public Question.QuestionType getType() {
+            return type;
+        }
+
+        public String getText() {
+            return text;
+        }
+
+        public double getPoints() {
+            return points;
+        }
+
+        // Choices of MCQ questions, empty for the other types
+        public List<Option> getChoices() {
+            return choices;
+        }
+    }
+
+    /**
+     * One choice of an MCQ question; whether it is correct is deliberately not part of the paper.
+     */
+    public static final class Option {
+
+        private final Long id;
+        private final String text;
+
+        Option(Long id, String text) {
+            this.id = id;
+            this.text = text;
+        }
+
+        public Long getId() {
+            return id;
+        }
+
+        public String getText() {
+            return text;
+        }
+    }
+}
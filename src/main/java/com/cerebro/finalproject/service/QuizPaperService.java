@@ -0,0 +1,76 @@
+package com.cerebro.finalproject.service;
+
+import com.cerebro.finalproject.model.Choice;
+import com.cerebro.finalproject.model.Question;
+import com.cerebro.finalproject.model.Quiz;
+import com.cerebro.finalproject.repository.QuestionRepository;
+import com.cerebro.finalproject.repository.QuizRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Builds and caches the {@link QuizPaper} of each quiz, so the quiz page reads no questions or
+ * choices once the first student has opened it. Papers must be evicted whenever the quiz or one
+ * of its questions changes.
+ */
+@Service
+public class QuizPaperService {
+
+    @Autowired
+    private QuizRepository quizRepository;
+
+    @Autowired
+    private QuestionRepository questionRepository;
+
+    private final TransactionTemplate transactionTemplate;
+    private final QuizCache<QuizPaper> cache;
+
+    public QuizPaperService(PlatformTransactionManager transactionManager,
+                            @Value("${app.quiz.paper-cache-size:256}") int maxEntries) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.cache = new QuizCache<>("quiz paper", maxEntries);
+    }
+
+    public Optional<QuizPaper> getPaper(Long quizId) {
+        return Optional.ofNullable(cache.get(quizId, id -> transactionTemplate.execute(status -> buildPaper(id))));
+    }
+
+    public void evict(Long quizId) {
+        cache.evict(quizId);
+    }
+
+    private QuizPaper buildPaper(Long quizId) {
+        Optional<Quiz> quizOpt = quizRepository.findById(quizId);
+        if (quizOpt.isEmpty()) {
+            return null;
+        }
+        Quiz quiz = quizOpt.get();
+
+        // Questions and their choices in one query
+        List<Question> questions = questionRepository.findByQuizIdWithChoices(quizId);
+        List<QuizPaper.Item> items = new ArrayList<>(questions.size());
+        for (Question question : questions) {
+            List<QuizPaper.Option> options = new ArrayList<>();
+            if (question.getType() == Question.QuestionType.MCQ) {
+                question.getChoices().stream()
+                        .sorted(Comparator.comparing(Choice::getId))
+                        .forEach(choice -> options.add(new QuizPaper.Option(choice.getId(), choice.getText())));
+            }
+            items.add(new QuizPaper.Item(question.getId(), question.getType(), question.getText(),
+                    question.getPoints() != null ? question.getPoints() : 1.0, options));
+        }
+
+        return new QuizPaper(quiz.getId(), quiz.getClassRoom() != null ? quiz.getClassRoom().getId() : null,
+                quiz.getTitle(), quiz.getDescription(),
+                quiz.getTotalPoints() != null ? quiz.getTotalPoints() : 0.0, items);
+    }
+}
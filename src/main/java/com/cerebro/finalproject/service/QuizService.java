@@ -1,12 +1,18 @@
 package com.cerebro.finalproject.service;
 
+import com.cerebro.finalproject.config.EssayScoreBackfill;
 import com.cerebro.finalproject.model.*;
 import com.cerebro.finalproject.repository.*;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -29,6 +35,34 @@ public class QuizService {
     @Autowired
     private AnswerRepository answerRepository;
 
+    @Autowired
+    private TestCaseRepository testCaseRepository;
+
+    @Autowired
+    private AnswerKeyService answerKeyService;
+
+    @Autowired
+    private QuizPaperService quizPaperService;
+
+    @Autowired
+    private EntityCacheService entityCacheService;
+
+    @Autowired
+    private RegradeService regradeService;
+
+    @Autowired
+    private QuizStatsService quizStatsService;
+
+    @Autowired
+    private EssayScoreBackfill essayScoreBackfill;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Transactional
     public Quiz createQuiz(String title, String description, Classroom classroom, User teacher) {
         Quiz quiz = new Quiz();
         quiz.setTitle(title);
@@ -37,7 +71,9 @@ public class QuizService {
         quiz.setTeacher(teacher);
         quiz.setCreatedAt(LocalDateTime.now());
         quiz.setTotalPoints(0.0);
-        return quizRepository.save(quiz);
+        quiz = quizRepository.save(quiz);
+        quizStatsService.rebuild(quiz.getId());
+        return quiz;
     }
 
     public Optional<Quiz> findById(Long id) {
@@ -48,8 +84,16 @@ public class QuizService {
         return quizRepository.findByClassRoomId(classRoomId);
     }
 
+    // The quiz cards of a student's class page, in one query however many quizzes the class has
+    @Transactional(readOnly = true)
+    public List<StudentQuizRow> getStudentQuizRows(Long classRoomId, Long studentId) {
+        return quizRepository.findStudentQuizRows(classRoomId, studentId);
+    }
+
     public Quiz updateQuiz(Quiz quiz) {
-        return quizRepository.save(quiz);
+        Quiz saved = quizRepository.save(quiz);
+        evictQuiz(saved.getId());
+        return saved;
     }
 
     @Transactional
@@ -63,6 +107,8 @@ public class QuizService {
     @Transactional
     public void deleteQuiz(Long id) {
         quizRepository.deleteById(id);
+        quizStatsService.delete(id);
+        evictQuiz(id);
     }
 
     @Transactional
@@ -82,10 +128,32 @@ public class QuizService {
 
         Question savedQuestion = questionRepository.save(question);
         updateQuizTotalPoints(quiz.getId());
+        evictQuiz(quiz.getId());
 
         return savedQuestion;
     }
 
+    @Transactional
+    public Question addCodingQuestion(Quiz quiz, String text, String correctAnswer, Double points,
+                                      List<String> testInputs, List<String> testOutputs) {
+        Question question = addQuestion(quiz, Question.QuestionType.CODING, text, correctAnswer, points);
+
+        // Pairs with a blank expected output are treated as unused form rows
+        if (testOutputs != null) {
+            for (int i = 0; i < testOutputs.size(); i++) {
+                String expected = testOutputs.get(i);
+                if (expected == null || expected.trim().isEmpty()) {
+                    continue;
+                }
+                String input = testInputs != null && i < testInputs.size() ? testInputs.get(i) : "";
+                question.getTestCases().add(new TestCase(question, input, expected, question.getTestCases().size()));
+            }
+            testCaseRepository.saveAll(question.getTestCases());
+        }
+
+        return question;
+    }
+
     @Transactional
     public Question addQuestionWithChoices(Quiz quiz, String text, List<String> choiceTexts, String correctChoiceText) {
         return addQuestionWithChoices(quiz, text, choiceTexts, correctChoiceText, 1.0);
@@ -112,6 +180,41 @@ public class QuizService {
         }
 
         updateQuizTotalPoints(quiz.getId());
+        evictQuiz(quiz.getId());
+        return question;
+    }
+
+    // Corrects the answer key of a question and regrades its existing answers after commit
+    @Transactional
+    public Question updateAnswerKey(Long questionId, String correctAnswer, Long correctChoiceId) {
+        Question question = questionRepository.findById(questionId)
+                .orElseThrow(() -> new RuntimeException("Question not found"));
+
+        switch (question.getType()) {
+            case MCQ:
+                boolean found = false;
+                for (Choice choice : question.getChoices()) {
+                    found |= choice.getId().equals(correctChoiceId);
+                }
+                if (!found) {
+                    throw new RuntimeException("Choice does not belong to this question");
+                }
+                for (Choice choice : question.getChoices()) {
+                    choice.setCorrect(choice.getId().equals(correctChoiceId));
+                }
+                break;
+            case ESSAY:
+                throw new RuntimeException("Essay questions are graded manually");
+            default:
+                if (correctAnswer == null || correctAnswer.trim().isEmpty()) {
+                    throw new RuntimeException("Correct answer must not be empty");
+                }
+                question.setCorrectAnswer(correctAnswer);
+                break;
+        }
+
+        evictQuiz(question.getQuiz().getId());
+        regradeService.scheduleRegrade(questionId);
         return question;
     }
 
@@ -126,157 +229,111 @@ public class QuizService {
             questionRepository.flush();
 
             updateQuizTotalPoints(quizId);
+            evictQuiz(quizId);
         }
     }
 
+    // Drops everything cached from the quiz's questions: answer key, quiz paper and entity cache
+    private void evictQuiz(Long quizId) {
+        answerKeyService.evict(quizId);
+        quizPaperService.evict(quizId);
+        entityCacheService.evictQuiz(quizId);
+    }
+
     private void updateQuizTotalPoints(Long quizId) {
+        // The update only declares the quiz table, so Hibernate would not flush new questions first
+        questionRepository.flush();
         quizRepository.updateTotalPoints(quizId);
+        // Grade bands are relative to the total points
+        quizStatsService.totalPointsChanged(quizId);
     }
 
-    @Transactional
+    /**
+     * Grades and stores a student's attempt. The unique key on (quiz_id, student_id) decides between
+     * concurrent submits of the same student: exactly one is stored, the others fail with a
+     * {@link DuplicateAttemptException} carrying the stored attempt.
+     */
     public Attempt submitQuiz(Quiz quiz, User student, Map<String, String> answers) {
+        return submitGraded(quiz, student, gradeAnswers(quiz.getId(), answers));
+    }
+
+    /**
+     * Grades answers in memory against the cached answer key. CODING answers run their test cases
+     * here, which can take seconds, so this is called before any transaction is opened. Test cases
+     * are only run behind the asynchronous intake, which grades a submission again later when
+     * this throws {@link CodeNotRunException}.
+     */
+    public List<GradedAnswer> gradeAnswers(Long quizId, Map<String, String> answers) {
+        return answerKeyService.grade(answerKeyService.getAnswerKey(quizId), answers);
+    }
+
+    /**
+     * Stores an attempt graded by {@link #gradeAnswers}, as {@link #submitQuiz} does.
+     */
+    public Attempt submitGraded(Quiz quiz, User student, List<GradedAnswer> gradedAnswers) {
+        try {
+            return transactionTemplate.execute(status -> storeAttempt(quiz, student, gradedAnswers));
+        } catch (DataIntegrityViolationException e) {
+            // Inside a caller's transaction that transaction is lost anyway; leave it to the caller
+            if (TransactionSynchronizationManager.isActualTransactionActive()) {
+                throw e;
+            }
+            // The competing insert has committed by now, otherwise ours would still be waiting on it;
+            // read in a read-write transaction, which always goes to the primary database
+            Optional<Attempt> existing = transactionTemplate.execute(
+                    status -> getStudentLatestAttempt(quiz.getId(), student.getId()));
+            if (existing.isPresent()) {
+                throw new DuplicateAttemptException(existing.get());
+            }
+            throw e;
+        }
+    }
+
+    private Attempt storeAttempt(Quiz quiz, User student, List<GradedAnswer> gradedAnswers) {
         Attempt attempt = new Attempt();
         attempt.setQuiz(quiz);
         attempt.setStudent(student);
         attempt.setSubmittedAt(LocalDateTime.now());
-        attempt = attemptRepository.save(attempt);
 
         double totalScore = 0;
 
-        for (Question question : quiz.getQuestions()) {
-            String answerKey = "q_" + question.getId();
-            String givenAnswer = answers.get(answerKey);
-
+        for (GradedAnswer graded : gradedAnswers) {
             Answer answer = new Answer();
             answer.setAttempt(attempt);
-            answer.setQuestion(question);
-
-            boolean isCorrect = false;
-            double questionPoints = question.getPoints() != null ? question.getPoints() : 1.0;
-
-            switch (question.getType()) {
-                case MCQ:
-                    if (givenAnswer != null && !givenAnswer.trim().isEmpty()) {
-                        try {
-                            Long choiceId = Long.parseLong(givenAnswer);
-                            Optional<Choice> choiceOpt = choiceRepository.findById(choiceId);
-                            if (choiceOpt.isPresent()) {
-                                Choice selectedChoice = choiceOpt.get();
-                                answer.setChoice(selectedChoice);
-                                isCorrect = selectedChoice.getCorrect();
-                            }
-                        } catch (NumberFormatException e) {
-                            isCorrect = false;
-                        }
-                    }
-                    break;
-
-                case TF:
-                    answer.setGivenText(givenAnswer);
-                    if (givenAnswer != null && question.getCorrectAnswer() != null) {
-                        isCorrect = normalizeAnswer(givenAnswer).equals(normalizeAnswer(question.getCorrectAnswer()));
-                    }
-                    break;
-
-                case IDENT:
-                    answer.setGivenText(givenAnswer);
-                    if (givenAnswer != null && question.getCorrectAnswer() != null) {
-                        isCorrect = normalizeAnswer(givenAnswer).equals(normalizeAnswer(question.getCorrectAnswer()));
-                    }
-                    break;
-
-                case CODING:
-                    answer.setGivenText(givenAnswer);
-                    if (givenAnswer != null && question.getCorrectAnswer() != null) {
-                        isCorrect = compareCode(givenAnswer, question.getCorrectAnswer());
-                    }
-                    break;
-
-                case ESSAY:
-                    answer.setGivenText(givenAnswer);
-                    isCorrect = false; // Essays need manual grading
-                    break;
+            answer.setQuestion(questionRepository.getReferenceById(graded.getQuestionId()));
+            if (graded.getChoiceId() != null) {
+                answer.setChoice(choiceRepository.getReferenceById(graded.getChoiceId()));
             }
+            answer.setGivenText(graded.getGivenText());
+            answer.setCorrect(graded.isCorrect());
+            attempt.getAnswers().add(answer);
 
-            answer.setCorrect(isCorrect);
-            answerRepository.save(answer);
-
-            if (isCorrect) {
-                totalScore += questionPoints;
-            }
+            totalScore += graded.getEarnedPoints();
         }
 
+        // Score is known up front, so the attempt is inserted once with its final score and
+        // its answers are cascaded as JDBC batches; flushed here so a duplicate surfaces as an exception
         attempt.setScore(totalScore);
-        return attemptRepository.save(attempt);
-    }
-
-    private String normalizeAnswer(String answer) {
-        if (answer == null) {
-            return "";
-        }
-        return answer.trim().toLowerCase().replaceAll("\\s+", " ");
-    }
-
-    private boolean compareCode(String studentCode, String correctCode) {
-        if (studentCode == null || correctCode == null) {
-            return false;
-        }
-
-        String normalizedStudent = normalizeCode(studentCode);
-        String normalizedCorrect = normalizeCode(correctCode);
-
-        return normalizedStudent.equals(normalizedCorrect);
-    }
-
-    private String normalizeCode(String code) {
-        if (code == null) {
-            return "";
-        }
-
-        code = code.replaceAll("//.*?(\r?\n|$)", "\n");
-        code = code.replaceAll("/\\*.*?\\*/", "");
-        code = code.replaceAll("[ \\t]+", " ");
-        code = code.replaceAll("\\s*([{};(),=+\\-*/<>!&|])\\s*", "$1");
-
-        String[] lines = code.split("\r?\n");
-        StringBuilder normalized = new StringBuilder();
-        for (String line : lines) {
-            String trimmed = line.trim();
-            if (!trimmed.isEmpty()) {
-                normalized.append(trimmed);
-            }
-        }
-
-        return normalized.toString().toLowerCase();
+        attempt = attemptRepository.saveAndFlush(attempt);
+
+        // Last, so the stats row lock is held only until the commit right after
+        quizStatsService.recordAttempt(quiz.getId(), totalScore);
+        // Delivered to transactional listeners once the attempt has committed
+        eventPublisher.publishEvent(new AttemptSubmittedEvent(quiz.getId(), attempt.getId(),
+                student.getId(), student.getName(), totalScore, attempt.getSubmittedAt()));
+        return attempt;
     }
 
     public List<Attempt> getQuizAttempts(Long quizId) {
         return attemptRepository.findByQuizId(quizId);
     }
 
-    public double calculateAverageScore(Long quizId) {
-        List<Attempt> attempts = attemptRepository.findByQuizId(quizId);
-        if (attempts.isEmpty()) {
-            return 0.0;
-        }
-
-        Optional<Quiz> quizOpt = quizRepository.findById(quizId);
-        if (quizOpt.isEmpty()) {
-            return 0.0;
-        }
-
-        Quiz quiz = quizOpt.get();
-        double totalPoints = quiz.getTotalPoints();
-
-        if (totalPoints == 0) {
-            return 0.0;
-        }
-
-        double sum = attempts.stream()
-                .mapToDouble(a -> (a.getScore() / totalPoints) * 100)
-                .sum();
+    public QuizScoreSummary getScoreSummary(Long quizId) {
+        return quizStatsService.getSummary(quizId);
+    }
 
-        return sum / attempts.size();
+    public double calculateAverageScore(Long quizId) {
+        return getScoreSummary(quizId).getAveragePercentage();
     }
 
     public boolean hasStudentAttempted(Long quizId, Long studentId) {
@@ -292,34 +349,84 @@ public class QuizService {
         return attemptRepository.findById(attemptId);
     }
 
+    /**
+     * The attempt's answers for review, with their questions, the questions' choices and the
+     * chosen choices loaded in two queries however many questions the quiz has.
+     */
+    @Transactional(readOnly = true)
+    public List<Answer> getAnswersForReview(Attempt attempt) {
+        List<Answer> answers = answerRepository.findByAttemptIdWithQuestions(attempt.getId());
+        // Initializes the choices of the same question instances, instead of one query per MCQ question
+        questionRepository.findByQuizIdWithChoices(attempt.getQuiz().getId());
+        return answers;
+    }
+
     // NEW: Grade essay answer
     @Transactional
     public void gradeEssayAnswer(Long answerId, Double score) {
-        Optional<Answer> answerOpt = answerRepository.findById(answerId);
-        if (answerOpt.isEmpty()) {
+        gradeEssayAnswers(Map.of(answerId, score));
+    }
+
+    /**
+     * Grades essay answers (answer id -> score), possibly across many attempts, in one transaction.
+     * Each attempt's score moves by the difference to the previous essay scores in a single
+     * UPDATE, instead of being recalculated from all of its answers. The graded answers stay
+     * locked until commit, so grading the same answer twice at once applies its delta once.
+     */
+    @Transactional
+    public int gradeEssayAnswers(Map<Long, Double> scores) {
+        if (scores.isEmpty()) {
+            return 0;
+        }
+
+        List<EssayGradingRow> rows = answerRepository.findEssayGradingRowsForUpdate(scores.keySet());
+        if (rows.size() != scores.size()) {
             throw new RuntimeException("Answer not found");
         }
 
-        Answer answer = answerOpt.get();
-        Question question = answer.getQuestion();
+        Map<Long, Double> scoreDeltas = new HashMap<>();
+        for (EssayGradingRow row : rows) {
+            if (row.getType() != Question.QuestionType.ESSAY) {
+                throw new RuntimeException("Only essay questions can be manually graded");
+            }
+
+            Double score = scores.get(row.getAnswerId());
+            double maxPoints = row.getPoints() != null ? row.getPoints() : 1.0;
+            if (score == null || score < 0 || score > maxPoints) {
+                throw new RuntimeException("Score must be between 0 and " + maxPoints);
+            }
 
-        if (question.getType() != Question.QuestionType.ESSAY) {
-            throw new RuntimeException("Only essay questions can be manually graded");
+            Double previous = row.getEssayScore();
+            Double legacy = previous == null
+                    ? essayScoreBackfill.pendingLegacyScore(row.getAnswerId(), row.getCorrect(), row.getGivenText())
+                    : null;
+            if (legacy != null) {
+                previous = legacy;
+                answerRepository.updateEssayScore(row.getAnswerId(), score,
+                        Answer.stripLegacyEssayScore(row.getGivenText()));
+            } else {
+                answerRepository.updateEssayScore(row.getAnswerId(), score);
+            }
+
+            scoreDeltas.merge(row.getAttemptId(), score - (previous != null ? previous : 0.0), Double::sum);
         }
 
-        double maxPoints = question.getPoints() != null ? question.getPoints() : 1.0;
+        scoreDeltas.values().removeIf(delta -> delta == 0.0);
+        if (scoreDeltas.isEmpty()) {
+            return rows.size();
+        }
 
-        if (score < 0 || score > maxPoints) {
-            throw new RuntimeException("Score must be between 0 and " + maxPoints);
+        List<AttemptScoreRow> before = attemptRepository.findScoreRowsForUpdate(scoreDeltas.keySet());
+        for (Map.Entry<Long, Double> delta : scoreDeltas.entrySet()) {
+            attemptRepository.addToScore(delta.getKey(), delta.getValue());
         }
+        quizStatsService.recordScoreDeltas(before, scoreDeltas);
 
-        // Store score in givenText with special format
-        String originalEssay = answer.getActualEssayText();
-        answer.setEssayScore(score, originalEssay);
-        answerRepository.save(answer);
+        return rows.size();
+    }
 
-        // Recalculate attempt total score
-        recalculateAttemptScore(answer.getAttempt().getId());
+    public List<Answer> getEssayAnswers(Long quizId) {
+        return answerRepository.findEssayAnswersByQuizId(quizId);
     }
 
     // NEW: Recalculate attempt score
@@ -340,7 +447,9 @@ public class QuizService {
 
             if (q.getType() == Question.QuestionType.ESSAY) {
                 // For essay questions, use the graded score if available
-                Double essayScore = ans.getEssayScore();
+                Double essayScore = ans.getEssayScore() != null
+                        ? ans.getEssayScore()
+                        : essayScoreBackfill.pendingLegacyScore(ans.getId(), ans.getCorrect(), ans.getGivenText());
                 if (essayScore != null) {
                     newTotalScore += essayScore;
                 }
@@ -353,7 +462,9 @@ public class QuizService {
             }
         }
 
+        Double previousScore = attempt.getScore();
         attempt.setScore(newTotalScore);
-        attemptRepository.save(attempt);
+        attemptRepository.saveAndFlush(attempt);
+        quizStatsService.recordScoreChange(attempt.getQuiz().getId(), previousScore, newTotalScore);
     }
 }
\ No newline at end of file
@@ -0,0 +1,279 @@
+package com.cerebro.finalproject.service;
+
+import com.cerebro.finalproject.model.QuizStats;
+import com.cerebro.finalproject.model.ScoreHistogram;
+import com.cerebro.finalproject.repository.AttemptRepository;
+import com.cerebro.finalproject.repository.AttemptScoreRow;
+import com.cerebro.finalproject.repository.QuizRepository;
+import com.cerebro.finalproject.repository.QuizScoreBinRepository;
+import com.cerebro.finalproject.repository.QuizScoreSummary;
+import com.cerebro.finalproject.repository.QuizStatsRepository;
+import com.cerebro.finalproject.repository.ScoreBinCount;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+
+/**
+ * Keeps the quiz_stats row of every quiz in step with its attempts, so the results page reads
+ * a single row however many attempts there are.
+ *
+ * Changes are applied in the caller's transaction as in-place updates of the row, without reading
+ * it first: count, sums and grade bands move incrementally; min/max are only recomputed when the
+ * current extreme score was removed. The {@link ScoreHistogram} for percentiles is kept one row per
+ * bin in quiz_score_bin. Quizzes without a row (not yet seeded) are summarized by aggregate queries
+ * instead, and {@link #rebuild(Long)} recomputes a row and its bins from the attempts to repair any
+ * drift.
+ */
+@Service
+public class QuizStatsService {
+
+    private static final Logger log = LoggerFactory.getLogger(QuizStatsService.class);
+
+    @Autowired
+    private QuizStatsRepository quizStatsRepository;
+
+    @Autowired
+    private QuizScoreBinRepository quizScoreBinRepository;
+
+    @Autowired
+    private AttemptRepository attemptRepository;
+
+    @Autowired
+    private QuizRepository quizRepository;
+
+    private final TransactionTemplate transactionTemplate;
+
+    public QuizStatsService(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Transactional(readOnly = true)
+    public QuizScoreSummary getSummary(Long quizId) {
+        return quizStatsRepository.findSummary(quizId)
+                .orElseGet(() -> attemptRepository.summarizeScores(quizId));
+    }
+
+    /**
+     * Percentiles and histogram of the quiz's scores; empty if the quiz has no total points to
+     * measure scores against.
+     */
+    @Transactional(readOnly = true)
+    public Optional<ScoreDistribution> getDistribution(Long quizId) {
+        Optional<QuizStats> stats = quizStatsRepository.findById(quizId);
+        if (stats.isPresent() && stats.get().isBinsCounted()) {
+            QuizStats row = stats.get();
+            if (row.getTotalPoints() <= 0) {
+                return Optional.empty();
+            }
+            return Optional.of(new ScoreDistribution(histogramOf(quizScoreBinRepository.findBins(quizId)),
+                    row.getTotalPoints(), row.getMinScore(), row.getMaxScore()));
+        }
+
+        Double totalPoints = quizRepository.findTotalPoints(quizId);
+        if (totalPoints == null || totalPoints <= 0) {
+            return Optional.empty();
+        }
+        QuizScoreSummary exact = attemptRepository.summarizeScores(quizId);
+        return Optional.of(new ScoreDistribution(histogramOf(attemptRepository.countScoreBins(quizId)), totalPoints,
+                exact.getMinScore(), exact.getMaxScore()));
+    }
+
+    // Counts in a newly stored attempt
+    @Transactional
+    public void recordAttempt(Long quizId, Double score) {
+        if (score != null) {
+            apply(quizId, List.of(), List.of(score));
+        }
+    }
+
+    /**
+     * Counts in score deltas that were just applied to attempts (attempt id -> delta). The rows
+     * hold the attempts' scores as read before the change, with the attempts locked (see
+     * AttemptRepository#findScoreRowsForUpdate); otherwise two concurrent changes would both
+     * count out the same old score.
+     */
+    @Transactional
+    public void recordScoreDeltas(Collection<AttemptScoreRow> before, Map<Long, Double> deltas) {
+        Map<Long, List<Double>> removed = new HashMap<>();
+        Map<Long, List<Double>> added = new HashMap<>();
+        for (AttemptScoreRow row : before) {
+            Double delta = deltas.get(row.getId());
+            if (delta == null || delta == 0.0) {
+                continue;
+            }
+            // addToScore treats a missing score as 0
+            double previous = row.getScore() != null ? row.getScore() : 0.0;
+            if (row.getScore() != null) {
+                removed.computeIfAbsent(row.getQuizId(), id -> new ArrayList<>()).add(previous);
+            }
+            added.computeIfAbsent(row.getQuizId(), id -> new ArrayList<>()).add(previous + delta);
+        }
+        for (Map.Entry<Long, List<Double>> quiz : added.entrySet()) {
+            apply(quiz.getKey(), removed.getOrDefault(quiz.getKey(), List.of()), quiz.getValue());
+        }
+    }
+
+    // Counts in an attempt whose score was set from oldScore to newScore
+    @Transactional
+    public void recordScoreChange(Long quizId, Double oldScore, Double newScore) {
+        apply(quizId, oldScore != null ? List.of(oldScore) : List.of(), newScore != null ? List.of(newScore) : List.of());
+    }
+
+    private void apply(Long quizId, List<Double> removed, List<Double> added) {
+        double totalPoints = quizRepository.findById(quizId)
+                .map(quiz -> quiz.getTotalPoints() != null ? quiz.getTotalPoints() : 0.0)
+                .orElse(0.0);
+
+        double sum = 0;
+        double sumSquares = 0;
+        long[] bands = new long[4];
+        // In bin order, so two transactions touching the same bins lock them in the same order
+        Map<Integer, Long> bins = new TreeMap<>();
+        for (double score : removed) {
+            sum -= score;
+            sumSquares -= score * score;
+            if (totalPoints > 0) {
+                bands[band(score, totalPoints)]--;
+                bins.merge(ScoreHistogram.binOf(score, totalPoints), -1L, Long::sum);
+            }
+        }
+        for (double score : added) {
+            sum += score;
+            sumSquares += score * score;
+            if (totalPoints > 0) {
+                bands[band(score, totalPoints)]++;
+                bins.merge(ScoreHistogram.binOf(score, totalPoints), 1L, Long::sum);
+            }
+        }
+        Double addedMin = added.isEmpty() ? null : Collections.min(added);
+        Double addedMax = added.isEmpty() ? null : Collections.max(added);
+
+        int updated = quizStatsRepository.addCounts(quizId, totalPoints, added.size() - removed.size(),
+                sum, sumSquares, addedMin, addedMax, bands[0], bands[1], bands[2], bands[3]);
+        if (updated == 0) {
+            if (quizStatsRepository.existsById(quizId)) {
+                // Counted against other total points than the quiz has now
+                rebuild(quizId);
+            }
+            // Otherwise not seeded yet; reads fall back to the aggregate queries until it is
+            return;
+        }
+
+        if (!removed.isEmpty()) {
+            // Callers have already written the new scores, so the attempts hold the exact extremes
+            quizStatsRepository.refreshExtremes(quizId, Collections.min(removed), Collections.max(removed));
+        }
+        for (Map.Entry<Integer, Long> bin : bins.entrySet()) {
+            if (bin.getValue() != 0) {
+                quizScoreBinRepository.addToBin(quizId, bin.getKey(), bin.getValue());
+            }
+        }
+    }
+
+    // Excellent, good, average or poor (0-3), with the same formula as the results page uses for each attempt's badge
+    private static int band(double score, double totalPoints) {
+        double percentage = score / totalPoints * 100;
+        if (percentage >= 90) {
+            return 0;
+        } else if (percentage >= 80) {
+            return 1;
+        } else if (percentage >= 70) {
+            return 2;
+        }
+        return 3;
+    }
+
+    /**
+     * Rebuilds the quiz's stats after its questions changed, if its total points no longer match the
+     * ones the grade bands and bins were counted against.
+     */
+    @Transactional
+    public void totalPointsChanged(Long quizId) {
+        Double totalPoints = quizRepository.findTotalPoints(quizId);
+        Optional<Double> counted = quizStatsRepository.findTotalPoints(quizId);
+        if (counted.isEmpty() || counted.get() != (totalPoints != null ? totalPoints : 0.0)) {
+            rebuild(quizId);
+        }
+    }
+
+    /**
+     * Recomputes the quiz's stats and bins from its attempts, creating the row if needed. Also used
+     * after the quiz's total points change, since that moves attempts between grade bands and bins.
+     */
+    @Transactional
+    public QuizStats rebuild(Long quizId) {
+        QuizStats stats = quizStatsRepository.findByIdForUpdate(quizId).orElseGet(() -> new QuizStats(quizId));
+        QuizScoreSummary exact = attemptRepository.summarizeScores(quizId);
+        Double totalPoints = quizRepository.findTotalPoints(quizId);
+
+        stats.setAttemptCount(exact.getCount());
+        stats.setScoreSum(exact.getScoreSum());
+        stats.setScoreSumSquares(exact.getScoreSumSquares());
+        stats.setMinScore(exact.getMinScore());
+        stats.setMaxScore(exact.getMaxScore());
+        stats.setTotalPoints(totalPoints != null ? totalPoints : 0.0);
+        stats.setExcellentCount(exact.getExcellentCount());
+        stats.setGoodCount(exact.getGoodCount());
+        stats.setAverageCount(exact.getAverageCount());
+        stats.setPoorCount(exact.getPoorCount());
+        stats.setBinsCounted(true);
+        stats = quizStatsRepository.save(stats);
+
+        // Out of range bins of the query are merged into the end bins first
+        ScoreHistogram histogram = histogramOf(attemptRepository.countScoreBins(quizId));
+        quizScoreBinRepository.deleteByQuizId(quizId);
+        for (int bin = 0; bin < ScoreHistogram.BINS; bin++) {
+            if (histogram.getBin(bin) > 0) {
+                quizScoreBinRepository.addToBin(quizId, bin, histogram.getBin(bin));
+            }
+        }
+        return stats;
+    }
+
+    private ScoreHistogram histogramOf(List<ScoreBinCount> bins) {
+        ScoreHistogram histogram = new ScoreHistogram();
+        for (ScoreBinCount bin : bins) {
+            histogram.add(bin.getBin(), bin.getCount());
+        }
+        return histogram;
+    }
+
+    // Creates the stats of quizzes that have none (or none with a histogram) yet, one transaction per quiz
+    public int rebuildMissing() {
+        return rebuildEach(quizStatsRepository.findQuizIdsWithoutStats());
+    }
+
+    // Recomputes the stats of every quiz, one transaction per quiz
+    public int rebuildAll() {
+        return rebuildEach(quizStatsRepository.findAllQuizIds());
+    }
+
+    private int rebuildEach(List<Long> quizIds) {
+        for (Long quizId : quizIds) {
+            transactionTemplate.executeWithoutResult(status -> rebuild(quizId));
+        }
+        if (!quizIds.isEmpty()) {
+            log.info("Rebuilt statistics of {} quizzes", quizIds.size());
+        }
+        return quizIds.size();
+    }
+
+    @Transactional
+    public void delete(Long quizId) {
+        quizScoreBinRepository.deleteByQuizId(quizId);
+        quizStatsRepository.deleteByQuizId(quizId);
+    }
+}
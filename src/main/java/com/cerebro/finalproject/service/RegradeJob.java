@@ -0,0 +1,102 @@
+package com.cerebro.finalproject.service;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Progress of regrading all answers of one question. Counters are updated after every chunk
+ * and can be read while the job runs.
+ */
+public class RegradeJob {
+
+    public enum Status {
+        QUEUED, RUNNING, COMPLETED, FAILED
+    }
+
+    private final Long questionId;
+    private volatile Status status = Status.QUEUED;
+    private volatile long totalAnswers;
+    private final AtomicLong processedAnswers = new AtomicLong();
+    private final AtomicLong changedAnswers = new AtomicLong();
+    private final AtomicLong adjustedAttempts = new AtomicLong();
+    // Answers whose test cases could not be run because the code runners were busy; they keep their grade
+    private final AtomicLong skippedAnswers = new AtomicLong();
+    private volatile LocalDateTime startedAt;
+    private volatile LocalDateTime finishedAt;
+    private volatile String error;
+
+    // Set when the key changed again while this job was running; the job then makes another pass
+    private final AtomicBoolean rerunRequested = new AtomicBoolean();
+
+    public RegradeJob(Long questionId) {
+        this.questionId = questionId;
+    }
+
+    void start(long totalAnswers) {
+        this.totalAnswers = totalAnswers;
+        this.processedAnswers.set(0);
+        this.status = Status.RUNNING;
+        if (startedAt == null) {
+            startedAt = LocalDateTime.now();
+        }
+    }
+
+    void chunkDone(int answers, int changed, int attempts, int skipped) {
+        processedAnswers.addAndGet(answers);
+        changedAnswers.addAndGet(changed);
+        adjustedAttempts.addAndGet(attempts);
+        skippedAnswers.addAndGet(skipped);
+    }
+
+    void complete() {
+        status = Status.COMPLETED;
+        finishedAt = LocalDateTime.now();
+    }
+
+    void fail(String message) {
+        error = message;
+        status = Status.FAILED;
+        finishedAt = LocalDateTime.now();
+    }
+
+    void requestRerun() {
+        rerunRequested.set(true);
+    }
+
+    boolean consumeRerun() {
+        return rerunRequested.getAndSet(false);
+    }
+
+    public boolean isFinished() {
+        return status == Status.COMPLETED || status == Status.FAILED;
+    }
+
+    public int getPercent() {
+        long total = totalAnswers;
+        if (total == 0) {
+            return isFinished() ? 100 : 0;
+        }
+        return (int) Math.min(100, processedAnswers.get() * 100 / total);
+    }
+
+    public Long getQuestionId() { return questionId; }
+
+    public Status getStatus() { return status; }
+
+    public long getTotalAnswers() { return totalAnswers; }
+
+    public long getProcessedAnswers() { return processedAnswers.get(); }
+
+    public long getChangedAnswers() { return changedAnswers.get(); }
+
+    public long getAdjustedAttempts() { return adjustedAttempts.get(); }
+
+    public long getSkippedAnswers() { return skippedAnswers.get(); }
+
+    public LocalDateTime getStartedAt() { return startedAt; }
+
+    public LocalDateTime getFinishedAt() { return finishedAt; }
+
+    public String getError() { return error; }
+}
@@ -0,0 +1,245 @@
+package com.cerebro.finalproject.service;
+
+import com.cerebro.finalproject.model.Question;
+import com.cerebro.finalproject.repository.AnswerGradingRow;
+import com.cerebro.finalproject.repository.AnswerRepository;
+import com.cerebro.finalproject.repository.AttemptScoreRow;
+import com.cerebro.finalproject.repository.AttemptRepository;
+import com.cerebro.finalproject.repository.QuestionRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Regrades every stored answer of a question after its answer key changed.
+ *
+ * Answers are read in keyset-paginated chunks as plain rows (no entities), graded in memory
+ * against the cached {@link AnswerKey}, and only the answers whose result flipped are written:
+ * one UPDATE per direction for the answers and one per distinct score delta for their attempts.
+ * A chunk is graded before its write transaction opens, so CODING test runs never hold a
+ * connection or locks; answers whose test cases could not be run keep their grade and are
+ * counted as skipped. Each chunk commits on its own, so a large regrade never holds long locks.
+ */
+@Service
+public class RegradeService {
+
+    private static final Logger log = LoggerFactory.getLogger(RegradeService.class);
+
+    @Autowired
+    private AnswerRepository answerRepository;
+
+    @Autowired
+    private AttemptRepository attemptRepository;
+
+    @Autowired
+    private QuestionRepository questionRepository;
+
+    @Autowired
+    private AnswerKeyService answerKeyService;
+
+    @Autowired
+    private QuizStatsService quizStatsService;
+
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+
+    // One regrade at a time; they are rare and each one already works through many rows
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "regrade");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Serializes passes, so a background job and a direct regrade never adjust the same scores twice
+    private final Object passLock = new Object();
+
+    // Latest job per question id
+    private final Map<Long, RegradeJob> jobs = new ConcurrentHashMap<>();
+
+    public RegradeService(PlatformTransactionManager transactionManager,
+                          @Value("${app.regrade.chunk-size:1000}") int chunkSize) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Queues a regrade of the question. Inside a transaction the job is queued after commit, so it
+     * grades against the new key. If a regrade of the question is already queued or running, that
+     * job makes one more pass instead.
+     */
+    public void scheduleRegrade(Long questionId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    submit(questionId);
+                }
+            });
+        } else {
+            submit(questionId);
+        }
+    }
+
+    public Optional<RegradeJob> getJob(Long questionId) {
+        return Optional.ofNullable(jobs.get(questionId));
+    }
+
+    /**
+     * Regrades the question on the calling thread and returns the finished job.
+     */
+    public RegradeJob regrade(Long questionId) {
+        RegradeJob job = new RegradeJob(questionId);
+        regradePass(job);
+        job.complete();
+        return job;
+    }
+
+    private void submit(Long questionId) {
+        RegradeJob job;
+        synchronized (jobs) {
+            RegradeJob existing = jobs.get(questionId);
+            if (existing != null && !existing.isFinished()) {
+                existing.requestRerun();
+                return;
+            }
+            job = new RegradeJob(questionId);
+            jobs.put(questionId, job);
+        }
+        executor.execute(() -> run(job));
+    }
+
+    private void run(RegradeJob job) {
+        try {
+            while (true) {
+                regradePass(job);
+                // Checked under the same lock submit() uses, so a rerun request cannot be lost
+                synchronized (jobs) {
+                    if (!job.consumeRerun()) {
+                        job.complete();
+                        break;
+                    }
+                }
+            }
+            log.info("Regraded question {}: {} answers checked, {} changed, {} attempts adjusted, {} skipped",
+                    job.getQuestionId(), job.getProcessedAnswers(), job.getChangedAnswers(), job.getAdjustedAttempts(),
+                    job.getSkippedAnswers());
+        } catch (RuntimeException e) {
+            log.error("Regrade of question {} failed", job.getQuestionId(), e);
+            job.fail(String.valueOf(e.getMessage()));
+        }
+    }
+
+    private void regradePass(RegradeJob job) {
+        synchronized (passLock) {
+            regradeAllChunks(job);
+        }
+    }
+
+    private void regradeAllChunks(RegradeJob job) {
+        Long questionId = job.getQuestionId();
+        Optional<Question> question = questionRepository.findById(questionId);
+        AnswerKey.Entry entry = question
+                .map(q -> answerKeyService.getAnswerKey(q.getQuiz().getId()).findEntry(questionId))
+                .orElse(null);
+
+        // Essays are graded by hand and keep their scores
+        if (entry == null || entry.getType() == Question.QuestionType.ESSAY) {
+            job.start(0);
+            return;
+        }
+
+        job.start(answerRepository.countByQuestionId(questionId));
+        long afterId = 0;
+        while (true) {
+            long from = afterId;
+            // A read-write transaction of its own, so the rows come from the primary
+            List<AnswerGradingRow> rows = transactionTemplate.execute(status -> answerRepository.findGradingRows(
+                    questionId, from, PageRequest.of(0, chunkSize)));
+            if (rows.isEmpty()) {
+                break;
+            }
+            Map<Long, Boolean> verdicts = grade(entry, rows);
+            transactionTemplate.executeWithoutResult(status -> writeChunk(job, entry, rows, verdicts));
+            afterId = rows.get(rows.size() - 1).getId();
+        }
+    }
+
+    // The new verdict of each answer (answer id -> correct); answers that could not be run are left out
+    private Map<Long, Boolean> grade(AnswerKey.Entry entry, List<AnswerGradingRow> rows) {
+        Map<Long, Boolean> verdicts = new HashMap<>();
+        for (AnswerGradingRow row : rows) {
+            String given = entry.getType() == Question.QuestionType.MCQ
+                    ? (row.getChoiceId() != null ? row.getChoiceId().toString() : null)
+                    : row.getGivenText();
+            try {
+                verdicts.put(row.getId(), answerKeyService.grade(entry, given).isCorrect());
+            } catch (CodeNotRunException e) {
+                log.debug("Answer {} keeps its grade: {}", row.getId(), e.getMessage());
+            }
+        }
+        return verdicts;
+    }
+
+    // Writes the flipped answers of a graded chunk and adjusts their attempts' scores
+    private void writeChunk(RegradeJob job, AnswerKey.Entry entry, List<AnswerGradingRow> rows,
+                            Map<Long, Boolean> verdicts) {
+        List<Long> nowCorrect = new ArrayList<>();
+        List<Long> nowWrong = new ArrayList<>();
+        Map<Long, Double> scoreDeltas = new HashMap<>();
+
+        for (AnswerGradingRow row : rows) {
+            Boolean correct = verdicts.get(row.getId());
+            if (correct != null && correct != row.isCorrect()) {
+                (correct ? nowCorrect : nowWrong).add(row.getId());
+                scoreDeltas.merge(row.getAttemptId(), correct ? entry.getPoints() : -entry.getPoints(), Double::sum);
+            }
+        }
+
+        if (!nowCorrect.isEmpty()) {
+            answerRepository.updateCorrect(nowCorrect, true);
+        }
+        if (!nowWrong.isEmpty()) {
+            answerRepository.updateCorrect(nowWrong, false);
+        }
+
+        // Almost every attempt moves by +points or -points, so this is usually two statements
+        Map<Double, List<Long>> attemptsByDelta = new HashMap<>();
+        for (Map.Entry<Long, Double> delta : scoreDeltas.entrySet()) {
+            if (delta.getValue() != 0.0) {
+                attemptsByDelta.computeIfAbsent(delta.getValue(), d -> new ArrayList<>()).add(delta.getKey());
+            }
+        }
+        if (!attemptsByDelta.isEmpty()) {
+            List<AttemptScoreRow> before = attemptRepository.findScoreRowsForUpdate(scoreDeltas.keySet());
+            for (Map.Entry<Double, List<Long>> group : attemptsByDelta.entrySet()) {
+                attemptRepository.addToScore(group.getValue(), group.getKey());
+            }
+            quizStatsService.recordScoreDeltas(before, scoreDeltas);
+        }
+
+        job.chunkDone(rows.size(), nowCorrect.size() + nowWrong.size(), scoreDeltas.size(),
+                rows.size() - verdicts.size());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,72 @@
+package com.cerebro.finalproject.service;
+
+import com.cerebro.finalproject.model.ScoreHistogram;
+
+/**
+ * Percentiles and a histogram of a quiz's scores, estimated from its {@link ScoreHistogram}.
+ * Percentiles are in points, within a thousandth of the total points of the exact value.
+ */
+public class ScoreDistribution {
+
+    // Histogram buckets shown on the results page, 5% of the total points each
+    public static final int BUCKETS = 20;
+
+    private final long count;
+    private final Double p10;
+    private final Double p25;
+    private final Double median;
+    private final Double p75;
+    private final Double p90;
+    private final long[] buckets;
+
+    ScoreDistribution(ScoreHistogram histogram, double totalPoints, Double minScore, Double maxScore) {
+        this.count = histogram.getCount();
+        this.p10 = percentile(histogram, 0.10, totalPoints, minScore, maxScore);
+        this.p25 = percentile(histogram, 0.25, totalPoints, minScore, maxScore);
+        this.median = percentile(histogram, 0.50, totalPoints, minScore, maxScore);
+        this.p75 = percentile(histogram, 0.75, totalPoints, minScore, maxScore);
+        this.p90 = percentile(histogram, 0.90, totalPoints, minScore, maxScore);
+        this.buckets = histogram.buckets(BUCKETS);
+    }
+
+    // Estimates never lie outside the exact lowest and highest scores
+    private static Double percentile(ScoreHistogram histogram, double q, double totalPoints,
+                                     Double minScore, Double maxScore) {
+        Double share = histogram.quantile(q);
+        if (share == null) {
+            return null;
+        }
+        double value = share * totalPoints;
+        if (minScore != null) {
+            value = Math.max(value, minScore);
+        }
+        if (maxScore != null) {
+            value = Math.min(value, maxScore);
+        }
+        return value;
+    }
+
+    public long getCount() { return count; }
+
+    public Double getP10() { return p10; }
+
+    public Double getP25() { return p25; }
+
+    public Double getMedian() { return median; }
+
+    public Double getP75() { return p75; }
+
+    public Double getP90() { return p90; }
+
+    public long[] getBuckets() { return buckets; }
+
+    // "0-5%", "5-10%", ... matching getBuckets()
+    public String[] getBucketLabels() {
+        String[] labels = new String[BUCKETS];
+        int width = 100 / BUCKETS;
+        for (int i = 0; i < BUCKETS; i++) {
+            labels[i] = (i * width) + "-" + ((i + 1) * width) + "%";
+        }
+        return labels;
+    }
+}
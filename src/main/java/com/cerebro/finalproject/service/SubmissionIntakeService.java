@@ -0,0 +1,309 @@
+package com.cerebro.finalproject.service;
+
+import com.cerebro.finalproject.model.Attempt;
+import com.cerebro.finalproject.model.Quiz;
+import com.cerebro.finalproject.model.Submission;
+import com.cerebro.finalproject.model.User;
+import com.cerebro.finalproject.repository.SubmissionRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Asynchronous submission intake.
+ *
+ * A submission is first stored as-is (one insert) and the request returns with its id as a receipt.
+ * Grading runs on a fixed pool of workers fed by a bounded queue; when the queue is full the
+ * submission simply stays PENDING in the database and the periodic sweep enqueues it once workers
+ * free up. The same sweep picks up submissions left pending by a restart, and submissions whose
+ * CODING answers could not be run because every code runner was busy.
+ */
+@Service
+public class SubmissionIntakeService {
+
+    private static final Logger log = LoggerFactory.getLogger(SubmissionIntakeService.class);
+
+    private static final TypeReference<Map<String, String>> ANSWER_MAP = new TypeReference<>() {};
+
+    @Autowired
+    private SubmissionRepository submissionRepository;
+
+    @Autowired
+    private QuizService quizService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final TransactionTemplate transactionTemplate;
+    private final ThreadPoolExecutor workers;
+
+    // Submission ids currently queued or being graded, so the sweep does not enqueue them twice
+    private final Set<Long> inFlight = ConcurrentHashMap.newKeySet();
+
+    private final Timer gradingLag;
+    private final Timer gradingTime;
+    private final Counter overflow;
+    private final Counter deferred;
+
+    public SubmissionIntakeService(PlatformTransactionManager transactionManager,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${app.submission.workers:4}") int workerCount,
+                                   @Value("${app.submission.queue-capacity:500}") int queueCapacity) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(workerCount, workerCount, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "grading-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        Gauge.builder("quiz.submission.queue.depth", workers, executor -> executor.getQueue().size())
+                .description("Submissions waiting in the in-memory grading queue")
+                .register(meterRegistry);
+        Gauge.builder("quiz.submission.workers.active", workers, ThreadPoolExecutor::getActiveCount)
+                .description("Grading workers currently busy")
+                .register(meterRegistry);
+        this.gradingLag = Timer.builder("quiz.submission.grading.lag")
+                .description("Time from receiving a submission until its attempt is stored")
+                .register(meterRegistry);
+        this.gradingTime = Timer.builder("quiz.submission.grading.time")
+                .description("Time spent grading one submission")
+                .register(meterRegistry);
+        this.overflow = Counter.builder("quiz.submission.queue.overflow")
+                .description("Submissions left to the sweep because the grading queue was full")
+                .register(meterRegistry);
+        this.deferred = Counter.builder("quiz.submission.grading.deferred")
+                .description("Gradings put off because the code runners were busy")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Durably records a submission and schedules it for grading after commit.
+     */
+    @Transactional
+    public Submission accept(Quiz quiz, User student, Map<String, String> answers) {
+        Map<String, String> questionAnswers = new LinkedHashMap<>();
+        for (Map.Entry<String, String> entry : answers.entrySet()) {
+            if (entry.getKey().startsWith("q_")) {
+                questionAnswers.put(entry.getKey(), entry.getValue());
+            }
+        }
+
+        Submission submission = new Submission();
+        submission.setQuiz(quiz);
+        submission.setStudent(student);
+        submission.setAnswers(writeAnswers(questionAnswers));
+        submission.setReceivedAt(LocalDateTime.now());
+        submission = submissionRepository.save(submission);
+
+        Long submissionId = submission.getId();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    enqueue(submissionId);
+                }
+            });
+        } else {
+            enqueue(submissionId);
+        }
+
+        return submission;
+    }
+
+    // The student's attempt is stored, or a submission of theirs is still waiting to be graded
+    public boolean hasSubmitted(Long quizId, Long studentId) {
+        return quizService.hasStudentAttempted(quizId, studentId)
+                || submissionRepository.existsByQuizIdAndStudentIdAndStatus(quizId, studentId, Submission.Status.PENDING);
+    }
+
+    // Returns the submission only if it belongs to the given student
+    public Optional<Submission> findForStudent(Long submissionId, Long studentId) {
+        return submissionRepository.findById(submissionId)
+                .filter(s -> s.getStudent().getId().equals(studentId));
+    }
+
+    /**
+     * Enqueues pending submissions that are not in flight, as far as the queue has room.
+     */
+    @Scheduled(initialDelayString = "${app.submission.sweep-interval-ms:5000}",
+            fixedDelayString = "${app.submission.sweep-interval-ms:5000}")
+    public void sweepPending() {
+        int room = workers.getQueue().remainingCapacity();
+        if (room == 0) {
+            return;
+        }
+
+        // Leave freshly accepted submissions to their own after-commit enqueue
+        LocalDateTime before = LocalDateTime.now().minusSeconds(1);
+        List<Long> pending = submissionRepository.findIdsByStatusReceivedBefore(
+                Submission.Status.PENDING, before, PageRequest.of(0, room + inFlight.size()));
+
+        for (Long id : pending) {
+            if (!inFlight.contains(id) && !enqueue(id)) {
+                break;
+            }
+        }
+    }
+
+    private boolean enqueue(Long submissionId) {
+        if (!inFlight.add(submissionId)) {
+            return true;
+        }
+        try {
+            workers.execute(() -> grade(submissionId));
+            return true;
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(submissionId);
+            overflow.increment();
+            log.debug("Grading queue full, submission {} left for the sweep", submissionId);
+            return false;
+        }
+    }
+
+    private void grade(Long submissionId) {
+        try {
+            gradingTime.record(() -> gradeAndStore(submissionId));
+        } catch (CodeNotRunException e) {
+            // Still PENDING; the sweep grades it again once the runners have caught up
+            deferred.increment();
+            log.debug("Submission {} left for the sweep: {}", submissionId, e.getMessage());
+        } catch (DataIntegrityViolationException e) {
+            if (!markDuplicate(submissionId)) {
+                log.error("Failed to grade submission {}", submissionId, e);
+                markFailed(submissionId, e);
+            }
+        } catch (RuntimeException e) {
+            log.error("Failed to grade submission {}", submissionId, e);
+            markFailed(submissionId, e);
+        } finally {
+            inFlight.remove(submissionId);
+        }
+    }
+
+    // Grades first, so CODING test cases run before the submission's row is locked
+    private void gradeAndStore(Long submissionId) {
+        Optional<Submission> submission = submissionRepository.findById(submissionId);
+        if (submission.isEmpty() || submission.get().getStatus() != Submission.Status.PENDING) {
+            return;
+        }
+        List<GradedAnswer> gradedAnswers = quizService.gradeAnswers(submission.get().getQuiz().getId(),
+                readAnswers(submission.get().getAnswers()));
+        transactionTemplate.executeWithoutResult(status -> gradeSubmission(submissionId, gradedAnswers));
+    }
+
+    private void gradeSubmission(Long submissionId, List<GradedAnswer> gradedAnswers) {
+        Optional<Submission> submissionOpt = submissionRepository.findByIdForUpdate(submissionId);
+        if (submissionOpt.isEmpty() || submissionOpt.get().getStatus() != Submission.Status.PENDING) {
+            return;
+        }
+
+        Submission submission = submissionOpt.get();
+        Quiz quiz = submission.getQuiz();
+        User student = submission.getStudent();
+
+        // Checked under the submission's row lock; a submit racing in from elsewhere (or another
+        // submission of the same student on another worker) fails on the attempt unique key instead
+        if (quizService.hasStudentAttempted(quiz.getId(), student.getId())) {
+            submission.setStatus(Submission.Status.DUPLICATE);
+        } else {
+            Attempt attempt = quizService.submitGraded(quiz, student, gradedAnswers);
+            submission.setStatus(Submission.Status.GRADED);
+            submission.setAttemptId(attempt.getId());
+        }
+
+        submission.setGradedAt(LocalDateTime.now());
+        gradingLag.record(Duration.between(submission.getReceivedAt(), submission.getGradedAt()));
+    }
+
+    // Marks the submission DUPLICATE if its student's attempt was stored by someone else first
+    private boolean markDuplicate(Long submissionId) {
+        try {
+            return Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+                Optional<Submission> submission = submissionRepository.findById(submissionId);
+                if (submission.isEmpty() || !quizService.hasStudentAttempted(
+                        submission.get().getQuiz().getId(), submission.get().getStudent().getId())) {
+                    return false;
+                }
+                submission.get().setStatus(Submission.Status.DUPLICATE);
+                submission.get().setGradedAt(LocalDateTime.now());
+                return true;
+            }));
+        } catch (RuntimeException e) {
+            log.error("Could not mark submission {} as duplicate", submissionId, e);
+            return false;
+        }
+    }
+
+    private void markFailed(Long submissionId, Exception cause) {
+        try {
+            transactionTemplate.executeWithoutResult(status ->
+                    submissionRepository.findById(submissionId).ifPresent(submission -> {
+                        submission.setStatus(Submission.Status.FAILED);
+                        submission.setGradedAt(LocalDateTime.now());
+                        String message = String.valueOf(cause.getMessage());
+                        submission.setError(message.length() > 500 ? message.substring(0, 500) : message);
+                    }));
+        } catch (RuntimeException e) {
+            log.error("Could not mark submission {} as failed", submissionId, e);
+        }
+    }
+
+    private String writeAnswers(Map<String, String> answers) {
+        try {
+            return objectMapper.writeValueAsString(answers);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize submission answers", e);
+        }
+    }
+
+    private Map<String, String> readAnswers(String json) {
+        try {
+            return objectMapper.readValue(json, ANSWER_MAP);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not read submission answers", e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // Queued submissions stay PENDING in the database and are picked up again after restart
+        workers.shutdownNow();
+    }
+}
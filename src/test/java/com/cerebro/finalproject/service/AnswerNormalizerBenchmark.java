@@ -0,0 +1,74 @@
+package com.cerebro.finalproject.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of {@link AnswerNormalizer} against the regex chain it replaced, and of the
+ * token-based {@link CodeComparator} used for CODING answers.
+ *
+ * Not part of the test suite; run {@link #main} with the test classpath after {@code mvn test-compile}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AnswerNormalizerBenchmark {
+
+    private static final String TEXT_ANSWER = "  The   Mitochondria is the\tPowerhouse of the Cell  ";
+
+    private static final String CODE_ANSWER =
+            "public static int sum(int[] values) {\n"
+                    + "    // accumulate every value\n"
+                    + "    int total = 0;\n"
+                    + "    for (int i = 0; i < values.length; i++) {\n"
+                    + "        total += values[i]; /* running sum */\n"
+                    + "    }\n"
+                    + "    return total;\n"
+                    + "}\n";
+
+    private final AnswerNormalizer normalizer = new AnswerNormalizer();
+
+    private final CodeComparator comparator = new CodeComparator(new SimpleMeterRegistry());
+
+    private final CodeFingerprint reference = comparator.fingerprint(CODE_ANSWER);
+
+    private final String referenceSolution = CODE_ANSWER.replace("    ", "\t");
+
+    @Benchmark
+    public String legacyNormalizeAnswer() {
+        return LegacyNormalization.normalizeAnswer(TEXT_ANSWER);
+    }
+
+    @Benchmark
+    public String normalizeAnswer() {
+        return normalizer.normalizeAnswer(TEXT_ANSWER);
+    }
+
+    // Old CODING grading: normalize both answer and reference for every answer
+    @Benchmark
+    public boolean legacyCompareCode() {
+        return LegacyNormalization.normalizeCode(CODE_ANSWER)
+                .equals(LegacyNormalization.normalizeCode(referenceSolution));
+    }
+
+    @Benchmark
+    public boolean tokenCompareCode() {
+        return comparator.matches(reference, CODE_ANSWER);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(AnswerNormalizerBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
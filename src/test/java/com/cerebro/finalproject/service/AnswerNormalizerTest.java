@@ -0,0 +1,71 @@
+package com.cerebro.finalproject.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Golden tests pinning {@link AnswerNormalizer} to the original regex normalization.
+ */
+class AnswerNormalizerTest {
+
+    private static final String[] TEXT_CORPUS = {
+            "", " ", "\t\n", "True", "  FALSE  ", "Photosynthesis", "  Jose   Rizal ",
+            "New\tYork\r\nCity", "a \u000B\f b", "MiXeD CaSe  Answer", "x\u0001 y", "\u0001abc\u0002",
+            "ÉCOLE  Normale", "İstanbul", "ΟΔΟΣ", "ß", "  multiple   spaces\n\n\nand lines  ",
+            "tab\t\tseparated", " non-breaking ", "trailing "
+    };
+
+    private final AnswerNormalizer normalizer = new AnswerNormalizer();
+
+    @Test
+    void normalizeAnswerMatchesLegacyOnCorpus() {
+        for (String input : TEXT_CORPUS) {
+            assertThat(normalizer.normalizeAnswer(input))
+                    .as("normalizeAnswer(%s)", escape(input))
+                    .isEqualTo(LegacyNormalization.normalizeAnswer(input));
+        }
+        assertThat(normalizer.normalizeAnswer(null)).isEqualTo(LegacyNormalization.normalizeAnswer(null));
+    }
+
+    @Test
+    void normalizeAnswerMatchesLegacyOnRandomInput() {
+        // Small alphabet dense in whitespace/control characters and letters whose case folds
+        char[] alphabet = {'a', 'B', ' ', ' ', '\t', '\n', '\r', '\f', '\u000B', '\u0001', ' ',
+                '/', '*', '{', ';', '=', '-', '"', 'É', 'İ', '\u2028', '\u0085', '\u00A0'};
+        Random random = new Random(20240601L);
+
+        for (int run = 0; run < 20_000; run++) {
+            char[] chars = new char[random.nextInt(24)];
+            for (int i = 0; i < chars.length; i++) {
+                chars[i] = alphabet[random.nextInt(alphabet.length)];
+            }
+            String input = new String(chars);
+
+            assertThat(normalizer.normalizeAnswer(input))
+                    .as("normalizeAnswer(%s)", escape(input))
+                    .isEqualTo(LegacyNormalization.normalizeAnswer(input));
+        }
+    }
+
+    @Test
+    void buffersAreReusedAcrossLargeInputs() {
+        String large = "  The   Mitochondria\tis the Powerhouse  ".repeat(2_000);
+        assertThat(normalizer.normalizeAnswer(large)).isEqualTo(LegacyNormalization.normalizeAnswer(large));
+        assertThat(normalizer.normalizeAnswer(" X  =\t1 ")).isEqualTo("x = 1");
+    }
+
+    private static String escape(String s) {
+        StringBuilder sb = new StringBuilder("\"");
+        for (char c : s.toCharArray()) {
+            if (c < ' ' || c > '~') {
+                sb.append(String.format("\\u%04x", (int) c));
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.append('"').toString();
+    }
+}
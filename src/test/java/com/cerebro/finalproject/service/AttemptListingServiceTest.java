@@ -0,0 +1,106 @@
+package com.cerebro.finalproject.service;
+
+import com.cerebro.finalproject.model.*;
+import com.cerebro.finalproject.repository.*;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class AttemptListingServiceTest {
+
+    @Autowired
+    private AttemptListingService attemptListingService;
+
+    @Autowired
+    private QuizRepository quizRepository;
+
+    @Autowired
+    private AttemptRepository attemptRepository;
+
+    @Autowired
+    private TestData testData;
+
+    private Quiz quiz;
+    private List<Attempt> attempts;
+
+    @BeforeEach
+    void setUp() {
+        quiz = quizRepository.save(testData.newQuiz("Exam", testData.classroom(testData.teacher())));
+
+        // Duplicate names, scores and submission times, so every order needs the id tie-break
+        String[] names = {"Cara", "Ann", "Bob", "Ann", null, "Dan", "Bob", "Eve"};
+        Double[] scores = {5.0, 7.0, 5.0, 0.0, 9.0, 7.0, 1.0, 5.0};
+        LocalDateTime base = LocalDateTime.of(2026, 1, 1, 9, 0);
+        attempts = new ArrayList<>();
+        for (int i = 0; i < names.length; i++) {
+            User student = testData.student(names[i]);
+            Attempt attempt = new Attempt();
+            attempt.setQuiz(quiz);
+            attempt.setStudent(student);
+            attempt.setScore(scores[i]);
+            attempt.setSubmittedAt(base.plusMinutes(i % 3));
+            attempts.add(attemptRepository.save(attempt));
+        }
+    }
+
+    @Test
+    void pagesThroughEveryOrderWithoutGapsOrRepeats() {
+        Comparator<Attempt> byId = Comparator.comparing(Attempt::getId);
+        Comparator<Attempt> byScore = Comparator.comparing(Attempt::getScore).thenComparing(byId);
+        Comparator<Attempt> byName = Comparator.comparing((Attempt a) -> a.getStudent().getName() != null ? a.getStudent().getName() : "").thenComparing(byId);
+        Comparator<Attempt> bySubmitted = Comparator.comparing(Attempt::getSubmittedAt).thenComparing(byId);
+
+        assertPagesMatch(AttemptSort.SCORE, false, byScore);
+        assertPagesMatch(AttemptSort.SCORE, true, byScore.reversed());
+        assertPagesMatch(AttemptSort.STUDENT, false, byName);
+        assertPagesMatch(AttemptSort.STUDENT, true, byName.reversed());
+        assertPagesMatch(AttemptSort.SUBMITTED, false, bySubmitted);
+        assertPagesMatch(AttemptSort.SUBMITTED, true, bySubmitted.reversed());
+    }
+
+    @Test
+    void pageSizeIsClampedAndBadCursorsStartOver() {
+        assertThat(attemptListingService.getPage(quiz.getId(), AttemptSort.SCORE, false, null, null, 0).getSize()).isEqualTo(1);
+        assertThat(attemptListingService.getPage(quiz.getId(), AttemptSort.SCORE, false, null, null, 100_000).getSize()).isEqualTo(100);
+        assertThat(attemptListingService.getPage(quiz.getId(), AttemptSort.SCORE, false, null, null, null).getSize()).isEqualTo(25);
+
+        AttemptPage page = attemptListingService.getPage(quiz.getId(), AttemptSort.SUBMITTED, false, "yesterday", 5L, 3);
+        assertThat(page.getRows()).extracting(AttemptListRow::getId)
+                .containsExactlyElementsOf(attemptListingService.getPage(quiz.getId(), AttemptSort.SUBMITTED, false, null, null, 3)
+                        .getRows().stream().map(AttemptListRow::getId).toList());
+        assertThat(AttemptSort.fromParam("nonsense")).isEqualTo(AttemptSort.SUBMITTED);
+    }
+
+    private void assertPagesMatch(AttemptSort sort, boolean descending, Comparator<Attempt> order) {
+        List<Long> expected = attempts.stream().sorted(order).map(Attempt::getId).toList();
+        List<Long> listed = new ArrayList<>();
+        String after = null;
+        Long afterId = null;
+        Statistics statistics = testData.statistics();
+
+        do {
+            statistics.clear();
+            AttemptPage page = attemptListingService.getPage(quiz.getId(), sort, descending, after, afterId, 3);
+            // One query per page, with names joined in and no attempt or student entities
+            assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+            assertThat(statistics.getEntityLoadCount()).isZero();
+            assertThat(page.getRows()).hasSizeLessThanOrEqualTo(3);
+
+            page.getRows().forEach(row -> listed.add(row.getId()));
+            after = page.getNextAfter();
+            afterId = page.getNextAfterId();
+        } while (afterId != null);
+
+        assertThat(listed).as("%s %s", sort, descending ? "desc" : "asc").isEqualTo(expected);
+    }
+}
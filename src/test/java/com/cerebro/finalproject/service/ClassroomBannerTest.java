@@ -0,0 +1,188 @@
+package com.cerebro.finalproject.service;
+
+import com.cerebro.finalproject.config.ClassroomBannerMigration;
+import com.cerebro.finalproject.model.*;
+import com.cerebro.finalproject.repository.*;
+import com.cerebro.finalproject.security.CustomUserDetails;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+class ClassroomBannerTest {
+
+    private static final int BANNER_BYTES = 2 * 1024 * 1024;
+
+    // Built from the shared context; @AutoConfigureMockMvc would start a second one with its own id pools
+    @Autowired
+    private WebApplicationContext webApplicationContext;
+
+    @Autowired
+    private ClassroomService classroomService;
+
+    @Autowired
+    private ClassroomBannerMigration classroomBannerMigration;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TestData testData;
+
+    private User teacher;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(webApplicationContext).apply(springSecurity()).build();
+        teacher = testData.teacher();
+    }
+
+    @Test
+    void bannerIsServedFromItsOwnRowWithoutLoadingTheClassroom() throws Exception {
+        byte[] image = banner((byte) 7);
+        Classroom withBanner = classroomService.createClass("Art", teacher,
+                new MockMultipartFile("banner", "art.png", MediaType.IMAGE_PNG_VALUE, image));
+        Classroom withoutBanner = classroomService.createClass("Plain", teacher, null);
+
+        Statistics statistics = testData.statistics();
+        mockMvc.perform(get("/classroom/" + withBanner.getId() + "/banner"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.IMAGE_PNG))
+                .andExpect(content().bytes(image));
+        assertThat(statistics.getEntityStatistics(Classroom.class.getName()).getLoadCount()).isZero();
+
+        mockMvc.perform(get("/classroom/" + withoutBanner.getId() + "/banner"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.IMAGE_JPEG));
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM classroom_banner WHERE classroom_id = ?",
+                Integer.class, withoutBanner.getId())).isZero();
+    }
+
+    @Test
+    void classPagesDoNotReadBannerBytes() throws Exception {
+        Classroom classroom = null;
+        for (int i = 0; i < 5; i++) {
+            classroom = classroomService.createClass("Class " + i, teacher,
+                    new MockMultipartFile("banner", "c.png", MediaType.IMAGE_PNG_VALUE, banner((byte) i)));
+        }
+        User student = testData.enrolledStudent("Ann", classroom);
+
+        // Warm up templates and caches, then measure what one request allocates on this thread
+        long teacherPage = allocatedBytes(get("/teacher").with(user(new CustomUserDetails(teacher))));
+        long classPage = allocatedBytes(get("/student/class/" + classroom.getId()).with(user(new CustomUserDetails(student))));
+
+        // Loading the five classes with their banners allocated over 10 MB (5 x 2 MB images)
+        assertThat(teacherPage).isLessThan(BANNER_BYTES);
+        assertThat(classPage).isLessThan(BANNER_BYTES);
+    }
+
+    @Test
+    void migrationMovesLegacyBannersOutOfTheClassroomTable() throws Exception {
+        Classroom legacy = testData.classroom("Legacy", teacher);
+        byte[] image = banner((byte) 3);
+
+        jdbcTemplate.execute("ALTER TABLE classroom ADD COLUMN banner_image LONGBLOB");
+        jdbcTemplate.execute("ALTER TABLE classroom ADD COLUMN banner_content_type VARCHAR(50)");
+        try {
+            jdbcTemplate.update("UPDATE classroom SET banner_image = ?, banner_content_type = ? WHERE id = ?",
+                    image, "image/gif", legacy.getId());
+
+            assertThat(classroomBannerMigration.migrate()).isEqualTo(1);
+            assertThat(classroomBannerMigration.migrate()).isZero();
+            assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM classroom WHERE banner_image IS NOT NULL",
+                    Integer.class)).isZero();
+        } finally {
+            jdbcTemplate.execute("ALTER TABLE classroom DROP COLUMN banner_image");
+            jdbcTemplate.execute("ALTER TABLE classroom DROP COLUMN banner_content_type");
+        }
+
+        mockMvc.perform(get("/classroom/" + legacy.getId() + "/banner"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.IMAGE_GIF))
+                .andExpect(content().bytes(image));
+        // Schemas without the legacy column are left alone
+        assertThat(classroomBannerMigration.migrate()).isZero();
+    }
+
+    @Test
+    void concurrentMigrationsMoveEachBannerOnce() throws Exception {
+        Long[] ids = new Long[20];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = testData.classroom("Legacy " + i, teacher).getId();
+        }
+        byte[] image = new byte[64 * 1024];
+
+        jdbcTemplate.execute("ALTER TABLE classroom ADD COLUMN banner_image LONGBLOB");
+        jdbcTemplate.execute("ALTER TABLE classroom ADD COLUMN banner_content_type VARCHAR(50)");
+        try {
+            for (Long id : ids) {
+                jdbcTemplate.update("UPDATE classroom SET banner_image = ?, banner_content_type = ? WHERE id = ?",
+                        image, "image/png", id);
+            }
+
+            // Two instances booting together
+            ExecutorService instances = Executors.newFixedThreadPool(2);
+            CyclicBarrier start = new CyclicBarrier(2);
+            Callable<Integer> boot = () -> {
+                start.await();
+                return classroomBannerMigration.migrate();
+            };
+            Future<Integer> first = instances.submit(boot);
+            Future<Integer> second = instances.submit(boot);
+            int moved = first.get(30, TimeUnit.SECONDS) + second.get(30, TimeUnit.SECONDS);
+            instances.shutdown();
+
+            assertThat(moved).isEqualTo(ids.length);
+            assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM classroom WHERE banner_image IS NOT NULL",
+                    Integer.class)).isZero();
+        } finally {
+            jdbcTemplate.execute("ALTER TABLE classroom DROP COLUMN banner_image");
+            jdbcTemplate.execute("ALTER TABLE classroom DROP COLUMN banner_content_type");
+        }
+        for (Long id : ids) {
+            assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM classroom_banner WHERE classroom_id = ?",
+                    Integer.class, id)).isEqualTo(1);
+        }
+    }
+
+    private long allocatedBytes(RequestBuilder request) throws Exception {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        mockMvc.perform(request).andExpect(status().isOk());
+
+        long before = threads.getCurrentThreadAllocatedBytes();
+        mockMvc.perform(request).andExpect(status().isOk());
+        return threads.getCurrentThreadAllocatedBytes() - before;
+    }
+
+    private byte[] banner(byte fill) {
+        byte[] image = new byte[BANNER_BYTES];
+        Arrays.fill(image, fill);
+        return image;
+    }
+}
@@ -0,0 +1,46 @@
+package com.cerebro.finalproject.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CodeComparatorTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CodeComparator comparator = new CodeComparator(meterRegistry);
+
+    private final CodeFingerprint reference = comparator.fingerprint(
+            "int add(int a, int b) {\n    return a + b; // sum\n}");
+
+    @Test
+    void ignoresWhitespaceCommentsAndCase() {
+        assertThat(comparator.matches(reference, "int add(int a,int b){return a+b;}")).isTrue();
+        assertThat(comparator.matches(reference,
+                "/* helper\n spanning lines */\nINT Add( int a , int b )\n{\n\treturn a + b;\n}\n")).isTrue();
+    }
+
+    @Test
+    void rejectsDifferentTokens() {
+        assertThat(comparator.matches(reference, "int add(int a, int b) { return a - b; }")).isFalse();
+        assertThat(comparator.matches(reference, "intadd(int a, int b) { return a + b; }")).isFalse();
+        assertThat(comparator.matches(reference, "int add(int a, int b) { return a + b; } extra")).isFalse();
+        assertThat(comparator.matches(reference, null)).isFalse();
+    }
+
+    @Test
+    void keepsStringLiteralsIntact() {
+        CodeFingerprint url = comparator.fingerprint("String u = \"http://example.com\";");
+
+        assertThat(comparator.matches(url, "String u=\"http://example.com\";")).isTrue();
+        assertThat(comparator.matches(url, "String u = \"http:\";")).isFalse();
+        assertThat(comparator.matches(url, "String u = \"http: //example.com\";")).isFalse();
+    }
+
+    @Test
+    void recordsComparisonTime() {
+        comparator.matches(reference, "int add(int a, int b) { return a + b; }");
+
+        assertThat(meterRegistry.get("quiz.grading.coding.compare").timer().count()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,247 @@
+package com.cerebro.finalproject.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CodeExecutionServiceTest {
+
+    private static final String SUM = """
+            import java.util.Scanner;
+
+            public class Main {
+                public static void main(String[] args) {
+                    Scanner in = new Scanner(System.in);
+                    int a = in.nextInt();
+                    int b = in.nextInt();
+                    System.out.println(a + b);
+                }
+            }
+            """;
+
+    private static final List<CodeTestCase> SUM_TESTS = List.of(
+            new CodeTestCase("1 2", "3"),
+            new CodeTestCase("-5 5\n", "0\n"),
+            new CodeTestCase("100 23", "123"));
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CodeExecutionService service =
+            new CodeExecutionService(meterRegistry, true, 2, 2000, 1500, 30000, 64, 1024, 16, true);
+
+    @AfterEach
+    void shutdown() {
+        service.shutdown();
+    }
+
+    @Test
+    void passesWhenEveryOutputMatches() {
+        ExecutionReport report = service.run(SUM, SUM_TESTS);
+
+        assertThat(report.getCompileError()).isNull();
+        assertThat(report.getPassedCount()).isEqualTo(3);
+        assertThat(report.isComplete()).isTrue();
+        assertThat(report.allPassed()).isTrue();
+    }
+
+    @Test
+    void reportsWrongAnswerPerTestCase() {
+        ExecutionReport report = service.run(SUM.replace("a + b", "a * b"), SUM_TESTS);
+
+        assertThat(report.allPassed()).isFalse();
+        assertThat(report.getResults()).extracting(ExecutionReport.TestResult::getStatus).containsExactly(
+                ExecutionReport.Status.WRONG_ANSWER, ExecutionReport.Status.WRONG_ANSWER,
+                ExecutionReport.Status.WRONG_ANSWER);
+        assertThat(report.getResults().get(0).getOutput()).isEqualTo("2" + System.lineSeparator());
+    }
+
+    @Test
+    void reportsCompileErrors() {
+        ExecutionReport report = service.run("public class Main { void broken( }", SUM_TESTS);
+
+        assertThat(report.allPassed()).isFalse();
+        assertThat(report.getCompileError()).startsWith("Line 1:");
+        assertThat(report.getResults()).isEmpty();
+    }
+
+    @Test
+    void compilesIdenticalSourceOnce() {
+        service.run(SUM, SUM_TESTS);
+        service.run(SUM, SUM_TESTS);
+        service.run(SUM + "\n", SUM_TESTS);
+
+        assertThat(meterRegistry.counter("quiz.grading.coding.compilations").count()).isEqualTo(2.0);
+    }
+
+    @Test
+    void stopsRunsOverTheLimit() {
+        String loop = "public class Main { public static void main(String[] a) { long x = 0; while (true) { x++; } } }";
+
+        long start = System.nanoTime();
+        ExecutionReport report = service.run(loop, List.of(new CodeTestCase("", "")));
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        assertThat(report.getResults().get(0).getStatus()).isEqualTo(ExecutionReport.Status.TIME_LIMIT);
+        assertThat(elapsedMillis).isLessThan(5000);
+
+        // The runner that was stopped keeps serving submissions
+        assertThat(service.run(SUM, SUM_TESTS).allPassed()).isTrue();
+    }
+
+    @Test
+    void killsRunsThatSwallowEveryThrowable() {
+        String stubborn = """
+                public class Main {
+                    public static void main(String[] a) {
+                        while (true) {
+                            try { while (true) { } } catch (Throwable ignored) { }
+                        }
+                    }
+                }
+                """;
+
+        ExecutionReport report = service.run(stubborn, List.of(new CodeTestCase("", ""), new CodeTestCase("", "")));
+
+        assertThat(report.getResults()).extracting(ExecutionReport.TestResult::getStatus)
+                .containsOnly(ExecutionReport.Status.TIME_LIMIT);
+        // Both runners are free again
+        assertThat(service.run(SUM, SUM_TESTS).allPassed()).isTrue();
+    }
+
+    @Test
+    void runsThatCannotStartInTimeAreNotRun() {
+        CodeExecutionService busy = new CodeExecutionService(meterRegistry, true, 1, 1000, 1000, 200, 64, 1024, 16, true);
+        try {
+            String loop = "public class Main { public static void main(String[] a) { while (true) { } } }";
+
+            ExecutionReport report = busy.run(loop, List.of(new CodeTestCase("", ""), new CodeTestCase("", "")));
+
+            assertThat(report.getResults().get(0).getMessage()).isEqualTo("Time limit exceeded");
+            assertThat(report.getResults().get(1).getStatus()).isEqualTo(ExecutionReport.Status.NOT_RUN);
+            assertThat(report.getResults().get(1).getMessage()).startsWith("Not run");
+            // Lack of capacity is not a grade
+            assertThat(report.isComplete()).isFalse();
+            assertThat(report.getNotRunReason()).startsWith("Not run");
+        } finally {
+            busy.shutdown();
+        }
+    }
+
+    @Test
+    void needsTheAsynchronousIntake() {
+        assertThatThrownBy(() -> new CodeExecutionService(meterRegistry, true, 1, 1000, 1000, 200, 64, 1024, 16, false))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("app.submission.async-intake");
+    }
+
+    @Test
+    void limitsOutput() {
+        String spam = "public class Main { public static void main(String[] a) { for (int i = 0; i < 10000; i++) System.out.println(i); } }";
+
+        ExecutionReport report = service.run(spam, List.of(new CodeTestCase("", "0")));
+
+        assertThat(report.getResults().get(0).getStatus()).isEqualTo(ExecutionReport.Status.OUTPUT_LIMIT);
+    }
+
+    @Test
+    void refusesFileSystemNetworkAndProcessAccess() {
+        String files = "public class Main { public static void main(String[] a) { System.out.println(new java.io.File(\"/etc/passwd\").exists()); } }";
+        String network = "public class Main { public static void main(String[] a) throws Exception { new java.net.Socket(\"localhost\", 80); } }";
+        String process = "public class Main { public static void main(String[] a) throws Exception { Runtime.getRuntime().exec(\"true\"); } }";
+
+        assertThat(service.run(files, List.of(new CodeTestCase("", "true"))).getResults().get(0).getMessage())
+                .contains("java.io.FilePermission");
+        assertThat(service.run(network, List.of(new CodeTestCase("", ""))).getResults().get(0).getMessage())
+                .contains("java.net.SocketPermission");
+        assertThat(service.run(process, List.of(new CodeTestCase("", ""))).getResults().get(0).getMessage())
+                .contains("java.io.FilePermission");
+    }
+
+    @Test
+    void exitingOrExhaustingMemoryOnlyEndsTheSubmission() {
+        String exit = "public class Main { public static void main(String[] a) { System.\\u0065xit(42); } }";
+        String hog = "public class Main { public static void main(String[] a) { java.util.List<long[]> l = new java.util.ArrayList<>(); while (true) l.add(new long[1 << 20]); } }";
+
+        ExecutionReport.TestResult exited = service.run(exit, List.of(new CodeTestCase("", ""))).getResults().get(0);
+        assertThat(exited.getStatus()).isEqualTo(ExecutionReport.Status.RUNTIME_ERROR);
+        assertThat(exited.getMessage()).isEqualTo("Exited with code 42");
+
+        assertThat(service.run(hog, List.of(new CodeTestCase("", ""))).getResults().get(0).getMessage())
+                .contains("OutOfMemoryError");
+        assertThat(service.run(SUM, SUM_TESTS).allPassed()).isTrue();
+    }
+
+    @Test
+    void supportsLambdasStringConcatAndHelperClasses() {
+        String source = """
+                import java.util.*;
+
+                class Helper {
+                    static String greet(String name) { return "Hello, " + name + "!"; }
+                }
+
+                public class Solution {
+                    public static void main(String[] args) {
+                        Scanner in = new Scanner(System.in);
+                        List<String> names = new ArrayList<>();
+                        while (in.hasNext()) names.add(in.next());
+                        names.sort(Comparator.comparing(String::length).thenComparing(s -> s));
+                        names.forEach(n -> System.out.println(Helper.greet(n)));
+                    }
+                }
+                """;
+
+        ExecutionReport report = service.run(source,
+                List.of(new CodeTestCase("bob al", "Hello, al!\nHello, bob!   \n\n")));
+
+        assertThat(report.allPassed()).isTrue();
+    }
+
+    @Test
+    void gradesManySubmissionsConcurrently() throws Exception {
+        ExecutorService callers = Executors.newFixedThreadPool(16);
+        try {
+            List<Future<ExecutionReport>> reports = new ArrayList<>();
+            for (int i = 0; i < 12; i++) {
+                // Every third student submits a wrong solution; distinct sources defeat the compile cache
+                String source = (i % 3 == 0 ? SUM.replace("a + b", "a - b") : SUM) + "// student " + i;
+                reports.add(callers.submit(() -> service.run(source, SUM_TESTS)));
+            }
+
+            int passed = 0;
+            for (Future<ExecutionReport> report : reports) {
+                if (report.get().allPassed()) {
+                    passed++;
+                }
+            }
+            assertThat(passed).isEqualTo(8);
+        } finally {
+            callers.shutdownNow();
+        }
+    }
+
+    @Test
+    void reportsUncaughtExceptions() {
+        String divide = "public class Main { public static void main(String[] a) { System.out.println(1 / a.length); } }";
+
+        ExecutionReport.TestResult result = service.run(divide, List.of(new CodeTestCase("", ""))).getResults().get(0);
+
+        assertThat(result.getStatus()).isEqualTo(ExecutionReport.Status.RUNTIME_ERROR);
+        assertThat(result.getMessage()).isEqualTo("java.lang.ArithmeticException: / by zero");
+    }
+
+    @Test
+    void normalizesOutputLineEndingsAndTrailingBlanks() {
+        assertThat(CodeExecutionService.normalizeOutput("a  \r\nb\t\n\n\n")).isEqualTo("a\nb");
+        assertThat(CodeExecutionService.normalizeOutput("  a")).isEqualTo("  a");
+        assertThat(CodeExecutionService.normalizeOutput("")).isEmpty();
+    }
+}
@@ -0,0 +1,83 @@
+package com.cerebro.finalproject.service;
+
+import com.cerebro.finalproject.model.*;
+import com.cerebro.finalproject.repository.*;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class EnrollmentCheckTest {
+
+    @Autowired
+    private ClassroomService classroomService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TestData testData;
+
+    private Classroom classroom;
+
+    @BeforeEach
+    void setUp() {
+        classroom = testData.classroom("Large", testData.teacher());
+    }
+
+    @Test
+    void checkReadsOneJoinRowWhateverTheClassSize() {
+        List<User> students = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            students.add(testData.newStudent("S" + i));
+        }
+        students = userRepository.saveAll(students);
+        List<Object[]> rows = new ArrayList<>();
+        for (User student : students) {
+            rows.add(new Object[] {classroom.getId(), student.getId()});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO classroom_students (classroom_id, student_id) VALUES (?, ?)", rows);
+        User enrolled = students.get(500);
+
+        Statistics statistics = testData.statistics();
+        assertThat(classroomService.isStudentInClass(classroom, enrolled)).isTrue();
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+        assertThat(statistics.getCollectionLoadCount()).isZero();
+
+        // Answered from the cache afterwards
+        statistics.clear();
+        assertThat(classroomService.isStudentInClass(classroom, enrolled)).isTrue();
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+    }
+
+    @Test
+    void joiningReplacesACachedNegativeAnswer() {
+        User student = testData.student("Ann");
+        assertThat(classroomService.isStudentInClass(classroom, student)).isFalse();
+
+        Statistics statistics = testData.statistics();
+        classroomService.addStudentToClass(classroom, student);
+        // One insert; the enrolled students are not loaded
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(statistics.getCollectionLoadCount()).isZero();
+        assertThat(classroomService.isStudentInClass(classroom, student)).isTrue();
+
+        // A second join (double-click) leaves the single enrollment in place
+        classroomService.addStudentToClass(classroom, student);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM classroom_students WHERE classroom_id = ?",
+                Integer.class, classroom.getId())).isEqualTo(1);
+        assertThat(classroomService.isStudentInClass(classroom.getId(), student.getId())).isTrue();
+    }
+}
@@ -0,0 +1,140 @@
+package com.cerebro.finalproject.service;
+
+import com.cerebro.finalproject.model.*;
+import com.cerebro.finalproject.repository.*;
+import com.cerebro.finalproject.security.CustomUserDetails;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+class EntityCacheTest {
+
+    // Built from the shared context; @AutoConfigureMockMvc would start a second one with its own id pools
+    @Autowired
+    private WebApplicationContext webApplicationContext;
+
+    @Autowired
+    private QuizService quizService;
+
+    @Autowired
+    private QuizRepository quizRepository;
+
+    @Autowired
+    private ChoiceRepository choiceRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TestData testData;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Classroom classroom;
+    private Quiz quiz;
+    private Question mcq;
+    private Question ident;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(webApplicationContext).apply(springSecurity()).build();
+        classroom = testData.classroom(testData.teacher());
+        quiz = testData.quiz("Cached", classroom);
+        mcq = quizService.addQuestionWithChoices(quiz, "2 + 2?", List.of("3", "4", "5"), "4", 2.0);
+        ident = quizService.addQuestion(quiz, Question.QuestionType.IDENT, "Capital of France?", "Paris", 1.0);
+    }
+
+    @Test
+    void warmStudentPagesReadNoQuizQuestionOrChoiceRows() throws Exception {
+        // The first student fills the caches
+        takeAndSubmit(testData.enrolledStudent("first", classroom));
+
+        Statistics statistics = testData.statistics();
+        takeAndSubmit(testData.enrolledStudent("second", classroom));
+
+        for (Class<?> entity : List.of(Quiz.class, Question.class, Choice.class)) {
+            assertThat(statistics.getEntityStatistics(entity.getName()).getLoadCount()).as(entity.getSimpleName()).isZero();
+        }
+        assertThat(statistics.getCollectionStatistics(Quiz.class.getName() + ".questions").getLoadCount()).isZero();
+        assertThat(statistics.getDomainDataRegionStatistics("quiz").getHitCount()).isPositive();
+
+        // The same hits are published as metrics
+        assertThat(meterRegistry.get("cache.gets").tag("cache", "quiz").tag("result", "hit")
+                .functionCounter().count()).isPositive();
+    }
+
+    @Test
+    void quizServiceChangesAreSeenThroughTheCache() {
+        // Warm every region: the quiz, its questions and the MCQ's choices
+        assertThat(questionTexts()).containsExactly("2 + 2?", "Capital of France?");
+        Long five = choiceId("5");
+        assertThat(choiceRepository.findById(five).orElseThrow().getCorrect()).isFalse();
+
+        quizService.updateAnswerKey(mcq.getId(), null, five);
+        assertThat(choiceRepository.findById(five).orElseThrow().getCorrect()).isTrue();
+
+        quizService.addQuestion(quiz, Question.QuestionType.IDENT, "Capital of Italy?", "Rome", 4.0);
+        assertThat(questionTexts()).containsExactly("2 + 2?", "Capital of France?", "Capital of Italy?");
+        // Written by a native UPDATE, which Hibernate does not apply to the cached quiz itself
+        assertThat(quizService.findById(quiz.getId()).orElseThrow().getTotalPoints()).isEqualTo(7.0);
+
+        quizService.deleteQuestion(ident.getId());
+        assertThat(questionTexts()).containsExactly("2 + 2?", "Capital of Italy?");
+        assertThat(quizService.findById(quiz.getId()).orElseThrow().getTotalPoints()).isEqualTo(6.0);
+
+        Quiz renamed = quizService.findById(quiz.getId()).orElseThrow();
+        renamed.setTitle("Renamed");
+        quizService.updateQuiz(renamed);
+        assertThat(quizRepository.findById(quiz.getId()).orElseThrow().getTitle()).isEqualTo("Renamed");
+    }
+
+    private void takeAndSubmit(User student) throws Exception {
+        String quizPath = "/student/class/" + classroom.getId() + "/quiz/" + quiz.getId();
+        mockMvc.perform(as(student, get(quizPath))).andExpect(status().isOk());
+        mockMvc.perform(as(student, post(quizPath + "/submit")
+                        .param("q_" + mcq.getId(), choiceId("4").toString())
+                        .param("q_" + ident.getId(), "Paris")))
+                .andExpect(status().is3xxRedirection());
+        assertThat(jdbcTemplate.queryForObject("SELECT score FROM attempt WHERE quiz_id = ? AND student_id = ?",
+                Double.class, quiz.getId(), student.getId())).isEqualTo(3.0);
+    }
+
+    private MockHttpServletRequestBuilder as(User student, MockHttpServletRequestBuilder request) {
+        return request.with(user(new CustomUserDetails(student))).with(csrf());
+    }
+
+    private List<String> questionTexts() {
+        return transactionTemplate.execute(status -> quizRepository.findById(quiz.getId()).orElseThrow()
+                .getQuestions().stream().map(Question::getText).toList());
+    }
+
+    private Long choiceId(String text) {
+        return jdbcTemplate.queryForObject("SELECT id FROM choice WHERE question_id = ? AND text = ?",
+                Long.class, mcq.getId(), text);
+    }
+}
@@ -0,0 +1,152 @@
+package com.cerebro.finalproject.service;
+
+import com.cerebro.finalproject.model.*;
+import com.cerebro.finalproject.repository.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+@SpringBootTest
+class GradebookServiceTest {
+
+    @Autowired
+    private GradebookService gradebookService;
+
+    @Autowired
+    private QuizRepository quizRepository;
+
+    @Autowired
+    private AttemptRepository attemptRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TestData testData;
+
+    private Classroom classroom;
+
+    @BeforeEach
+    void setUp() {
+        classroom = testData.classroom(testData.teacher());
+    }
+
+    @Test
+    void buildsScoreMatrixWithTotalsAndAverages() {
+        User bob = testData.enrolledStudent("Bob", classroom);
+        User ann = testData.enrolledStudent("Ann", classroom);
+        User cy = testData.enrolledStudent("Cy", classroom);
+        User outsider = testData.student("Out");
+        Quiz first = quiz("First", 10.0, LocalDateTime.of(2026, 1, 1, 9, 0));
+        Quiz second = quiz("Second", 20.0, LocalDateTime.of(2026, 2, 1, 9, 0));
+
+        attempt(first, ann, 8.0);
+        attempt(second, ann, 15.0);
+        attempt(first, bob, 4.0);
+        attempt(first, outsider, 10.0);
+
+        Gradebook gradebook = gradebookService.build(classroom.getId());
+
+        // Students by name, quizzes by creation
+        assertThat(gradebook.getStudentCount()).isEqualTo(3);
+        assertThat(List.of(gradebook.getStudentName(0), gradebook.getStudentName(1), gradebook.getStudentName(2)))
+                .containsExactly("Ann", "Bob", "Cy");
+        assertThat(gradebook.getQuizId(0)).isEqualTo(first.getId());
+        assertThat(gradebook.getQuizTitle(1)).isEqualTo("Second");
+
+        assertThat(gradebook.getScore(0, 0)).isEqualTo(8.0);
+        assertThat(gradebook.getScore(0, 1)).isEqualTo(15.0);
+        assertThat(gradebook.getScore(1, 1)).isNull();
+        assertThat(gradebook.getScoreText(1, 1)).isEqualTo("-");
+        assertThat(gradebook.getScoreText(1, 0)).isEqualTo("4");
+        assertThat(gradebook.getStudentId(2)).isEqualTo(cy.getId());
+        assertThat(gradebook.getStudentAttempts(2)).isZero();
+        assertThat(gradebook.getStudentPercentage(2)).isNull();
+
+        assertThat(gradebook.getStudentTotal(0)).isEqualTo(23.0);
+        assertThat(gradebook.getStudentPercentage(0)).isCloseTo(23.0 / 30 * 100, within(1e-9));
+        assertThat(gradebook.getStudentPercentage(1)).isCloseTo(40.0, within(1e-9));
+
+        // The outsider's 10 is not part of the class average
+        assertThat(gradebook.getQuizAttempts(0)).isEqualTo(2);
+        assertThat(gradebook.getQuizAverage(0)).isEqualTo(6.0);
+        assertThat(gradebook.getQuizAverage(1)).isEqualTo(15.0);
+    }
+
+    @Test
+    void emptyClassHasEmptyGradebook() {
+        Gradebook gradebook = gradebookService.build(classroom.getId());
+
+        assertThat(gradebook.getStudentCount()).isZero();
+        assertThat(gradebook.getQuizCount()).isZero();
+        assertThat(gradebook.getStudentRows()).isEmpty();
+    }
+
+    /**
+     * Builds the gradebook of a 500 student x 60 quiz class with every quiz taken.
+     * Run with {@code mvn test -Dtest=GradebookServiceTest -Dbenchmark=true}.
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void benchmarkLargeClass() {
+        int studentCount = 500;
+        int quizCount = 60;
+        List<Quiz> quizzes = new ArrayList<>();
+        for (int q = 0; q < quizCount; q++) {
+            quizzes.add(quiz("Quiz " + q, 100.0, LocalDateTime.of(2026, 1, 1, 9, 0).plusDays(q)));
+        }
+
+        // Far above the ids the pooled generator hands out, like the attempt ids below
+        long firstUserId = 70_000_000L;
+        List<Object[]> users = new ArrayList<>();
+        List<Object[]> enrollments = new ArrayList<>();
+        List<Object[]> attempts = new ArrayList<>();
+        LocalDateTime now = LocalDateTime.now();
+        for (int s = 0; s < studentCount; s++) {
+            long userId = firstUserId + s;
+            User student = testData.newStudent("Student " + s);
+            users.add(new Object[] {userId, student.getName(), student.getEmail(), "x", "STUDENT"});
+            enrollments.add(new Object[] {classroom.getId(), userId});
+            for (int q = 0; q < quizCount; q++) {
+                attempts.add(new Object[] {30_000_000L + (long) s * quizCount + q, quizzes.get(q).getId(), userId,
+                        (double) ((s * 7 + q * 13) % 101), now});
+            }
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO users (id, name, email, password, role) VALUES (?, ?, ?, ?, ?)", users);
+        jdbcTemplate.batchUpdate("INSERT INTO classroom_students (classroom_id, student_id) VALUES (?, ?)", enrollments);
+        jdbcTemplate.batchUpdate("INSERT INTO attempt (id, quiz_id, student_id, score, submitted_at) VALUES (?, ?, ?, ?, ?)", attempts);
+
+        gradebookService.build(classroom.getId());
+        long start = System.nanoTime();
+        Gradebook gradebook = gradebookService.build(classroom.getId());
+        long millis = (System.nanoTime() - start) / 1_000_000;
+
+        assertThat(gradebook.getQuizAttempts(quizCount - 1)).isEqualTo(studentCount);
+        System.out.printf("Gradebook of %d students x %d quizzes: %d ms%n", studentCount, quizCount, millis);
+    }
+
+    private Quiz quiz(String title, double totalPoints, LocalDateTime createdAt) {
+        Quiz quiz = testData.newQuiz(title, classroom);
+        quiz.setTotalPoints(totalPoints);
+        quiz.setCreatedAt(createdAt);
+        return quizRepository.save(quiz);
+    }
+
+    private void attempt(Quiz quiz, User student, double score) {
+        Attempt attempt = new Attempt();
+        attempt.setQuiz(quiz);
+        attempt.setStudent(student);
+        attempt.setScore(score);
+        attemptRepository.save(attempt);
+    }
+}
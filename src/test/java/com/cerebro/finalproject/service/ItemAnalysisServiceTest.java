@@ -0,0 +1,156 @@
+package com.cerebro.finalproject.service;
+
+import com.cerebro.finalproject.model.*;
+import com.cerebro.finalproject.repository.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+@SpringBootTest
+class ItemAnalysisServiceTest {
+
+    @Autowired
+    private ItemAnalysisService itemAnalysisService;
+
+    @Autowired
+    private QuizService quizService;
+
+    @Autowired
+    private TestData testData;
+
+    @Autowired
+    private ChoiceRepository choiceRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Quiz quiz;
+
+    @BeforeEach
+    void setUp() {
+        quiz = testData.quiz("Exam", testData.classroom(testData.teacher()));
+    }
+
+    @Test
+    void reportsDifficultyDiscriminationAndCommonWrongChoice() {
+        Question easy = quizService.addQuestion(quiz, Question.QuestionType.IDENT, "Capital of France?", "Paris", 1.0);
+        Question hard = quizService.addQuestionWithChoices(quiz, "2 ^ 10?", List.of("1024", "100", "20"), "1024", 1.0);
+        Question essay = quizService.addQuestion(quiz, Question.QuestionType.ESSAY, "Explain.", null, 1.0);
+        Map<String, Long> choiceIds = new HashMap<>();
+        for (Choice choice : choiceRepository.findByQuestionId(hard.getId())) {
+            choiceIds.put(choice.getText(), choice.getId());
+        }
+
+        // Ten students: everyone knows the capital, only the best three know 2 ^ 10, most others pick "100"
+        for (int i = 0; i < 10; i++) {
+            User student = testData.student("S" + i);
+            Map<String, String> answers = new HashMap<>();
+            answers.put("q_" + easy.getId(), "Paris");
+            answers.put("q_" + hard.getId(), String.valueOf(choiceIds.get(i < 3 ? "1024" : i < 9 ? "100" : "20")));
+            answers.put("q_" + essay.getId(), "Essay " + i);
+            quizService.submitQuiz(quiz, student, answers);
+        }
+
+        ItemAnalysis analysis = itemAnalysisService.analyze(quiz.getId());
+
+        assertThat(analysis.getAttemptCount()).isEqualTo(10);
+        assertThat(analysis.getGroupSize()).isEqualTo(3);
+        assertThat(analysis.getItems()).extracting(ItemAnalysis.Item::getQuestionId)
+                .containsExactly(easy.getId(), hard.getId(), essay.getId());
+
+        ItemAnalysis.Item easyItem = analysis.getItems().get(0);
+        assertThat(easyItem.getDifficulty()).isEqualTo(1.0);
+        assertThat(easyItem.getDiscrimination()).isEqualTo(0.0);
+        assertThat(easyItem.getTopWrongChoice()).isNull();
+
+        ItemAnalysis.Item hardItem = analysis.getItems().get(1);
+        assertThat(hardItem.getAnswered()).isEqualTo(10);
+        assertThat(hardItem.getDifficulty()).isCloseTo(0.3, within(1e-9));
+        assertThat(hardItem.getDiscrimination()).isEqualTo(1.0);
+        assertThat(hardItem.getTopWrongChoice()).isEqualTo("100");
+        assertThat(hardItem.getTopWrongChoiceCount()).isEqualTo(6);
+
+        ItemAnalysis.Item essayItem = analysis.getItems().get(2);
+        assertThat(essayItem.getDifficulty()).isNull();
+        assertThat(essayItem.getDiscrimination()).isNull();
+    }
+
+    /**
+     * Analyzes 1M answers (50k attempts x 20 MCQ questions).
+     * Run with {@code mvn test -Dtest=ItemAnalysisServiceTest -Dbenchmark=true}.
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void benchmarkMillionAnswers() {
+        int attemptCount = 50_000;
+        int questionCount = 20;
+        List<Question> questions = new ArrayList<>();
+        List<List<Long>> choices = new ArrayList<>();
+        for (int q = 0; q < questionCount; q++) {
+            Question question = quizService.addQuestionWithChoices(quiz, "Q" + q, List.of("A", "B", "C", "D"), "A", 1.0);
+            questions.add(question);
+            List<Long> ids = new ArrayList<>();
+            for (Choice choice : choiceRepository.findByQuestionId(question.getId())) {
+                ids.add(choice.getId());
+            }
+            choices.add(ids);
+        }
+        seed(questions, choices, attemptCount);
+
+        itemAnalysisService.analyze(quiz.getId());
+        long start = System.nanoTime();
+        ItemAnalysis analysis = itemAnalysisService.analyze(quiz.getId());
+        long millis = (System.nanoTime() - start) / 1_000_000;
+
+        assertThat(analysis.getItems().get(0).getAnswered()).isEqualTo(attemptCount);
+        System.out.printf("Item analysis of %d answers: %d ms%n", attemptCount * questionCount, millis);
+    }
+
+    private void seed(List<Question> questions, List<List<Long>> choices, int attemptCount) {
+        long base = 20_000_000L;
+        // Far above the ids the pooled generator hands out, like the attempt and answer ids
+        Long firstUserId = 50_000_000L;
+        List<Object[]> users = new ArrayList<>();
+        List<Object[]> attempts = new ArrayList<>();
+        List<Object[]> answers = new ArrayList<>();
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < attemptCount; i++) {
+            long attemptId = base + i;
+            int correct = 0;
+            for (int q = 0; q < questions.size(); q++) {
+                int pick = (int) ((attemptId * 31 + q * 17) % 4);
+                correct += pick == 0 ? 1 : 0;
+                answers.add(new Object[] {attemptId * 32 + q, attemptId, questions.get(q).getId(),
+                        choices.get(q).get(pick), pick == 0});
+            }
+            User student = testData.newStudent("S" + i);
+            users.add(new Object[] {firstUserId + i, student.getName(), student.getEmail(), "x", "STUDENT"});
+            attempts.add(new Object[] {attemptId, quiz.getId(), firstUserId + i, (double) correct, now});
+            if (answers.size() >= 100_000) {
+                flush(users, attempts, answers);
+            }
+        }
+        flush(users, attempts, answers);
+    }
+
+    private void flush(List<Object[]> users, List<Object[]> attempts, List<Object[]> answers) {
+        jdbcTemplate.batchUpdate("INSERT INTO users (id, name, email, password, role) VALUES (?, ?, ?, ?, ?)", users);
+        jdbcTemplate.batchUpdate("INSERT INTO attempt (id, quiz_id, student_id, score, submitted_at) VALUES (?, ?, ?, ?, ?)", attempts);
+        jdbcTemplate.batchUpdate("INSERT INTO answer (id, attempt_id, question_id, choice_id, correct) VALUES (?, ?, ?, ?, ?)", answers);
+        users.clear();
+        attempts.clear();
+        answers.clear();
+    }
+}
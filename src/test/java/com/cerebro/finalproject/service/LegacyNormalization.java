@@ -0,0 +1,40 @@
+package com.cerebro.finalproject.service;
+
+/**
+ * The regex based normalization {@link AnswerNormalizer} and {@link CodeComparator} replaced,
+ * kept verbatim as the reference for the golden tests and the benchmark.
+ */
+final class LegacyNormalization {
+
+    private LegacyNormalization() {
+    }
+
+    static String normalizeAnswer(String answer) {
+        if (answer == null) {
+            return "";
+        }
+        return answer.trim().toLowerCase().replaceAll("\\s+", " ");
+    }
+
+    static String normalizeCode(String code) {
+        if (code == null) {
+            return "";
+        }
+
+        code = code.replaceAll("//.*?(\r?\n|$)", "\n");
+        code = code.replaceAll("/\\*.*?\\*/", "");
+        code = code.replaceAll("[ \\t]+", " ");
+        code = code.replaceAll("\\s*([{};(),=+\\-*/<>!&|])\\s*", "$1");
+
+        String[] lines = code.split("\r?\n");
+        StringBuilder normalized = new StringBuilder();
+        for (String line : lines) {
+            String trimmed = line.trim();
+            if (!trimmed.isEmpty()) {
+                normalized.append(trimmed);
+            }
+        }
+
+        return normalized.toString().toLowerCase();
+    }
+}
@@ -0,0 +1,162 @@
+package com.cerebro.finalproject.service;
+
+import com.cerebro.finalproject.model.*;
+import com.cerebro.finalproject.repository.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+@SpringBootTest
+class LiveResultsServiceTest {
+
+    @Autowired
+    private LiveResultsService liveResultsService;
+
+    @Autowired
+    private QuizService quizService;
+
+    @Autowired
+    private TestData testData;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private Quiz quiz;
+    private Question question;
+
+    @BeforeEach
+    void setUp() {
+        quiz = testData.quiz("Exam", testData.classroom(testData.teacher()));
+        question = quizService.addQuestion(quiz, Question.QuestionType.IDENT, "Capital of France?", "Paris", 4.0);
+    }
+
+    @Test
+    void pushesOneSharedMessagePerCommittedSubmissionToEveryWatcher() throws Exception {
+        RecordingEmitter first = new RecordingEmitter();
+        RecordingEmitter second = new RecordingEmitter();
+        liveResultsService.watch(quiz.getId(), first);
+        liveResultsService.watch(quiz.getId(), second);
+
+        // Current summary on connect
+        assertThat(first.next().get("attemptCount")).isEqualTo(0L);
+        assertThat(second.next().get("attempts")).isEqualTo(List.of());
+
+        submit("Ann", "Paris");
+
+        Map<String, Object> pushed = first.next();
+        assertThat(pushed.get("attemptCount")).isEqualTo(1L);
+        assertThat(pushed.get("averagePercentage")).isEqualTo(100.0);
+        List<?> attempts = (List<?>) pushed.get("attempts");
+        assertThat(attempts).hasSize(1);
+        assertThat(((Map<?, ?>) attempts.get(0)).get("studentName")).isEqualTo("Ann");
+        // Built once and fanned out, not recomputed per watcher
+        assertThat(second.next()).isSameAs(pushed);
+    }
+
+    @Test
+    void rolledBackSubmissionsAreNotPushed() throws Exception {
+        RecordingEmitter watcher = new RecordingEmitter();
+        liveResultsService.watch(quiz.getId(), watcher);
+        watcher.next();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            submit("Bob", "Rome");
+            status.setRollbackOnly();
+        });
+        submit("Cy", "Rome");
+
+        Map<String, Object> pushed = watcher.next();
+        List<?> attempts = (List<?>) pushed.get("attempts");
+        assertThat(attempts).hasSize(1);
+        assertThat(((Map<?, ?>) attempts.get(0)).get("studentName")).isEqualTo("Cy");
+        assertThat(pushed.get("attemptCount")).isEqualTo(1L);
+    }
+
+    @Test
+    void closedStreamsStopWatching() throws Exception {
+        RecordingEmitter watcher = new RecordingEmitter();
+        liveResultsService.watch(quiz.getId(), watcher);
+        watcher.next();
+        watcher.failSends = true;
+
+        submit("Dee", "Paris");
+
+        // The quiz's watcher list and queues go with its last watcher
+        await().atMost(Duration.ofSeconds(5)).until(() -> !liveResultsService.isTracked(quiz.getId()));
+        assertThat(liveResultsService.getWatcherCount(quiz.getId())).isZero();
+    }
+
+    @Test
+    void slowClientDoesNotHoldUpOtherWatchers() throws Exception {
+        RecordingEmitter slow = new RecordingEmitter();
+        RecordingEmitter fast = new RecordingEmitter();
+        liveResultsService.watch(quiz.getId(), slow);
+        liveResultsService.watch(quiz.getId(), fast);
+        slow.next();
+        fast.next();
+
+        CountDownLatch release = new CountDownLatch(1);
+        slow.blockSendsUntil = release;
+        try {
+            submit("Eve", "Paris");
+            assertThat(fast.next().get("attemptCount")).isEqualTo(1L);
+        } finally {
+            release.countDown();
+        }
+        assertThat(slow.next().get("attemptCount")).isEqualTo(1L);
+    }
+
+    private void submit(String name, String answer) {
+        quizService.submitQuiz(quiz, testData.student(name), Map.of("q_" + question.getId(), answer));
+    }
+
+    // Records the data of every event instead of writing to a response
+    private static class RecordingEmitter extends SseEmitter {
+
+        private final BlockingQueue<Object> sent = new LinkedBlockingQueue<>();
+        private volatile boolean failSends;
+        private volatile CountDownLatch blockSendsUntil;
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            if (failSends) {
+                throw new IOException("Broken pipe");
+            }
+            CountDownLatch block = blockSendsUntil;
+            if (block != null) {
+                try {
+                    block.await(30, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            for (var data : builder.build()) {
+                if (data.getData() instanceof Map) {
+                    sent.add(data.getData());
+                }
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        Map<String, Object> next() throws InterruptedException {
+            Object message = sent.poll(5, TimeUnit.SECONDS);
+            assertThat(message).as("pushed message").isNotNull();
+            return (Map<String, Object>) message;
+        }
+    }
+}
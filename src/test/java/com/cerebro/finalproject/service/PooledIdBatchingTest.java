@@ -0,0 +1,188 @@
+package com.cerebro.finalproject.service;
+
+import com.cerebro.finalproject.config.IdGeneratorSeeder;
+import com.cerebro.finalproject.model.*;
+import com.cerebro.finalproject.repository.*;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class PooledIdBatchingTest {
+
+    private static final int QUESTION_COUNT = 100;
+    private static final int CHOICE_COUNT = 4;
+
+    @Autowired
+    private QuizService quizService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ClassroomRepository classroomRepository;
+
+    @Autowired
+    private QuizRepository quizRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private IdGeneratorSeeder idGeneratorSeeder;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TestData testData;
+
+    private Classroom classroom;
+
+    @BeforeEach
+    void setUp() {
+        classroom = testData.classroom(testData.teacher());
+    }
+
+    @Test
+    void quizWithQuestionsAndChoicesIsInsertedInBatches() {
+        Statistics statistics = testData.statistics();
+        Quiz quiz = saveQuiz();
+
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(1 + QUESTION_COUNT + QUESTION_COUNT * CHOICE_COUNT);
+        // With IDENTITY ids every row was its own statement; now each table is written in batches
+        // of 50, and each block of 50 ids costs a read and an update of id_generator
+        assertThat(statistics.getPrepareStatementCount()).isLessThan(60);
+        assertThat(quizRepository.findById(quiz.getId())).isPresent();
+    }
+
+    @Test
+    void instancesBootingTogetherSeedTheGeneratorsOnce() throws Exception {
+        // A database none of the instances has seeded yet; they all find the rows missing at once
+        Long maxAnswerId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM answer", Long.class);
+        List<Map<String, Object>> generators = jdbcTemplate.queryForList("SELECT sequence_name, next_val FROM id_generator");
+        jdbcTemplate.update("DELETE FROM id_generator");
+
+        int instances = 4;
+        ExecutorService executor = Executors.newFixedThreadPool(instances);
+        try {
+            CyclicBarrier start = new CyclicBarrier(instances);
+            List<Future<?>> boots = new ArrayList<>();
+            for (int i = 0; i < instances; i++) {
+                boots.add(executor.submit(() -> {
+                    start.await();
+                    idGeneratorSeeder.seed();
+                    return null;
+                }));
+            }
+            for (Future<?> boot : boots) {
+                boot.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+            // Whatever happened above, put every generator back at least where it was: the blocks this
+            // JVM already holds lie above the highest ids in the tables
+            idGeneratorSeeder.seed();
+            for (Map<String, Object> generator : generators) {
+                jdbcTemplate.update("UPDATE id_generator SET next_val = ? WHERE sequence_name = ? AND next_val < ?",
+                        generator.get("next_val"), generator.get("sequence_name"), generator.get("next_val"));
+            }
+        }
+
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM id_generator WHERE sequence_name = 'answer'",
+                Integer.class)).isEqualTo(1);
+        assertThat(jdbcTemplate.queryForObject("SELECT next_val FROM id_generator WHERE sequence_name = 'answer'",
+                Long.class)).isGreaterThan(maxAnswerId + 50);
+    }
+
+    @Test
+    void enrollmentsAreInsertedInOneBatch() {
+        List<User> students = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            students.add(testData.newStudent("S" + i));
+        }
+
+        Statistics statistics = testData.statistics();
+        transactionTemplate.executeWithoutResult(status -> {
+            List<User> saved = userRepository.saveAll(students);
+            Classroom managed = classroomRepository.findById(classroom.getId()).orElseThrow();
+            managed.getStudents().addAll(saved);
+        });
+
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(20);
+        assertThat(statistics.getPrepareStatementCount()).isLessThan(10);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM classroom_students WHERE classroom_id = ?",
+                Integer.class, classroom.getId())).isEqualTo(20);
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void insertThroughputOfQuizzesAndAnswers() {
+        int quizzes = 20;
+        saveQuiz();
+        Statistics statistics = testData.statistics();
+        long start = System.nanoTime();
+        Quiz quiz = null;
+        for (int i = 0; i < quizzes; i++) {
+            quiz = saveQuiz();
+        }
+        double quizMillis = (System.nanoTime() - start) / 1e6 / quizzes;
+        long quizStatements = statistics.getPrepareStatementCount() / quizzes;
+
+        // 100 students submitting the 100-question quiz store 10k answers
+        Map<String, String> answers = new HashMap<>();
+        for (Long questionId : jdbcTemplate.queryForList("SELECT id FROM question WHERE quiz_id = ?", Long.class, quiz.getId())) {
+            answers.put("q_" + questionId, "x");
+        }
+        List<User> students = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            students.add(testData.newStudent("S" + i));
+        }
+        students = userRepository.saveAll(students);
+
+        statistics = testData.statistics();
+        start = System.nanoTime();
+        for (User student : students) {
+            quizService.submitQuiz(quiz, student, answers);
+        }
+        long answerMillis = (System.nanoTime() - start) / 1_000_000;
+
+        System.out.printf("%d-question quiz with %d choices each: %.1f ms, %d statements%n",
+                QUESTION_COUNT, CHOICE_COUNT, quizMillis, quizStatements);
+        System.out.printf("%d answers in %d submits: %d ms, %d statements%n",
+                statistics.getEntityInsertCount() - students.size(), students.size(), answerMillis,
+                statistics.getPrepareStatementCount());
+    }
+
+    // Persists a quiz with QUESTION_COUNT MCQ questions in one transaction through the cascades
+    private Quiz saveQuiz() {
+        Quiz quiz = testData.newQuiz("Exam", classroom);
+        quiz.setTotalPoints((double) QUESTION_COUNT);
+        for (int i = 0; i < QUESTION_COUNT; i++) {
+            Question question = new Question(quiz, Question.QuestionType.MCQ, "Question " + i);
+            question.setQIndex(i);
+            for (int c = 0; c < CHOICE_COUNT; c++) {
+                question.getChoices().add(new Choice(question, "Choice " + c, c == 0));
+            }
+            quiz.getQuestions().add(question);
+        }
+        return transactionTemplate.execute(status -> quizRepository.save(quiz));
+    }
+}
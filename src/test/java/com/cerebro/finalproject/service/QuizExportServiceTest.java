@@ -0,0 +1,111 @@
+package com.cerebro.finalproject.service;
+
+import com.cerebro.finalproject.model.*;
+import com.cerebro.finalproject.repository.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class QuizExportServiceTest {
+
+    @Autowired
+    private QuizExportService quizExportService;
+
+    @Autowired
+    private QuizService quizService;
+
+    @Autowired
+    private TestData testData;
+
+    @Autowired
+    private ChoiceRepository choiceRepository;
+
+    @Autowired
+    private AttemptRepository attemptRepository;
+
+    @Autowired
+    private AnswerRepository answerRepository;
+
+    private Quiz quiz;
+    private Attempt first;
+    private Attempt second;
+    private Attempt empty;
+
+    @BeforeEach
+    void setUp() {
+        quiz = testData.quiz("Exam", testData.classroom(testData.teacher()));
+        Question mcq = quizService.addQuestionWithChoices(quiz, "2 + 2?", List.of("4", "5"), "4", 2.0);
+        Question ident = quizService.addQuestion(quiz, Question.QuestionType.IDENT, "Capital of France?", "Paris", 1.0);
+        Question essay = quizService.addQuestion(quiz, Question.QuestionType.ESSAY, "Explain.", null, 5.0);
+        Long four = choiceRepository.findByQuestionId(mcq.getId()).stream()
+                .filter(c -> c.getText().equals("4")).findFirst().orElseThrow().getId();
+        Long five = choiceRepository.findByQuestionId(mcq.getId()).stream()
+                .filter(c -> c.getText().equals("5")).findFirst().orElseThrow().getId();
+
+        Map<String, String> answers = new HashMap<>();
+        answers.put("q_" + mcq.getId(), String.valueOf(four));
+        answers.put("q_" + ident.getId(), "Paris");
+        answers.put("q_" + essay.getId(), "Short, \"quoted\"\nand multi-line");
+        first = quizService.submitQuiz(quiz, testData.student("Ann"), answers);
+
+        answers = new HashMap<>();
+        answers.put("q_" + mcq.getId(), String.valueOf(five));
+        answers.put("q_" + ident.getId(), "=HYPERLINK(\"x\")");
+        second = quizService.submitQuiz(quiz, testData.student("Bob"), answers);
+
+        Long essayAnswer = answerRepository.findByAttemptId(first.getId()).stream()
+                .filter(a -> a.getQuestion().getId().equals(essay.getId())).findFirst().orElseThrow().getId();
+        quizService.gradeEssayAnswer(essayAnswer, 4.0);
+
+        // An attempt without answers still gets its line
+        empty = new Attempt();
+        empty.setQuiz(quiz);
+        empty.setStudent(testData.student("Cy"));
+        empty.setScore(0.0);
+        empty = attemptRepository.save(empty);
+    }
+
+    @Test
+    void exportsOneLinePerAttempt() {
+        String csv = export(false);
+
+        assertThat(csv.split("\r\n")).hasSize(4);
+        assertThat(csv).startsWith("Attempt ID,Student,Email,Score,Total Points,Percentage,Submitted At\r\n");
+        assertThat(csv).contains(first.getId() + ",Ann," + first.getStudent().getEmail() + ",7.0,8.0,87.50,");
+        assertThat(csv).contains(second.getId() + ",Bob," + second.getStudent().getEmail() + ",0.0,8.0,0.00,");
+        assertThat(csv).contains(empty.getId() + ",Cy,");
+    }
+
+    @Test
+    void exportsAnswerMatrixWithEscapedCells() {
+        String csv = export(true);
+
+        assertThat(csv).startsWith("Attempt ID,Student,Email,Score,Submitted At,"
+                + "Q1 Answer,Q1 Points,Q2 Answer,Q2 Points,Q3 Answer,Q3 Points\r\n");
+        assertThat(csv).contains(",4,2.0,Paris,1.0,\"Short, \"\"quoted\"\"\nand multi-line\",4.0\r\n");
+        // Formula-like student input is neutralized; the unanswered essay is left empty
+        assertThat(csv).contains(",5,0.0,\"'=HYPERLINK(\"\"x\"\")\",0.0,,\r\n");
+        assertThat(csv).contains(empty.getId() + ",Cy," + empty.getStudent().getEmail() + ",0.0,");
+        assertThat(csv).endsWith(",,,,,,\r\n");
+    }
+
+    private String export(boolean matrix) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        if (matrix) {
+            quizExportService.writeAnswerMatrix(quiz.getId(), out);
+        } else {
+            quizExportService.writeAttempts(quiz.getId(), out);
+        }
+        return out.toString(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,141 @@
+package com.cerebro.finalproject.service;
+
+import com.cerebro.finalproject.model.*;
+import com.cerebro.finalproject.repository.*;
+import com.cerebro.finalproject.security.CustomUserDetails;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+class QuizPaperServiceTest {
+
+    @Autowired
+    private WebApplicationContext webApplicationContext;
+
+    @Autowired
+    private QuizPaperService quizPaperService;
+
+    @Autowired
+    private QuizService quizService;
+
+    @Autowired
+    private QuizRepository quizRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TestData testData;
+
+    private User teacher;
+    private Classroom classroom;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(webApplicationContext).apply(springSecurity()).build();
+        teacher = testData.teacher();
+        classroom = testData.classroom(teacher);
+    }
+
+    @Test
+    void paperIsBuiltOnceSharedAndRebuiltAfterChanges() {
+        Quiz quiz = testData.quiz("Exam", classroom);
+        Question mcq = quizService.addQuestionWithChoices(quiz, "Pick one", List.of("Red", "Green", "Blue"), "Green", 2.0);
+        quizService.addQuestion(quiz, Question.QuestionType.IDENT, "Capital of France?", "Paris", 1.0);
+
+        QuizPaper paper = quizPaperService.getPaper(quiz.getId()).orElseThrow();
+        assertThat(paper.getClassRoomId()).isEqualTo(classroom.getId());
+        assertThat(paper.getTotalPoints()).isEqualTo(3.0);
+        assertThat(paper.getQuestions()).extracting(QuizPaper.Item::getText).containsExactly("Pick one", "Capital of France?");
+        assertThat(paper.getQuestions().get(0).getId()).isEqualTo(mcq.getId());
+        assertThat(paper.getQuestions().get(0).getChoices()).extracting(QuizPaper.Option::getText)
+                .containsExactly("Red", "Green", "Blue");
+        assertThat(paper.getQuestions().get(1).getChoices()).isEmpty();
+
+        // Every later student gets the same instance without a query
+        Statistics statistics = testData.statistics();
+        assertThat(quizPaperService.getPaper(quiz.getId()).orElseThrow()).isSameAs(paper);
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+
+        quizService.addQuestion(quiz, Question.QuestionType.TF, "Sky is blue?", "true", 1.0);
+        QuizPaper rebuilt = quizPaperService.getPaper(quiz.getId()).orElseThrow();
+        assertThat(rebuilt).isNotSameAs(paper);
+        assertThat(rebuilt.getQuestions()).hasSize(3);
+        assertThat(rebuilt.getTotalPoints()).isEqualTo(4.0);
+
+        quiz.setTitle("Renamed");
+        quizService.updateQuiz(quiz);
+        assertThat(quizPaperService.getPaper(quiz.getId()).orElseThrow().getTitle()).isEqualTo("Renamed");
+
+        // Missing quizzes are not cached
+        Long missing = quiz.getId() + 1_000_000;
+        assertThat(quizPaperService.getPaper(missing)).isEmpty();
+        statistics = testData.statistics();
+        assertThat(quizPaperService.getPaper(missing)).isEmpty();
+        assertThat(statistics.getPrepareStatementCount()).isPositive();
+    }
+
+    @Test
+    void quizAndReviewPagesTakeTheSameNumberOfStatementsForAnyNumberOfQuestions() throws Exception {
+        long[] small = renderBothPages(1);
+        long[] large = renderBothPages(10);
+
+        assertThat(large[0]).isEqualTo(small[0]);
+        assertThat(large[1]).isEqualTo(small[1]);
+    }
+
+    // Statements to render the quiz page (paper already cached) and the review page of a quiz
+    // with the given number of MCQ, IDENT and ESSAY questions each
+    private long[] renderBothPages(int questionsPerType) throws Exception {
+        Quiz quiz = testData.quiz("Exam " + questionsPerType, classroom);
+        for (int i = 0; i < questionsPerType; i++) {
+            quizService.addQuestionWithChoices(quiz, "Pick " + i, List.of("A", "B", "C"), "B", 1.0);
+            quizService.addQuestion(quiz, Question.QuestionType.IDENT, "Name " + i, "x", 1.0);
+            quizService.addQuestion(quiz, Question.QuestionType.ESSAY, "Explain " + i, null, 5.0);
+        }
+
+        User student = testData.enrolledStudent("Ann", classroom);
+
+        String quizPage = "/student/class/" + classroom.getId() + "/quiz/" + quiz.getId();
+        mockMvc.perform(get(quizPage).with(user(new CustomUserDetails(student)))).andExpect(status().isOk());
+        Statistics statistics = testData.statistics();
+        mockMvc.perform(get(quizPage).with(user(new CustomUserDetails(student))))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("Pick 0")));
+        long quizStatements = statistics.getPrepareStatementCount();
+
+        Map<String, String> answers = new HashMap<>();
+        for (Long questionId : jdbcTemplate.queryForList("SELECT id FROM question WHERE quiz_id = ?", Long.class, quiz.getId())) {
+            answers.put("q_" + questionId, "x");
+        }
+        Attempt attempt = quizService.submitQuiz(quizRepository.findById(quiz.getId()).orElseThrow(), student, answers);
+
+        statistics = testData.statistics();
+        mockMvc.perform(get("/teacher/attempt/" + attempt.getId() + "/review").with(user(new CustomUserDetails(teacher))))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("Explain 0")));
+        long reviewStatements = statistics.getPrepareStatementCount();
+
+        return new long[] {quizStatements, reviewStatements};
+    }
+}
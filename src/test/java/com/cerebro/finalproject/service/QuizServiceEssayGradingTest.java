@@ -0,0 +1,211 @@
+package com.cerebro.finalproject.service;
+
+import com.cerebro.finalproject.config.EssayScoreBackfill;
+import com.cerebro.finalproject.model.*;
+import com.cerebro.finalproject.repository.*;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+class QuizServiceEssayGradingTest {
+
+    @Autowired
+    private QuizService quizService;
+
+    @Autowired
+    private QuizRepository quizRepository;
+
+    @Autowired
+    private AttemptRepository attemptRepository;
+
+    @Autowired
+    private AnswerRepository answerRepository;
+
+    @Autowired
+    private EssayScoreBackfill essayScoreBackfill;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TestData testData;
+
+    private Question essay;
+    private List<Attempt> attempts;
+
+    @BeforeEach
+    void setUp() {
+        Quiz quiz = quizRepository.save(testData.newQuiz("Essays", testData.classroom(testData.teacher())));
+
+        Question ident = quizService.addQuestion(quiz, Question.QuestionType.IDENT, "Capital of France?", "Paris", 1.0);
+        essay = quizService.addQuestion(quiz, Question.QuestionType.ESSAY, "Explain.", null, 5.0);
+
+        attempts = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            User student = testData.student("S" + i);
+            Map<String, String> answers = new HashMap<>();
+            answers.put("q_" + ident.getId(), "Paris");
+            answers.put("q_" + essay.getId(), "Essay " + i);
+            attempts.add(quizService.submitQuiz(quiz, student, answers));
+        }
+    }
+
+    @Test
+    void batchGradingAppliesDeltasWithoutReloadingAttempts() {
+        Map<Long, Double> scores = new HashMap<>();
+        for (int i = 0; i < attempts.size(); i++) {
+            scores.put(essayAnswerId(attempts.get(i)), (double) i + 2);
+        }
+
+        Statistics statistics = testData.statistics();
+        assertThat(quizService.gradeEssayAnswers(scores)).isEqualTo(3);
+
+        // One select for all answers, one update per answer, one select of the attempts' scores,
+        // one update per attempt, then the quiz's stats: update, exact min/max (the old scores were
+        // all the extreme 1.0), and one update per changed bin (the old scores share one)
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1 + 3 + 1 + 3 + 2 + 4);
+        assertThat(statistics.getEntityLoadCount()).isZero(); // the quiz comes from the second-level cache
+
+        for (int i = 0; i < attempts.size(); i++) {
+            assertThat(score(attempts.get(i))).isEqualTo(1.0 + i + 2);
+        }
+
+        // Regrading moves the score by the difference only
+        quizService.gradeEssayAnswer(essayAnswerId(attempts.get(0)), 4.5);
+        assertThat(score(attempts.get(0))).isEqualTo(5.5);
+
+        Answer regraded = answerRepository.findById(essayAnswerId(attempts.get(0))).orElseThrow();
+        assertThat(regraded.getEssayScore()).isEqualTo(4.5);
+        assertThat(regraded.getActualEssayText()).isEqualTo("Essay 0");
+    }
+
+    @Test
+    void gradingTheSameAnswerTwiceAtOnceCountsItOnce() throws Exception {
+        // A double-clicked batch form: both requests grade every essay with the same scores
+        Map<Long, Double> scores = new HashMap<>();
+        for (Attempt attempt : attempts) {
+            scores.put(essayAnswerId(attempt), 3.0);
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<Integer>> gradings = new ArrayList<>();
+            for (int i = 0; i < 2; i++) {
+                gradings.add(executor.submit(() -> {
+                    start.await();
+                    return quizService.gradeEssayAnswers(scores);
+                }));
+            }
+            start.countDown();
+            for (Future<Integer> grading : gradings) {
+                assertThat(grading.get(30, TimeUnit.SECONDS)).isEqualTo(3);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        for (Attempt attempt : attempts) {
+            assertThat(score(attempt)).isEqualTo(1.0 + 3.0);
+        }
+        assertThat(quizService.getScoreSummary(essay.getQuiz().getId()).getAverageScore()).isEqualTo(4.0);
+    }
+
+    @Test
+    void invalidScoreRollsBackTheWholeBatch() {
+        Map<Long, Double> scores = new HashMap<>();
+        scores.put(essayAnswerId(attempts.get(0)), 3.0);
+        scores.put(essayAnswerId(attempts.get(1)), 6.0);
+
+        assertThatThrownBy(() -> quizService.gradeEssayAnswers(scores))
+                .hasMessageContaining("between 0 and 5.0");
+
+        assertThat(score(attempts.get(0))).isEqualTo(1.0);
+        assertThat(answerRepository.findById(essayAnswerId(attempts.get(0))).orElseThrow().getEssayScore()).isNull();
+    }
+
+    @Test
+    void backfillMovesLegacyScorePrefixIntoColumn() {
+        // Graded the old way: score in the text, attempt score already includes it
+        Long legacy = essayAnswerId(attempts.get(0));
+        jdbcTemplate.update("UPDATE answer SET given_text = ?, correct = TRUE WHERE id = ?", "ESSAY_SCORE:3.5|||Essay 0", legacy);
+        jdbcTemplate.update("UPDATE attempt SET score = 4.5 WHERE id = ?", attempts.get(0).getId());
+        Long regradedFirst = essayAnswerId(attempts.get(1));
+        jdbcTemplate.update("UPDATE answer SET given_text = ?, correct = TRUE WHERE id = ?", "ESSAY_SCORE:2.0||||x|||y", regradedFirst);
+        // Typed by a student, never graded
+        Long forged = essayAnswerId(attempts.get(2));
+        jdbcTemplate.update("UPDATE answer SET given_text = ? WHERE id = ?", "ESSAY_SCORE:5.0|||Essay 2", forged);
+        restartMigration();
+
+        // Not yet migrated rows still regrade correctly
+        quizService.gradeEssayAnswer(regradedFirst, 1.0);
+        assertThat(score(attempts.get(1))).isEqualTo(1.0 + 1.0 - 2.0);
+
+        assertThat(essayScoreBackfill.backfill()).isEqualTo(1);
+        assertThat(essayScoreBackfill.backfill()).isZero();
+        assertThat(jdbcTemplate.queryForObject("SELECT finished FROM data_migration WHERE name = 'essay-score-backfill'",
+                Boolean.class)).isTrue();
+
+        Map<String, Object> row = jdbcTemplate.queryForMap("SELECT essay_score, given_text FROM answer WHERE id = ?", legacy);
+        assertThat(row.get("essay_score")).isEqualTo(3.5);
+        assertThat(row.get("given_text")).isEqualTo("Essay 0");
+        assertThat(jdbcTemplate.queryForObject("SELECT given_text FROM answer WHERE id = ?", String.class, regradedFirst))
+                .isEqualTo("|x|||y");
+
+        quizService.gradeEssayAnswer(legacy, 5.0);
+        assertThat(score(attempts.get(0))).isEqualTo(6.0);
+    }
+
+    @Test
+    void studentTextIsNeverReadAsAScore() {
+        Long forged = essayAnswerId(attempts.get(0));
+        jdbcTemplate.update("UPDATE answer SET given_text = ? WHERE id = ?", "ESSAY_SCORE:5.0|||Essay 0", forged);
+        restartMigration();
+
+        Answer answer = answerRepository.findById(forged).orElseThrow();
+        assertThat(answer.getEssayScore()).isNull();
+        assertThat(answer.getActualEssayText()).isEqualTo("ESSAY_SCORE:5.0|||Essay 0");
+        // Graded or not, answers newer than the migration's first run are not legacy
+        assertThat(essayScoreBackfill.pendingLegacyScore(forged + 1_000_000, true, "ESSAY_SCORE:5.0|||x")).isNull();
+
+        essayScoreBackfill.backfill();
+        assertThat(jdbcTemplate.queryForObject("SELECT given_text FROM answer WHERE id = ?", String.class, forged))
+                .isEqualTo("ESSAY_SCORE:5.0|||Essay 0");
+
+        quizService.gradeEssayAnswer(forged, 2.0);
+        assertThat(score(attempts.get(0))).isEqualTo(1.0 + 2.0);
+    }
+
+    // As if this version started for the first time now, with this test's answers already stored
+    private void restartMigration() {
+        jdbcTemplate.update("DELETE FROM data_migration WHERE name = 'essay-score-backfill'");
+        essayScoreBackfill.loadState();
+    }
+
+    private Long essayAnswerId(Attempt attempt) {
+        return answerRepository.findByAttemptId(attempt.getId()).stream()
+                .filter(a -> a.getQuestion().getId().equals(essay.getId()))
+                .findFirst().orElseThrow().getId();
+    }
+
+    private double score(Attempt attempt) {
+        return attemptRepository.findById(attempt.getId()).orElseThrow().getScore();
+    }
+}
@@ -0,0 +1,259 @@
+package com.cerebro.finalproject.service;
+
+import com.cerebro.finalproject.model.*;
+import com.cerebro.finalproject.repository.*;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+@SpringBootTest
+class QuizServiceStatsTest {
+
+    @Autowired
+    private QuizService quizService;
+
+    @Autowired
+    private QuizStatsService quizStatsService;
+
+    @Autowired
+    private QuizRepository quizRepository;
+
+    @Autowired
+    private AttemptRepository attemptRepository;
+
+    @Autowired
+    private AnswerRepository answerRepository;
+
+    @Autowired
+    private QuizStatsRepository quizStatsRepository;
+
+    @Autowired
+    private QuizScoreBinRepository quizScoreBinRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TestData testData;
+
+    private Classroom classroom;
+
+    @BeforeEach
+    void setUp() {
+        classroom = testData.classroom(testData.teacher());
+    }
+
+    @Test
+    void summarizesScoresInOneQueryWithoutLoadingAttempts() {
+        // Saved directly, so there is no quiz_stats row and the aggregate query answers
+        Quiz quiz = testData.newQuiz("Exam", classroom);
+        quiz.setTotalPoints(20.0);
+        quiz = quizRepository.save(quiz);
+
+        // 95%, 90%, 85%, 75%, 70%, 50%, 0%
+        for (double score : new double[] {19, 18, 17, 15, 14, 10, 0}) {
+            addAttempt(quiz, score);
+        }
+
+        Statistics statistics = testData.statistics();
+        QuizScoreSummary summary = attemptRepository.summarizeScores(quiz.getId());
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+
+        assertThat(summary.getCount()).isEqualTo(7);
+        assertThat(summary.getMinScore()).isEqualTo(0.0);
+        assertThat(summary.getMaxScore()).isEqualTo(19.0);
+        assertThat(summary.getAverageScore()).isCloseTo(93.0 / 7, within(1e-9));
+        assertThat(summary.getExcellentCount()).isEqualTo(2);
+        assertThat(summary.getGoodCount()).isEqualTo(1);
+        assertThat(summary.getAverageCount()).isEqualTo(2);
+        assertThat(summary.getPoorCount()).isEqualTo(2);
+        assertThat(quizService.calculateAverageScore(quiz.getId())).isCloseTo(93.0 / 7 / 20 * 100, within(1e-9));
+    }
+
+    @Test
+    void summaryOfQuizWithoutAttemptsIsEmpty() {
+        Quiz quiz = testData.quiz("Empty", classroom);
+
+        QuizScoreSummary summary = quizService.getScoreSummary(quiz.getId());
+
+        assertThat(summary.getCount()).isZero();
+        assertThat(summary.getMaxScore()).isNull();
+        assertThat(summary.getPoorCount()).isZero();
+        assertThat(quizService.calculateAverageScore(quiz.getId())).isZero();
+    }
+
+    @Test
+    void statsFollowSubmitsAndEssayGradingAndReadAsOneRow() {
+        Quiz quiz = testData.quiz("Exam", classroom);
+        Question ident = quizService.addQuestion(quiz, Question.QuestionType.IDENT, "Capital of France?", "Paris", 10.0);
+        Question essay = quizService.addQuestion(quiz, Question.QuestionType.ESSAY, "Explain.", null, 10.0);
+
+        Map<Long, Double> essayScores = new HashMap<>();
+        for (int i = 0; i < 6; i++) {
+            User student = testData.student("S" + i);
+            Map<String, String> answers = new HashMap<>();
+            answers.put("q_" + ident.getId(), i % 2 == 0 ? "Paris" : "Rome");
+            answers.put("q_" + essay.getId(), "Essay " + i);
+            Attempt attempt = quizService.submitQuiz(quiz, student, answers);
+            essayScores.put(essayAnswerId(attempt, essay), (double) i * 2);
+        }
+        assertMatchesAttempts(quiz.getId());
+
+        quizService.gradeEssayAnswers(essayScores);
+        assertMatchesAttempts(quiz.getId());
+
+        // Lowering the top essay grade moves the maximum down
+        Long topEssay = essayScores.entrySet().stream()
+                .filter(e -> e.getValue() == 10.0).findFirst().orElseThrow().getKey();
+        quizService.gradeEssayAnswer(topEssay, 0.0);
+        assertMatchesAttempts(quiz.getId());
+
+        Statistics statistics = testData.statistics();
+        QuizScoreSummary summary = quizService.getScoreSummary(quiz.getId());
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+        assertThat(summary.getCount()).isEqualTo(6);
+        assertThat(summary.getStandardDeviation()).isPositive();
+
+        // Scores 0, 2, 6, 10, 14, 18 out of 20; the median is within one bin (0.02 points) of 6
+        ScoreDistribution distribution = quizStatsService.getDistribution(quiz.getId()).orElseThrow();
+        assertThat(distribution.getCount()).isEqualTo(6);
+        assertThat(distribution.getMedian()).isCloseTo(6.0, within(0.02));
+        assertThat(distribution.getP90()).isLessThanOrEqualTo(summary.getMaxScore());
+    }
+
+    @Test
+    void concurrentChangesToTheSameAttemptsKeepStatsExact() throws Exception {
+        Quiz quiz = testData.quiz("Exam", classroom);
+        Question first = quizService.addQuestion(quiz, Question.QuestionType.ESSAY, "Explain.", null, 10.0);
+        Question second = quizService.addQuestion(quiz, Question.QuestionType.ESSAY, "Discuss.", null, 10.0);
+
+        Map<Long, Double> firstScores = new HashMap<>();
+        Map<Long, Double> secondScores = new HashMap<>();
+        for (int i = 0; i < 10; i++) {
+            User student = testData.student("S" + i);
+            Attempt attempt = quizService.submitQuiz(quiz, student,
+                    Map.of("q_" + first.getId(), "One " + i, "q_" + second.getId(), "Two " + i));
+            firstScores.put(essayAnswerId(attempt, first), (double) i);
+            secondScores.put(essayAnswerId(attempt, second), 10.0 - i);
+        }
+
+        // Two teachers grade the two essays of the same attempts at once
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<Integer>> gradings = new ArrayList<>();
+            for (Map<Long, Double> scores : List.of(firstScores, secondScores)) {
+                gradings.add(executor.submit(() -> {
+                    start.await();
+                    return quizService.gradeEssayAnswers(scores);
+                }));
+            }
+            start.countDown();
+            for (Future<Integer> grading : gradings) {
+                assertThat(grading.get(30, TimeUnit.SECONDS)).isEqualTo(10);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertMatchesAttempts(quiz.getId());
+    }
+
+    @Test
+    void rebuildRepairsDriftAndDeleteRemovesTheRow() {
+        Quiz quiz = testData.quiz("Exam", classroom);
+        quizService.addQuestion(quiz, Question.QuestionType.IDENT, "Capital of France?", "Paris", 20.0);
+        for (double score : new double[] {20, 15, 5}) {
+            addAttempt(quiz, score);
+        }
+
+        // Written behind the service's back, as a crashed or manual change would
+        jdbcTemplate.update("UPDATE quiz_stats SET attempt_count = 99, max_score = 1000 WHERE quiz_id = ?", quiz.getId());
+        assertThat(quizService.getScoreSummary(quiz.getId()).getCount()).isEqualTo(99);
+
+        quizStatsService.rebuild(quiz.getId());
+        assertMatchesAttempts(quiz.getId());
+
+        quizService.deleteQuiz(quiz.getId());
+        assertThat(quizStatsRepository.findById(quiz.getId())).isEmpty();
+        assertThat(quizScoreBinRepository.findBins(quiz.getId())).isEmpty();
+    }
+
+    @Test
+    void questionChangesRebuildOnlyWhenTotalPointsChange() {
+        Quiz quiz = testData.quiz("Exam", classroom);
+        quizService.addQuestion(quiz, Question.QuestionType.IDENT, "Capital of France?", "Paris", 20.0);
+        for (double score : new double[] {20, 15, 5}) {
+            addAttempt(quiz, score);
+        }
+        quizStatsService.rebuild(quiz.getId());
+        jdbcTemplate.update("UPDATE quiz_stats SET attempt_count = 99 WHERE quiz_id = ?", quiz.getId());
+
+        // A question worth nothing leaves the bands as they were, so the row is not recounted
+        quizService.addQuestion(quiz, Question.QuestionType.ESSAY, "Optional: any feedback?", null, 0.0);
+        assertThat(quizService.getScoreSummary(quiz.getId()).getCount()).isEqualTo(99);
+
+        // 15 and 5 out of 40 instead of 20 move between bands
+        quizService.addQuestion(quiz, Question.QuestionType.IDENT, "Capital of Italy?", "Rome", 20.0);
+        assertMatchesAttempts(quiz.getId());
+        assertThat(quizService.getScoreSummary(quiz.getId()).getTotalPoints()).isEqualTo(40.0);
+    }
+
+    private void assertMatchesAttempts(Long quizId) {
+        QuizScoreSummary stored = quizStatsRepository.findSummary(quizId).orElseThrow();
+        QuizScoreSummary exact = attemptRepository.summarizeScores(quizId);
+
+        assertThat(stored.getCount()).isEqualTo(exact.getCount());
+        assertThat(stored.getScoreSum()).isCloseTo(exact.getScoreSum(), within(1e-9));
+        assertThat(stored.getScoreSumSquares()).isCloseTo(exact.getScoreSumSquares(), within(1e-9));
+        assertThat(stored.getMinScore()).isEqualTo(exact.getMinScore());
+        assertThat(stored.getMaxScore()).isEqualTo(exact.getMaxScore());
+        assertThat(List.of(stored.getExcellentCount(), stored.getGoodCount(), stored.getAverageCount(), stored.getPoorCount()))
+                .isEqualTo(List.of(exact.getExcellentCount(), exact.getGoodCount(), exact.getAverageCount(), exact.getPoorCount()));
+
+        // Incremental histogram updates land in the same bins as the rebuild query
+        ScoreHistogram counted = new ScoreHistogram();
+        for (ScoreBinCount bin : attemptRepository.countScoreBins(quizId)) {
+            counted.add(bin.getBin(), bin.getCount());
+        }
+        ScoreHistogram binned = new ScoreHistogram();
+        for (ScoreBinCount bin : quizScoreBinRepository.findBins(quizId)) {
+            binned.add(bin.getBin(), bin.getCount());
+        }
+        assertThat(binned).isEqualTo(counted);
+    }
+
+    private Long essayAnswerId(Attempt attempt, Question essay) {
+        return answerRepository.findByAttemptId(attempt.getId()).stream()
+                .filter(a -> a.getQuestion().getId().equals(essay.getId()))
+                .findFirst().orElseThrow().getId();
+    }
+
+    private void addAttempt(Quiz quiz, double score) {
+        User student = testData.student("S");
+        Attempt attempt = new Attempt();
+        attempt.setQuiz(quiz);
+        attempt.setStudent(student);
+        attempt.setScore(score);
+        attemptRepository.save(attempt);
+    }
+}
@@ -0,0 +1,186 @@
+package com.cerebro.finalproject.service;
+
+import com.cerebro.finalproject.config.AttemptUniqueKeyMigration;
+import com.cerebro.finalproject.model.*;
+import com.cerebro.finalproject.repository.*;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+class QuizServiceSubmitTest {
+
+    private static final int QUESTION_COUNT = 100;
+
+    @Autowired
+    private QuizService quizService;
+
+    @Autowired
+    private AnswerKeyService answerKeyService;
+
+    @Autowired
+    private QuizStatsService quizStatsService;
+
+    @Autowired
+    private QuizRepository quizRepository;
+
+    @Autowired
+    private QuestionRepository questionRepository;
+
+    @Autowired
+    private AttemptRepository attemptRepository;
+
+    @Autowired
+    private AnswerRepository answerRepository;
+
+    @Autowired
+    private AttemptUniqueKeyMigration attemptUniqueKeyMigration;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TestData testData;
+
+    private Quiz quiz;
+    private User student;
+    private List<Question> questions;
+
+    @BeforeEach
+    void setUp() {
+        student = testData.student("Student");
+        quiz = quizRepository.save(testData.newQuiz("Exam", testData.classroom(testData.teacher())));
+
+        questions = new ArrayList<>();
+        for (int i = 0; i < QUESTION_COUNT; i++) {
+            Question question = new Question(quiz, Question.QuestionType.IDENT, "Question " + i);
+            question.setCorrectAnswer("Answer " + i);
+            question.setQIndex(i);
+            questions.add(question);
+        }
+        questions = questionRepository.saveAll(questions);
+        quizRepository.updateTotalPoints(quiz.getId());
+        quizStatsService.rebuild(quiz.getId());
+    }
+
+    @Test
+    void submitQuizPersistsHundredAnswersInConstantStatements() {
+        Map<String, String> answers = new HashMap<>();
+        for (int i = 0; i < QUESTION_COUNT; i++) {
+            // Every other answer is correct
+            answers.put("q_" + questions.get(i).getId(), i % 2 == 0 ? "  answer   " + i : "wrong");
+        }
+
+        // Warm the answer key so only the write path is measured
+        answerKeyService.getAnswerKey(quiz.getId());
+
+        Statistics statistics = testData.statistics();
+
+        Attempt attempt = quizService.submitQuiz(quiz, student, answers);
+
+        // One attempt insert, one batched answer insert, then the stats row and the score's bin are
+        // updated in place without being read; id blocks are fetched in their own work unit
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(4);
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(QUESTION_COUNT + 1);
+        assertThat(statistics.getEntityUpdateCount()).isZero();
+
+        assertThat(attempt.getScore()).isEqualTo(QUESTION_COUNT / 2.0);
+        assertThat(answerRepository.findByAttemptId(attempt.getId())).hasSize(QUESTION_COUNT);
+    }
+
+    @Test
+    void concurrentSubmitsOfOneStudentStoreExactlyOneAttempt() throws Exception {
+        Map<String, String> answers = new HashMap<>();
+        for (int i = 0; i < QUESTION_COUNT; i++) {
+            answers.put("q_" + questions.get(i).getId(), "answer " + i);
+        }
+
+        // Stays below the connection pool size: each submit also borrows a connection for id blocks
+        int submits = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(submits);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Attempt>> results = new ArrayList<>();
+            for (int i = 0; i < submits; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return quizService.submitQuiz(quiz, student, answers);
+                }));
+            }
+            start.countDown();
+
+            int stored = 0;
+            int duplicates = 0;
+            for (Future<Attempt> result : results) {
+                try {
+                    result.get();
+                    stored++;
+                } catch (ExecutionException e) {
+                    assertThat(e.getCause()).isInstanceOf(DuplicateAttemptException.class);
+                    duplicates++;
+                }
+            }
+            assertThat(stored).isEqualTo(1);
+            assertThat(duplicates).isEqualTo(submits - 1);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        List<Attempt> attempts = attemptRepository.findByQuizIdAndStudentId(quiz.getId(), student.getId());
+        assertThat(attempts).hasSize(1);
+        assertThat(answerRepository.findByAttemptId(attempts.get(0).getId())).hasSize(QUESTION_COUNT);
+
+        // A later retry is detected the same way and reports the stored attempt
+        assertThatThrownBy(() -> quizService.submitQuiz(quiz, student, answers))
+                .isInstanceOfSatisfying(DuplicateAttemptException.class,
+                        e -> assertThat(e.getExistingAttempt().getId()).isEqualTo(attempts.get(0).getId()));
+    }
+
+    @Test
+    void startupRemovesDuplicateAttemptsBeforeAddingTheKey() {
+        Map<String, String> answers = new HashMap<>();
+        answers.put("q_" + questions.get(0).getId(), "answer 0");
+        Attempt first = quizService.submitQuiz(quiz, student, answers);
+
+        // A schema from before the key, where a race stored a second attempt with its answer
+        jdbcTemplate.execute("ALTER TABLE attempt DROP CONSTRAINT uk_attempt_quiz_student");
+        long duplicateId = 90_000_000L + first.getId();
+        try {
+            jdbcTemplate.update("INSERT INTO attempt (id, quiz_id, student_id, score, submitted_at) VALUES (?, ?, ?, ?, ?)",
+                    duplicateId, quiz.getId(), student.getId(), 1.0, first.getSubmittedAt().plusSeconds(1));
+            jdbcTemplate.update("INSERT INTO answer (id, attempt_id, question_id, given_text, correct) VALUES (?, ?, ?, ?, ?)",
+                    duplicateId, duplicateId, questions.get(0).getId(), "answer 0", true);
+
+            assertThat(attemptUniqueKeyMigration.migrate()).isEqualTo(1);
+        } finally {
+            // Leaves the key in place for the other tests, whatever happened above
+            attemptUniqueKeyMigration.migrate();
+        }
+
+        assertThat(attemptRepository.findByQuizIdAndStudentId(quiz.getId(), student.getId()))
+                .extracting(Attempt::getId).containsExactly(first.getId());
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM answer WHERE attempt_id = ?", Long.class, duplicateId))
+                .isZero();
+        assertThat(quizService.getScoreSummary(quiz.getId()).getCount()).isEqualTo(1);
+        // The key is back, so the next duplicate is rejected again
+        assertThatThrownBy(() -> quizService.submitQuiz(quiz, student, answers))
+                .isInstanceOf(DuplicateAttemptException.class);
+        assertThat(attemptUniqueKeyMigration.migrate()).isZero();
+    }
+}
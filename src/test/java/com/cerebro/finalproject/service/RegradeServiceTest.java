@@ -0,0 +1,248 @@
+package com.cerebro.finalproject.service;
+
+import com.cerebro.finalproject.model.*;
+import com.cerebro.finalproject.repository.*;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.AdditionalAnswers.delegatesTo;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+@SpringBootTest
+class RegradeServiceTest {
+
+    @Autowired
+    private QuizService quizService;
+
+    @Autowired
+    private RegradeService regradeService;
+
+    @Autowired
+    private QuizRepository quizRepository;
+
+    @Autowired
+    private QuestionRepository questionRepository;
+
+    @Autowired
+    private ChoiceRepository choiceRepository;
+
+    @Autowired
+    private AttemptRepository attemptRepository;
+
+    @Autowired
+    private AnswerRepository answerRepository;
+
+    @Autowired
+    private QuizStatsRepository quizStatsRepository;
+
+    @Autowired
+    private QuizStatsService quizStatsService;
+
+    @Autowired
+    private AnswerKeyService answerKeyService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TestData testData;
+
+    private Quiz quiz;
+
+    @BeforeEach
+    void setUp() {
+        quiz = quizRepository.save(testData.newQuiz("Exam", testData.classroom(testData.teacher())));
+    }
+
+    @Test
+    void changedKeyRegradesAnswersAndAdjustsScores() {
+        Question ident = quizService.addQuestion(quiz, Question.QuestionType.IDENT, "Capital of France?", "Lyon", 2.0);
+        Question mcq = quizService.addQuestionWithChoices(quiz, "2 + 2?", List.of("3", "4"), "3", 1.0);
+        Map<String, Long> choiceIds = new HashMap<>();
+        for (Choice choice : choiceRepository.findAll()) {
+            if (choice.getQuestion().getId().equals(mcq.getId())) {
+                choiceIds.put(choice.getText(), choice.getId());
+            }
+        }
+
+        List<Attempt> attempts = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            User student = testData.student("S" + i);
+            Map<String, String> answers = new HashMap<>();
+            answers.put("q_" + ident.getId(), i % 3 == 0 ? "Lyon" : " paris ");
+            answers.put("q_" + mcq.getId(), String.valueOf(choiceIds.get(i % 2 == 0 ? "4" : "3")));
+            attempts.add(quizService.submitQuiz(quiz, student, answers));
+        }
+
+        // Both keys were wrong; fix them one after the other
+        quizService.updateAnswerKey(ident.getId(), "Paris", null);
+        awaitJob(ident.getId());
+        quizService.updateAnswerKey(mcq.getId(), null, choiceIds.get("4"));
+        awaitJob(mcq.getId());
+
+        RegradeJob job = regradeService.getJob(mcq.getId()).orElseThrow();
+        assertThat(job.getStatus()).isEqualTo(RegradeJob.Status.COMPLETED);
+        assertThat(job.getProcessedAnswers()).isEqualTo(30);
+        assertThat(job.getChangedAnswers()).isEqualTo(30);
+        assertThat(job.getPercent()).isEqualTo(100);
+
+        for (int i = 0; i < attempts.size(); i++) {
+            double expected = (i % 3 == 0 ? 0.0 : 2.0) + (i % 2 == 0 ? 1.0 : 0.0);
+            assertThat(attemptRepository.findById(attempts.get(i).getId()).orElseThrow().getScore())
+                    .as("attempt %d", i).isEqualTo(expected);
+        }
+
+        // The quiz's stats moved along with the scores
+        QuizScoreSummary stats = quizStatsRepository.findSummary(quiz.getId()).orElseThrow();
+        QuizScoreSummary exact = attemptRepository.summarizeScores(quiz.getId());
+        assertThat(stats.getScoreSum()).isEqualTo(exact.getScoreSum());
+        assertThat(stats.getMinScore()).isEqualTo(exact.getMinScore());
+        assertThat(stats.getMaxScore()).isEqualTo(exact.getMaxScore());
+        assertThat(stats.getExcellentCount()).isEqualTo(exact.getExcellentCount());
+        assertThat(stats.getPoorCount()).isEqualTo(exact.getPoorCount());
+
+        // A second pass over an unchanged key changes nothing
+        RegradeJob again = regradeService.regrade(ident.getId());
+        assertThat(again.getChangedAnswers()).isZero();
+    }
+
+    @Test
+    void answersThatCouldNotBeRunKeepTheirGrade() {
+        Question ident = quizService.addQuestion(quiz, Question.QuestionType.IDENT, "Capital of France?", "Paris", 2.0);
+        List<Attempt> attempts = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            User student = testData.student("S" + i);
+            attempts.add(quizService.submitQuiz(quiz, student, Map.of("q_" + ident.getId(), i < 2 ? "Paris" : "paris")));
+        }
+        // Graded wrong by an older key
+        jdbcTemplate.update("UPDATE answer SET correct = FALSE WHERE question_id = ?", ident.getId());
+        jdbcTemplate.update("UPDATE attempt SET score = 0 WHERE quiz_id = ?", quiz.getId());
+        quizStatsService.rebuild(quiz.getId());
+
+        // As if the lower-case answers were CODING answers that found every code runner busy
+        AnswerKeyService busy = mock(AnswerKeyService.class, delegatesTo(answerKeyService));
+        doAnswer(invocation -> {
+            AnswerKey.Entry entry = invocation.getArgument(0);
+            if ("paris".equals(invocation.getArgument(1))) {
+                throw new CodeNotRunException(entry.getQuestionId(), "Not run: all code runners were busy");
+            }
+            return answerKeyService.grade(entry, (String) invocation.getArgument(1));
+        }).when(busy).grade(any(AnswerKey.Entry.class), any());
+        RegradeService regrade = new RegradeService(transactionManager, 1000);
+        ReflectionTestUtils.setField(regrade, "answerRepository", answerRepository);
+        ReflectionTestUtils.setField(regrade, "attemptRepository", attemptRepository);
+        ReflectionTestUtils.setField(regrade, "questionRepository", questionRepository);
+        ReflectionTestUtils.setField(regrade, "answerKeyService", busy);
+        ReflectionTestUtils.setField(regrade, "quizStatsService", quizStatsService);
+        try {
+            RegradeJob job = regrade.regrade(ident.getId());
+
+            assertThat(job.getProcessedAnswers()).isEqualTo(4);
+            assertThat(job.getChangedAnswers()).isEqualTo(2);
+            assertThat(job.getSkippedAnswers()).isEqualTo(2);
+        } finally {
+            regrade.shutdown();
+        }
+
+        for (int i = 0; i < attempts.size(); i++) {
+            assertThat(attemptRepository.findById(attempts.get(i).getId()).orElseThrow().getScore())
+                    .as("attempt %d", i).isEqualTo(i < 2 ? 2.0 : 0.0);
+        }
+        assertThat(quizStatsRepository.findSummary(quiz.getId()).orElseThrow().getScoreSum()).isEqualTo(4.0);
+    }
+
+    /**
+     * Regrades 100k answers of one question and compares with recalculating each affected attempt.
+     * Run with {@code mvn test -Dtest=RegradeServiceTest -Dbenchmark=true}.
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void benchmarkRegradeOfHundredThousandAnswers() {
+        int answerCount = 100_000;
+        Question question = quizService.addQuestion(quiz, Question.QuestionType.IDENT, "Capital of France?", "Lyon", 1.0);
+        seedAnswers(question, answerCount);
+
+        Statistics statistics = testData.statistics();
+        long start = System.nanoTime();
+        quizService.updateAnswerKey(question.getId(), "Paris", null);
+        awaitJob(question.getId());
+        long regradeMillis = (System.nanoTime() - start) / 1_000_000;
+        long statements = statistics.getPrepareStatementCount();
+
+        RegradeJob job = regradeService.getJob(question.getId()).orElseThrow();
+        assertThat(job.getChangedAnswers()).isEqualTo(answerCount);
+        assertThat(attemptRepository.findByQuizId(quiz.getId()).stream()
+                .allMatch(a -> a.getScore() == (a.getId() % 2 == 0 ? 0.0 : 1.0))).isTrue();
+
+        // Baseline: the per-attempt recalculation that was the only tool before, on a sample
+        int sample = 2_000;
+        List<Long> sampleIds = jdbcTemplate.queryForList(
+                "SELECT id FROM attempt WHERE quiz_id = ? ORDER BY id LIMIT ?", Long.class, quiz.getId(), sample);
+        statistics.clear();
+        start = System.nanoTime();
+        for (Long attemptId : sampleIds) {
+            quizService.recalculateAttemptScore(attemptId);
+        }
+        long legacyMillis = (System.nanoTime() - start) / 1_000_000 * (answerCount / sample);
+        long legacyStatements = statistics.getPrepareStatementCount() * (answerCount / sample);
+
+        System.out.printf("Regrade of %d answers: %d ms, %d statements; per-attempt recalculation (extrapolated): %d ms, %d statements%n",
+                answerCount, regradeMillis, statements, legacyMillis, legacyStatements);
+    }
+
+    private void seedAnswers(Question question, int count) {
+        long base = 10_000_000L;
+        List<Object[]> users = new ArrayList<>(count);
+        List<Object[]> attempts = new ArrayList<>(count);
+        List<Object[]> answers = new ArrayList<>(count);
+        LocalDateTime now = LocalDateTime.now();
+        // Far above the ids the pooled generator hands out, like the attempt and answer ids
+        Long firstUserId = 60_000_000L;
+        for (int i = 0; i < count; i++) {
+            long id = base + i;
+            boolean lyon = id % 2 == 0;
+            User student = testData.newStudent("S" + i);
+            users.add(new Object[] {firstUserId + i, student.getName(), student.getEmail(), "x", "STUDENT"});
+            attempts.add(new Object[] {id, quiz.getId(), firstUserId + i, lyon ? 1.0 : 0.0, now});
+            answers.add(new Object[] {id, id, question.getId(), lyon ? "Lyon" : "paris", lyon});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO users (id, name, email, password, role) VALUES (?, ?, ?, ?, ?)", users);
+        jdbcTemplate.batchUpdate("INSERT INTO attempt (id, quiz_id, student_id, score, submitted_at) VALUES (?, ?, ?, ?, ?)", attempts);
+        jdbcTemplate.batchUpdate("INSERT INTO answer (id, attempt_id, question_id, given_text, correct) VALUES (?, ?, ?, ?, ?)", answers);
+    }
+
+    private void awaitJob(Long questionId) {
+        long deadline = System.currentTimeMillis() + 60_000;
+        while (System.currentTimeMillis() < deadline) {
+            if (regradeService.getJob(questionId).map(RegradeJob::isFinished).orElse(false)) {
+                return;
+            }
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+        throw new AssertionError("Regrade of question " + questionId + " did not finish");
+    }
+}
@@ -0,0 +1,136 @@
+package com.cerebro.finalproject.service;
+
+import com.cerebro.finalproject.config.ReplicaLagMonitor;
+import com.cerebro.finalproject.model.*;
+import com.cerebro.finalproject.repository.*;
+import com.cerebro.finalproject.security.CustomUserDetails;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Two in-memory databases stand in for the primary and its replica; replicate() copies one to the other
+@SpringBootTest(properties = {
+        "spring.datasource.url=" + ReplicaRoutingTest.PRIMARY_URL,
+        "app.datasource.replica.url=" + ReplicaRoutingTest.REPLICA_URL,
+        "app.datasource.replica.heartbeat-interval-ms=3600000",
+        "app.datasource.replica.max-lag-ms=60000"
+})
+class ReplicaRoutingTest {
+
+    static final String PRIMARY_URL = "jdbc:h2:mem:routing_primary;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+    static final String REPLICA_URL = "jdbc:h2:mem:routing_replica;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+
+    @Autowired
+    private QuizService quizService;
+
+    @Autowired
+    private TestData testData;
+
+    @Autowired
+    private ReplicaLagMonitor replicaLagMonitor;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+
+    @Autowired
+    @Qualifier("primaryDataSource")
+    private DataSource primaryDataSource;
+
+    private JdbcTemplate primary;
+    private JdbcTemplate replica;
+    private Classroom classroom;
+    private Quiz quiz;
+    private Question question;
+    private User student;
+
+    @BeforeEach
+    void setUp() {
+        primary = new JdbcTemplate(primaryDataSource);
+        // Not the application's replica pool, which is read-only
+        replica = new JdbcTemplate(new DriverManagerDataSource(REPLICA_URL, "sa", ""));
+
+        classroom = testData.classroom(testData.teacher());
+        quiz = testData.quiz("Primary title", classroom);
+        question = quizService.addQuestion(quiz, Question.QuestionType.IDENT, "Capital of France?", "Paris", 1.0);
+        student = testData.student("Ann");
+        replicate();
+    }
+
+    @AfterEach
+    void clearUser() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void readOnlyTransactionsReadTheReplicaAndOthersThePrimary() {
+        replica.update("UPDATE quiz SET title = 'Replica title' WHERE id = ?", quiz.getId());
+
+        // The listing is read-only; a read-write transaction around it stays on the primary
+        assertThat(listing().get(0).getTitle()).isEqualTo("Replica title");
+        assertThat((String) transactionTemplate.execute(status -> listing().get(0).getTitle())).isEqualTo("Primary title");
+    }
+
+    @Test
+    void submittingStudentReadsThePrimaryUntilTheReplicaHasTheAttempt() {
+        signIn(student);
+        quizService.submitQuiz(quiz, student, Map.of("q_" + question.getId(), "Paris"));
+
+        // Not replicated yet: the student sees the attempt, anyone else reads the replica without it
+        assertThat(listing().get(0).isAttempted()).isTrue();
+        SecurityContextHolder.clearContext();
+        assertThat(listing().get(0).isAttempted()).isFalse();
+
+        replicate();
+        signIn(student);
+        replica.update("UPDATE quiz SET title = 'Replica title' WHERE id = ?", quiz.getId());
+        StudentQuizRow row = listing().get(0);
+        assertThat(row.getTitle()).isEqualTo("Replica title");
+        assertThat(row.isAttempted()).isTrue();
+    }
+
+    @Test
+    void laggingReplicaIsNotRead() {
+        replica.update("UPDATE quiz SET title = 'Replica title' WHERE id = ?", quiz.getId());
+        replica.update("UPDATE replica_heartbeat SET beat_at = ? WHERE id = 1", System.currentTimeMillis() - 120_000);
+        replicaLagMonitor.refresh();
+
+        assertThat(listing().get(0).getTitle()).isEqualTo("Primary title");
+        assertThat(replicaLagMonitor.canReadFromReplica(null)).isFalse();
+    }
+
+    private List<StudentQuizRow> listing() {
+        return quizService.getStudentQuizRows(classroom.getId(), student.getId());
+    }
+
+    private void signIn(User user) {
+        CustomUserDetails details = new CustomUserDetails(user);
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(details, null, details.getAuthorities()));
+    }
+
+    // Heartbeat, then a full copy of the primary, then the replica's heartbeat is read back
+    private void replicate() {
+        replicaLagMonitor.beat();
+        List<String> script = primary.queryForList("SCRIPT", String.class);
+        replica.execute("DROP ALL OBJECTS");
+        for (String statement : script) {
+            replica.execute(statement);
+        }
+        replicaLagMonitor.refresh();
+    }
+}
@@ -0,0 +1,79 @@
+package com.cerebro.finalproject.service;
+
+import com.cerebro.finalproject.model.ScoreHistogram;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class ScoreDistributionTest {
+
+    private static final double[] QUANTILES = {0.10, 0.25, 0.50, 0.75, 0.90};
+
+    @Test
+    void percentilesStayWithinOneBinOfExactValues() {
+        Random random = new Random(42);
+        double totalPoints = 37.5;
+
+        // Continuous, skewed and coarse (whole points) score distributions
+        double[][] samples = new double[3][];
+        samples[0] = random.doubles(100_000, 0, totalPoints).toArray();
+        samples[1] = random.doubles(50_000).map(x -> totalPoints * Math.pow(x, 4)).toArray();
+        samples[2] = random.ints(20_001, 0, 38).mapToDouble(x -> Math.min(x, totalPoints)).toArray();
+
+        for (double[] scores : samples) {
+            ScoreHistogram histogram = histogramOf(scores, totalPoints);
+            double[] sorted = scores.clone();
+            Arrays.sort(sorted);
+            ScoreDistribution distribution = new ScoreDistribution(histogram, totalPoints, sorted[0], sorted[sorted.length - 1]);
+            Double[] estimates = {distribution.getP10(), distribution.getP25(), distribution.getMedian(),
+                    distribution.getP75(), distribution.getP90()};
+
+            for (int i = 0; i < QUANTILES.length; i++) {
+                double exact = sorted[(int) Math.floor((sorted.length - 1) * QUANTILES[i])];
+                assertThat(estimates[i]).isCloseTo(exact, within(totalPoints / ScoreHistogram.BINS));
+            }
+            assertThat(Arrays.stream(distribution.getBuckets()).sum()).isEqualTo(scores.length);
+        }
+    }
+
+    @Test
+    void mergesAndRemoves() {
+        Random random = new Random(7);
+        double totalPoints = 20;
+        double[] first = random.doubles(5_000, 0, totalPoints).toArray();
+        double[] second = random.doubles(3_000, 0, totalPoints).toArray();
+
+        ScoreHistogram merged = histogramOf(first, totalPoints);
+        merged.merge(histogramOf(second, totalPoints));
+        double[] all = new double[first.length + second.length];
+        System.arraycopy(first, 0, all, 0, first.length);
+        System.arraycopy(second, 0, all, first.length, second.length);
+        assertThat(merged).isEqualTo(histogramOf(all, totalPoints));
+
+        for (double score : second) {
+            merged.add(ScoreHistogram.binOf(score, totalPoints), -1);
+        }
+        assertThat(merged).isEqualTo(histogramOf(first, totalPoints));
+        assertThat(merged.getCount()).isEqualTo(first.length);
+    }
+
+    @Test
+    void fullAndOutOfRangeScoresLandInEndBins() {
+        assertThat(ScoreHistogram.binOf(20, 20)).isEqualTo(ScoreHistogram.BINS - 1);
+        assertThat(ScoreHistogram.binOf(25, 20)).isEqualTo(ScoreHistogram.BINS - 1);
+        assertThat(ScoreHistogram.binOf(-1, 20)).isZero();
+        assertThat(new ScoreHistogram().quantile(0.5)).isNull();
+    }
+
+    private ScoreHistogram histogramOf(double[] scores, double totalPoints) {
+        ScoreHistogram histogram = new ScoreHistogram();
+        for (double score : scores) {
+            histogram.add(ScoreHistogram.binOf(score, totalPoints), 1);
+        }
+        return histogram;
+    }
+}
@@ -0,0 +1,127 @@
+package com.cerebro.finalproject.service;
+
+import com.cerebro.finalproject.model.*;
+import com.cerebro.finalproject.repository.*;
+import com.cerebro.finalproject.security.CustomUserDetails;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+class StudentClassPageTest {
+
+    // Built from the shared context; @AutoConfigureMockMvc would start a second one with its own id pools
+    @Autowired
+    private WebApplicationContext webApplicationContext;
+
+    @Autowired
+    private QuizService quizService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TestData testData;
+
+    private Classroom classroom;
+    private User student;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(webApplicationContext).apply(springSecurity()).build();
+        classroom = testData.classroom(testData.teacher());
+        student = testData.enrolledStudent("Ann", classroom);
+    }
+
+    @Test
+    void quizRowsCarryCountsAndTheStudentsAttemptInOneQuery() {
+        Quiz taken = addQuiz("Taken", 3);
+        Quiz open = addQuiz("Open", 2);
+        Quiz empty = testData.quiz("Empty", classroom);
+        // Another student's attempt must not show up as this student's
+        User other = testData.student("Bob");
+        submit(open, other);
+        submit(taken, student);
+
+        Statistics statistics = testData.statistics();
+        List<StudentQuizRow> rows = quizService.getStudentQuizRows(classroom.getId(), student.getId());
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+        assertThat(rows).extracting(StudentQuizRow::getQuizId).containsExactly(taken.getId(), open.getId(), empty.getId());
+        assertThat(rows).extracting(StudentQuizRow::getQuestionCount).containsExactly(3L, 2L, 0L);
+        assertThat(rows).extracting(StudentQuizRow::isAttempted).containsExactly(true, false, false);
+        // Two of three one-point questions answered correctly
+        assertThat(rows.get(0).getScore()).isEqualTo(2.0);
+        assertThat(rows.get(0).getPercentage()).isCloseTo(200.0 / 3, within(1e-9));
+    }
+
+    @Test
+    void pageCostsTheSameNumberOfStatementsForAnyNumberOfQuizzes() throws Exception {
+        submit(addQuiz("Quiz 0", 2), student);
+        long few = statementsToRender();
+
+        for (int i = 1; i < 30; i++) {
+            Quiz quiz = addQuiz("Quiz " + i, 2);
+            if (i % 2 == 0) {
+                submit(quiz, student);
+            }
+        }
+        long many = statementsToRender();
+
+        assertThat(many).isEqualTo(few);
+    }
+
+    // Counted on a second render, once the enrollment check is cached
+    private long statementsToRender() throws Exception {
+        render();
+        Statistics statistics = testData.statistics();
+        render();
+        return statistics.getPrepareStatementCount();
+    }
+
+    private void render() throws Exception {
+        mockMvc.perform(get("/student/class/" + classroom.getId()).with(user(new CustomUserDetails(student))))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("Quiz 0")));
+    }
+
+    private Quiz addQuiz(String title, int questions) {
+        Quiz quiz = testData.quiz(title, classroom);
+        for (int i = 0; i < questions; i++) {
+            quizService.addQuestion(quiz, Question.QuestionType.IDENT, "Question " + i, "yes", 1.0);
+        }
+        return quiz;
+    }
+
+    // Answers "yes" to the quiz's first two questions only
+    private void submit(Quiz quiz, User by) {
+        List<Long> questionIds = jdbcTemplate.queryForList(
+                "SELECT id FROM question WHERE quiz_id = ? ORDER BY id", Long.class, quiz.getId());
+        Map<String, String> answers = new HashMap<>();
+        for (int i = 0; i < questionIds.size(); i++) {
+            answers.put("q_" + questionIds.get(i), i < 2 ? "yes" : "no");
+        }
+        quizService.submitQuiz(quiz, by, answers);
+    }
+}
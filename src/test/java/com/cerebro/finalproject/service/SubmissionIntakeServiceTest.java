@@ -0,0 +1,194 @@
+package com.cerebro.finalproject.service;
+
+import com.cerebro.finalproject.model.*;
+import com.cerebro.finalproject.repository.*;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.AdditionalAnswers.delegatesTo;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+@SpringBootTest
+class SubmissionIntakeServiceTest {
+
+    @Autowired
+    private SubmissionIntakeService submissionIntakeService;
+
+    @Autowired
+    private SubmissionRepository submissionRepository;
+
+    @Autowired
+    private QuizService quizService;
+
+    @Autowired
+    private TestData testData;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private SubmissionIntakeService smallIntake;
+    private Quiz quiz;
+    private Question question;
+
+    @BeforeEach
+    void setUp() {
+        quiz = testData.quiz("Quiz", testData.classroom(testData.teacher()));
+        question = quizService.addQuestion(quiz, Question.QuestionType.IDENT, "Capital of France?", "Paris", 2.0);
+    }
+
+    @AfterEach
+    void stopSmallIntake() {
+        if (smallIntake != null) {
+            smallIntake.shutdown();
+        }
+    }
+
+    @Test
+    void acceptedSubmissionIsGradedInTheBackground() {
+        User student = testData.student("Student");
+
+        Submission submission = submissionIntakeService.accept(quiz, student,
+                Map.of("q_" + question.getId(), " paris ", "_csrf", "token"));
+
+        assertThat(submission.getAnswers()).doesNotContain("_csrf");
+        assertThat(submissionIntakeService.hasSubmitted(quiz.getId(), student.getId())).isTrue();
+
+        Submission graded = awaitGraded(submission.getId());
+        assertThat(graded.getStatus()).isEqualTo(Submission.Status.GRADED);
+        assertThat(quizService.getAttemptById(graded.getAttemptId()))
+                .hasValueSatisfying(attempt -> assertThat(attempt.getScore()).isEqualTo(2.0));
+        // Nothing pending any more, but the stored attempt still counts as submitted
+        assertThat(submissionIntakeService.hasSubmitted(quiz.getId(), student.getId())).isTrue();
+    }
+
+    @Test
+    void secondSubmissionOfAStudentIsMarkedDuplicate() {
+        User student = testData.student("Student");
+
+        Long first = submissionIntakeService.accept(quiz, student, answers("Paris")).getId();
+        Long second = submissionIntakeService.accept(quiz, student, answers("Rome")).getId();
+
+        List<Submission.Status> statuses = List.of(awaitGraded(first).getStatus(), awaitGraded(second).getStatus());
+        assertThat(statuses).containsExactlyInAnyOrder(Submission.Status.GRADED, Submission.Status.DUPLICATE);
+        assertThat(quizService.getStudentLatestAttempt(quiz.getId(), student.getId())).isPresent();
+    }
+
+    @Test
+    void submissionsBeyondAFullQueueWaitForTheSweep() {
+        // One worker held in grading and a queue of one: the third submission does not fit
+        CountDownLatch release = new CountDownLatch(1);
+        QuizService gated = mock(QuizService.class, delegatesTo(quizService));
+        doAnswer(invocation -> {
+            assertThat(release.await(30, TimeUnit.SECONDS)).isTrue();
+            return quizService.gradeAnswers(invocation.getArgument(0), invocation.getArgument(1));
+        }).when(gated).gradeAnswers(any(), any());
+        smallIntake = smallIntake(gated, new SimpleMeterRegistry());
+
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            ids.add(smallIntake.accept(quiz, testData.student("Student"), answers("Paris")).getId());
+        }
+        release.countDown();
+        awaitGraded(ids.get(0));
+        awaitGraded(ids.get(1));
+
+        Long overflowed = ids.get(2);
+        assertThat(submissionRepository.findById(overflowed).orElseThrow().getStatus())
+                .isEqualTo(Submission.Status.PENDING);
+
+        // The sweep leaves submissions of the last second to their own enqueue
+        makeOlder(overflowed);
+        smallIntake.sweepPending();
+        assertThat(awaitGraded(overflowed).getStatus()).isEqualTo(Submission.Status.GRADED);
+    }
+
+    @Test
+    void submissionsWhoseCodeWasNotRunAreGradedLater() {
+        // The code runners are busy on the first try, which is no grade for the submission
+        AtomicBoolean runnersBusy = new AtomicBoolean(true);
+        QuizService busy = mock(QuizService.class, delegatesTo(quizService));
+        doAnswer(invocation -> {
+            if (runnersBusy.get()) {
+                throw new CodeNotRunException(question.getId(), "Not run: all code runners were busy");
+            }
+            return quizService.gradeAnswers(invocation.getArgument(0), invocation.getArgument(1));
+        }).when(busy).gradeAnswers(any(), any());
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        smallIntake = smallIntake(busy, meterRegistry);
+
+        Long id = smallIntake.accept(quiz, testData.student("Student"), answers("Paris")).getId();
+        await().atMost(Duration.ofSeconds(30))
+                .until(() -> meterRegistry.counter("quiz.submission.grading.deferred").count() == 1.0);
+        assertThat(submissionRepository.findById(id).orElseThrow().getStatus()).isEqualTo(Submission.Status.PENDING);
+
+        runnersBusy.set(false);
+        makeOlder(id);
+        smallIntake.sweepPending();
+        assertThat(awaitGraded(id).getStatus()).isEqualTo(Submission.Status.GRADED);
+    }
+
+    @Test
+    void submissionsLeftPendingByACrashAreGradedBySweep() {
+        // Stored, but the process died before it was graded; nothing holds it in memory
+        Submission submission = new Submission();
+        submission.setQuiz(quiz);
+        submission.setStudent(testData.student("Student"));
+        submission.setAnswers("{\"q_" + question.getId() + "\":\"Paris\"}");
+        submission.setReceivedAt(LocalDateTime.now().minusMinutes(5));
+        Long id = submissionRepository.save(submission).getId();
+
+        submissionIntakeService.sweepPending();
+
+        Submission graded = awaitGraded(id);
+        assertThat(graded.getStatus()).isEqualTo(Submission.Status.GRADED);
+        assertThat(quizService.getAttemptById(graded.getAttemptId()))
+                .hasValueSatisfying(attempt -> assertThat(attempt.getScore()).isEqualTo(2.0));
+    }
+
+    // One worker and a queue of one, grading through the given quiz service
+    private SubmissionIntakeService smallIntake(QuizService grading, SimpleMeterRegistry meterRegistry) {
+        SubmissionIntakeService intake = new SubmissionIntakeService(transactionManager, meterRegistry, 1, 1);
+        ReflectionTestUtils.setField(intake, "submissionRepository", submissionRepository);
+        ReflectionTestUtils.setField(intake, "quizService", grading);
+        ReflectionTestUtils.setField(intake, "objectMapper", objectMapper);
+        return intake;
+    }
+
+    private Submission awaitGraded(Long submissionId) {
+        return await().atMost(Duration.ofSeconds(30))
+                .until(() -> submissionRepository.findById(submissionId).orElseThrow(),
+                        submission -> submission.getStatus() != Submission.Status.PENDING);
+    }
+
+    private void makeOlder(Long submissionId) {
+        Submission submission = submissionRepository.findById(submissionId).orElseThrow();
+        submission.setReceivedAt(submission.getReceivedAt().minusMinutes(5));
+        submissionRepository.save(submission);
+    }
+
+    private Map<String, String> answers(String answer) {
+        return Map.of("q_" + question.getId(), answer);
+    }}
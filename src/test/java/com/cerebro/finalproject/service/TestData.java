@@ -0,0 +1,90 @@
+package com.cerebro.finalproject.service;
+
+import com.cerebro.finalproject.model.Classroom;
+import com.cerebro.finalproject.model.Quiz;
+import com.cerebro.finalproject.model.User;
+import com.cerebro.finalproject.repository.ClassroomRepository;
+import com.cerebro.finalproject.repository.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.UUID;
+
+// Users, classrooms and quizzes for the service tests; every email and class code is unique, so
+// tests sharing the database never collide
+@Component
+class TestData {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ClassroomRepository classroomRepository;
+
+    @Autowired
+    private QuizService quizService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    User teacher() {
+        return userRepository.save(new User("Teacher", email("teacher"), "x", User.Role.TEACHER));
+    }
+
+    User student(String name) {
+        return userRepository.save(newStudent(name));
+    }
+
+    // Not saved, for tests that insert many students at once
+    User newStudent(String name) {
+        return new User(name, email(name == null ? "student" : name), "x", User.Role.STUDENT);
+    }
+
+    User enrolledStudent(String name, Classroom classroom) {
+        User student = student(name);
+        jdbcTemplate.update("INSERT INTO classroom_students (classroom_id, student_id) VALUES (?, ?)",
+                classroom.getId(), student.getId());
+        return student;
+    }
+
+    Classroom classroom(User teacher) {
+        return classroom("Class", teacher);
+    }
+
+    Classroom classroom(String name, User teacher) {
+        return classroomRepository.save(new Classroom(name, UUID.randomUUID().toString().substring(0, 8), teacher));
+    }
+
+    // Created the way teachers do, with its quiz_stats row
+    Quiz quiz(String title, Classroom classroom) {
+        return quizService.createQuiz(title, null, classroom, classroom.getTeacher());
+    }
+
+    // Not saved and without a quiz_stats row, for tests that set up the quiz themselves
+    Quiz newQuiz(String title, Classroom classroom) {
+        Quiz quiz = new Quiz();
+        quiz.setTitle(title);
+        quiz.setClassRoom(classroom);
+        quiz.setTeacher(classroom.getTeacher());
+        return quiz;
+    }
+
+    // Hibernate's statistics, cleared, so a test counts only the statements it runs next
+    Statistics statistics() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        return statistics;
+    }
+
+    private static String email(String name) {
+        return name.toLowerCase(Locale.ROOT).replace(' ', '.') + "-" + UUID.randomUUID() + "@test.com";
+    }
+}